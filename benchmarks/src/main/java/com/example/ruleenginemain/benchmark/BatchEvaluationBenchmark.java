@@ -0,0 +1,52 @@
+package com.example.ruleenginemain.benchmark;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.model.BatchEvaluationResult;
+import com.example.ruleenginemain.service.RuleService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One rule against a batch of records through {@link RuleService#evaluateBatch}. Batch
+ * sizes straddle the threshold at which the service switches to parallel evaluation, and
+ * each is run column by column and record by record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class BatchEvaluationBenchmark {
+
+    @Param({"WIDE", "DEEP"})
+    public RuleGenerator.Shape shape;
+
+    @Param({"100", "10000"})
+    public int batchSize;
+
+    @Param({"true", "false"})
+    public boolean columnar;
+
+    private RuleService ruleService;
+    private Long ruleId;
+    private List<Map<String, Object>> records;
+
+    @Setup
+    public void setUp() {
+        RuleGenerator generator = new RuleGenerator(42);
+        RuleEngineProperties properties = new RuleEngineProperties();
+        properties.getBatch().setColumnar(columnar);
+        ruleService = Fixtures.ruleService(properties);
+        ruleId = ruleService.createRule(generator.rule(shape, 20)).getId();
+        records = generator.records(batchSize);
+    }
+
+    @Benchmark
+    public BatchEvaluationResult evaluateBatch() {
+        return ruleService.evaluateBatch(ruleId, records);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.ruleenginemain.benchmark;
+
+import com.example.ruleenginemain.engine.CompiledRule;
+import com.example.ruleenginemain.engine.RuleCompiler;
+import com.example.ruleenginemain.engine.RuleParser;
+import com.example.ruleenginemain.model.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a parsed tree into a compiled rule, i.e. the price of a rule cache miss.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class CompileBenchmark {
+
+    @Param({"SIMPLE", "WIDE", "DEEP"})
+    public RuleGenerator.Shape shape;
+
+    @Param({"50"})
+    public int comparisons;
+
+    private Node tree;
+    private RuleCompiler compiler;
+
+    @Setup
+    public void setUp() {
+        tree = new RuleParser(name -> true).parse(new RuleGenerator(42).rule(shape, comparisons));
+        compiler = new RuleCompiler(name -> null);
+    }
+
+    @Benchmark
+    public CompiledRule compile() {
+        return compiler.compile(1L, tree);
+    }
+}
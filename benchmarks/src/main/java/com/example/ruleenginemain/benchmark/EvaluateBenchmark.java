@@ -0,0 +1,48 @@
+package com.example.ruleenginemain.benchmark;
+
+import com.example.ruleenginemain.service.RuleService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-record evaluation of one rule through {@link RuleService#evaluateRule}, covering
+ * the cache lookup and the compiled condition tree for shallow and deep rules.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class EvaluateBenchmark {
+
+    private static final int RECORDS = 1024;
+
+    @Param({"SIMPLE", "WIDE", "DEEP"})
+    public RuleGenerator.Shape shape;
+
+    @Param({"10", "100"})
+    public int comparisons;
+
+    private RuleService ruleService;
+    private Long ruleId;
+    private List<Map<String, Object>> records;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        RuleGenerator generator = new RuleGenerator(42);
+        ruleService = Fixtures.ruleService();
+        ruleId = ruleService.createRule(generator.rule(shape, comparisons)).getId();
+        records = generator.records(RECORDS);
+    }
+
+    @Benchmark
+    public boolean evaluate() {
+        next = (next + 1) & (RECORDS - 1);
+        return ruleService.evaluateRule(ruleId, records.get(next));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ruleenginemain.benchmark;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.Rule;
+import com.example.ruleenginemain.repository.AttributeRepository;
+import com.example.ruleenginemain.repository.RuleRepository;
+import com.example.ruleenginemain.service.AttributeService;
+import com.example.ruleenginemain.service.RuleCache;
+import com.example.ruleenginemain.service.RuleMetrics;
+import com.example.ruleenginemain.service.RuleService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wires a real {@link RuleService} over in-memory repositories, so benchmarks exercise the
+ * service code paths without starting Spring or a database.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static RuleService ruleService() {
+        return ruleService(new RuleEngineProperties());
+    }
+
+    static RuleService ruleService(RuleEngineProperties properties) {
+        AttributeService attributeService = new AttributeService(attributeRepository(RuleGenerator.attributes()));
+        RuleMetrics metrics = new RuleMetrics(new SimpleMeterRegistry(), properties);
+        return new RuleService(ruleRepository(), attributeService, new RuleCache(properties), properties, metrics);
+    }
+
+    private static RuleRepository ruleRepository() {
+        Map<Long, Rule> rules = new ConcurrentHashMap<>();
+        AtomicLong ids = new AtomicLong();
+        return repository(RuleRepository.class, (method, args) -> {
+            switch (method) {
+                case "save":
+                    Rule rule = (Rule) args[0];
+                    if (rule.getId() == null) {
+                        rule.setId(ids.incrementAndGet());
+                    }
+                    rules.put(rule.getId(), rule);
+                    return rule;
+                case "findById":
+                    return Optional.ofNullable(rules.get((Long) args[0]));
+                case "findAll":
+                    return new ArrayList<>(rules.values());
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static AttributeRepository attributeRepository(List<Attribute> attributes) {
+        return repository(AttributeRepository.class, (method, args) -> {
+            if ("findAll".equals(method)) {
+                return new ArrayList<>(attributes);
+            }
+            if ("save".equals(method)) {
+                return args[0];
+            }
+            return null;
+        });
+    }
+
+    private interface Handler {
+        // Returns null for methods the benchmarks never call
+        Object invoke(String method, Object[] args);
+    }
+
+    private static <T> T repository(Class<T> type, Handler handler) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.getName().equals("equals") ? self == args[0]
+                        : method.getName().equals("hashCode") ? System.identityHashCode(self) : type.getSimpleName();
+            }
+            Object result = handler.invoke(method.getName(), args);
+            if (result == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            return result;
+        });
+        return type.cast(proxy);
+    }
+}
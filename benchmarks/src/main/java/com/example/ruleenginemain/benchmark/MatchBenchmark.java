@@ -0,0 +1,49 @@
+package com.example.ruleenginemain.benchmark;
+
+import com.example.ruleenginemain.service.RuleService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One record against every stored rule through {@link RuleService#matchRules}. Rules are a
+ * mix of single comparisons, conjunctions and deeper trees, as a catalog tends to be.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class MatchBenchmark {
+
+    private static final int RECORDS = 1024;
+
+    @Param({"100", "1000", "10000"})
+    public int ruleCount;
+
+    private RuleService ruleService;
+    private List<Map<String, Object>> records;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        RuleGenerator generator = new RuleGenerator(42);
+        ruleService = Fixtures.ruleService();
+        RuleGenerator.Shape[] shapes = RuleGenerator.Shape.values();
+        for (int i = 0; i < ruleCount; i++) {
+            ruleService.createRule(generator.rule(shapes[i % shapes.length], 2 + i % 6));
+        }
+        records = generator.records(RECORDS);
+        // builds the rule index outside the measurement
+        ruleService.matchRules(records.get(0), null);
+    }
+
+    @Benchmark
+    public List<Long> match() {
+        next = (next + 1) & (RECORDS - 1);
+        return ruleService.matchRules(records.get(next), null);
+    }
+}
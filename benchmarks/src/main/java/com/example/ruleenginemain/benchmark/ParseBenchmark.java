@@ -0,0 +1,47 @@
+package com.example.ruleenginemain.benchmark;
+
+import com.example.ruleenginemain.engine.RuleParser;
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse throughput by rule shape and size. Identifiers are validated against an in-memory
+ * catalog so the numbers reflect the lexer and parser alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"SIMPLE", "WIDE", "DEEP"})
+    public RuleGenerator.Shape shape;
+
+    @Param({"50"})
+    public int comparisons;
+
+    private String rule;
+    private RuleParser parser;
+
+    @Setup
+    public void setUp() {
+        Map<String, Attribute.AttributeType> catalog = new HashMap<>();
+        for (Attribute attribute : RuleGenerator.attributes()) {
+            catalog.put(attribute.getName(), attribute.getType());
+        }
+        parser = new RuleParser(catalog::containsKey, catalog::get);
+        rule = new RuleGenerator(42).rule(shape, comparisons);
+    }
+
+    @Benchmark
+    public Node parse() {
+        return parser.parse(rule);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.ruleenginemain.benchmark;
+
+import com.example.ruleenginemain.model.Attribute;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded generator of synthetic attributes, rules and records. The same seed always yields
+ * the same workload, so runs of different releases measure identical inputs.
+ */
+public class RuleGenerator {
+
+    public static final int NUMBER_ATTRIBUTES = 20;
+    public static final int STRING_ATTRIBUTES = 20;
+    private static final int STRING_VALUES = 10;
+
+    public enum Shape {
+        // a single comparison
+        SIMPLE,
+        // OR of AND groups of three comparisons, all at shallow depth
+        WIDE,
+        // comparisons nested one level deeper each time, alternating AND/OR with occasional NOT
+        DEEP
+    }
+
+    private final Random random;
+
+    public RuleGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static List<Attribute> attributes() {
+        List<Attribute> attributes = new ArrayList<>();
+        for (int i = 0; i < NUMBER_ATTRIBUTES; i++) {
+            attributes.add(new Attribute("num" + i, Attribute.AttributeType.NUMBER));
+        }
+        for (int i = 0; i < STRING_ATTRIBUTES; i++) {
+            attributes.add(new Attribute("str" + i, Attribute.AttributeType.STRING));
+        }
+        return attributes;
+    }
+
+    // Rule string with roughly the given number of comparisons
+    public String rule(Shape shape, int comparisons) {
+        switch (shape) {
+            case SIMPLE:
+                return comparison();
+            case WIDE:
+                return wide(comparisons);
+            default:
+                return deep(comparisons);
+        }
+    }
+
+    public String comparison() {
+        if (random.nextBoolean()) {
+            String attribute = "num" + random.nextInt(NUMBER_ATTRIBUTES);
+            String operator = random.nextInt(3) == 0 ? "=" : (random.nextBoolean() ? ">" : "<");
+            return attribute + " " + operator + " " + random.nextInt(100);
+        }
+        return "str" + random.nextInt(STRING_ATTRIBUTES) + " = 'v" + random.nextInt(STRING_VALUES) + "'";
+    }
+
+    public Map<String, Object> record() {
+        Map<String, Object> record = new HashMap<>();
+        for (int i = 0; i < NUMBER_ATTRIBUTES; i++) {
+            record.put("num" + i, random.nextInt(100));
+        }
+        for (int i = 0; i < STRING_ATTRIBUTES; i++) {
+            record.put("str" + i, "v" + random.nextInt(STRING_VALUES));
+        }
+        return record;
+    }
+
+    public List<Map<String, Object>> records(int count) {
+        List<Map<String, Object>> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(record());
+        }
+        return records;
+    }
+
+    private String wide(int comparisons) {
+        StringBuilder rule = new StringBuilder();
+        for (int i = 0; i < comparisons; i += 3) {
+            if (i > 0) {
+                rule.append(" OR ");
+            }
+            rule.append('(').append(comparison());
+            for (int j = i + 1; j < Math.min(i + 3, comparisons); j++) {
+                rule.append(" AND ").append(comparison());
+            }
+            rule.append(')');
+        }
+        return rule.toString();
+    }
+
+    private String deep(int comparisons) {
+        if (comparisons <= 1) {
+            return comparison();
+        }
+        String operator = comparisons % 2 == 0 ? " AND " : " OR ";
+        String nested = "(" + deep(comparisons - 1) + ")";
+        if (comparisons % 5 == 0) {
+            nested = "NOT " + nested;
+        }
+        return comparison() + operator + nested;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ruleenginemain.benchmark;
+
+import com.example.ruleenginemain.model.Attribute;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares loading a rule catalog one {@code POST /api/rules} at a time with
+ * {@code POST /api/rules/import}, in rules per second, against the packaged application:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.example.ruleenginemain.benchmark.RuleImportBenchmark \
+ *     target/rule-engine-0.0.1-SNAPSHOT-exec.jar 20000
+ * </pre>
+ * Both paths load the same seeded mix of simple, wide and deep rules into one running
+ * application, after a warm-up of each path, and are timed from the client.
+ */
+public final class RuleImportBenchmark {
+
+    private static final int PORT = 18081;
+    private static final int WARMUP_RULES = 500;
+    // Rules per import request, so one request body stays a few megabytes
+    private static final int IMPORT_REQUEST_SIZE = 5000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: RuleImportBenchmark <application jar> [rules]");
+            System.exit(2);
+        }
+        Path jar = Paths.get(args[0]).toAbsolutePath();
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+        try (ApplicationProcess application = ApplicationProcess.start(jar, PORT, Collections.emptyList())) {
+            application.awaitReady();
+            for (Attribute attribute : RuleGenerator.attributes()) {
+                application.post("/api/attributes?name=" + attribute.getName() + "&type=" + attribute.getType(), "",
+                        "application/x-www-form-urlencoded");
+            }
+
+            createOneByOne(application, rules(1, WARMUP_RULES));
+            importAll(application, rules(2, WARMUP_RULES));
+
+            List<String> rules = rules(3, count);
+            long start = System.nanoTime();
+            createOneByOne(application, rules);
+            double oneByOne = count / ((System.nanoTime() - start) / 1e9);
+
+            start = System.nanoTime();
+            importAll(application, rules);
+            double imported = count / ((System.nanoTime() - start) / 1e9);
+
+            System.out.printf("%-12s %12s%n", "path", "rules/s");
+            System.out.printf("%-12s %12.0f%n", "one-by-one", oneByOne);
+            System.out.printf("%-12s %12.0f%n", "import", imported);
+        }
+    }
+
+    private static List<String> rules(long seed, int count) {
+        RuleGenerator generator = new RuleGenerator(seed);
+        RuleGenerator.Shape[] shapes = RuleGenerator.Shape.values();
+        List<String> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rules.add(generator.rule(shapes[i % shapes.length], 6));
+        }
+        return rules;
+    }
+
+    private static void createOneByOne(ApplicationProcess application, List<String> rules) throws Exception {
+        for (String rule : rules) {
+            application.post("/api/rules", "{\"ruleString\":" + json(rule) + "}", "application/json");
+        }
+    }
+
+    private static void importAll(ApplicationProcess application, List<String> rules) throws Exception {
+        for (int from = 0; from < rules.size(); from += IMPORT_REQUEST_SIZE) {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = from; i < Math.min(rules.size(), from + IMPORT_REQUEST_SIZE); i++) {
+                body.append(i > from ? "," : "").append("{\"ruleString\":").append(json(rules.get(i))).append('}');
+            }
+            String response = application.post("/api/rules/import", body.append(']').toString(), "application/json");
+            if (!response.contains("\"errors\":{}")) {
+                throw new IllegalStateException("Import reported errors: " + response);
+            }
+        }
+    }
+
+    // Generated rules contain no characters that need escaping beyond these
+    private static String json(String text) {
+        return '"' + text.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.ruleenginemain.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures time to readiness and first-evaluation latency of the packaged application with
+ * and without Spring AOT and a class-data-sharing archive. Each configuration starts the
+ * application in a fresh JVM, waits until {@code /actuator/health} answers, creates a rule and
+ * times its first evaluation, which includes loading and compiling the rule.
+ * <p>
+ * JMH measures steady-state throughput, so this runs as a plain main class:
+ * <pre>
+ * java -Djarmode=tools -jar target/rule-engine-0.0.1-SNAPSHOT-exec.jar extract --destination target/app
+ * java -cp benchmarks/target/benchmarks.jar com.example.ruleenginemain.benchmark.StartupBenchmark \
+ *     target/app/rule-engine-0.0.1-SNAPSHOT-exec.jar 5
+ * </pre>
+ * The jar must be the extracted one, since a CDS archive only matches the class path it was
+ * trained on. The archive is trained once into a temporary directory before measuring.
+ */
+public final class StartupBenchmark {
+
+    private static final int PORT = 18080;
+
+    private final Path jar;
+
+    private StartupBenchmark(Path jar) {
+        this.jar = jar;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: StartupBenchmark <extracted application jar> [runs]");
+            System.exit(2);
+        }
+        Path jar = Paths.get(args[0]).toAbsolutePath();
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        new StartupBenchmark(jar).run(runs);
+    }
+
+    private void run(int runs) throws Exception {
+        Path archive = Files.createTempDirectory("rule-engine-cds").resolve("app.jsa");
+        train(archive);
+
+        Map<String, List<String>> configurations = new LinkedHashMap<>();
+        configurations.put("baseline", Collections.emptyList());
+        configurations.put("aot", Collections.singletonList("-Dspring.aot.enabled=true"));
+        configurations.put("cds", Collections.singletonList("-XX:SharedArchiveFile=" + archive));
+        configurations.put("aot+cds", Arrays.asList("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive));
+
+        System.out.printf("%-10s %14s %16s%n", "config", "ready (ms)", "first eval (ms)");
+        for (Map.Entry<String, List<String>> configuration : configurations.entrySet()) {
+            List<Long> ready = new ArrayList<>();
+            List<Long> firstEvaluation = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                long[] sample = measure(configuration.getValue());
+                ready.add(sample[0]);
+                firstEvaluation.add(sample[1]);
+            }
+            System.out.printf("%-10s %14.1f %16.2f%n", configuration.getKey(),
+                    median(ready) / 1e6, median(firstEvaluation) / 1e6);
+        }
+    }
+
+    // Starts the application once, exiting after the context refresh, to record the classes it loads
+    private void train(Path archive) throws IOException, InterruptedException {
+        Process process = ApplicationProcess.start(jar, PORT, Arrays.asList("-XX:ArchiveClassesAtExit=" + archive,
+                "-Dspring.context.exit=onRefresh", "-Dspring.aot.enabled=true")).process();
+        if (process.waitFor() != 0 || !Files.exists(archive)) {
+            throw new IllegalStateException("Training run failed with exit code " + process.exitValue());
+        }
+    }
+
+    // {nanos until ready, nanos of the first evaluation}
+    private long[] measure(List<String> jvmOptions) throws Exception {
+        long start = System.nanoTime();
+        try (ApplicationProcess application = ApplicationProcess.start(jar, PORT, jvmOptions)) {
+            application.awaitReady();
+            long ready = System.nanoTime() - start;
+
+            application.post("/api/attributes?name=age&type=NUMBER", "", "application/x-www-form-urlencoded");
+            application.post("/api/attributes?name=department&type=STRING", "", "application/x-www-form-urlencoded");
+            application.post("/api/rules", "{\"ruleString\":\"age > 30 AND department = 'Sales'\"}", "application/json");
+
+            long evaluationStart = System.nanoTime();
+            String result = application.post("/api/rules/1/evaluate", "{\"age\":35,\"department\":\"Sales\"}", "application/json");
+            long firstEvaluation = System.nanoTime() - evaluationStart;
+            if (!"true".equals(result)) {
+                throw new IllegalStateException("Unexpected evaluation result: " + result);
+            }
+            return new long[]{ready, firstEvaluation};
+        }
+    }
+
+    private static double median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2.0;
+    }
+}
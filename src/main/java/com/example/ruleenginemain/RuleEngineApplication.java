@@ -1,11 +1,13 @@
 package com.example.ruleenginemain;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class RuleEngineApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(RuleEngineApplication.class, args);
     }
-}
\ No newline at end of file
+}
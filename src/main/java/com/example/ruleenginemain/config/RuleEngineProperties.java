@@ -0,0 +1,374 @@
+package com.example.ruleenginemain.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "rule-engine")
+public class RuleEngineProperties {
+
+    private final Cache cache = new Cache();
+    private final Persistence persistence = new Persistence();
+    private final Stream stream = new Stream();
+    private final Batch batch = new Batch();
+    private final Functions functions = new Functions();
+    private final Metrics metrics = new Metrics();
+    private final Profiling profiling = new Profiling();
+    private final Execution execution = new Execution();
+    private final Scoring scoring = new Scoring();
+    private final Import importSettings = new Import();
+    private final Warmup warmup = new Warmup();
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Persistence getPersistence() {
+        return persistence;
+    }
+
+    public Stream getStream() {
+        return stream;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Functions getFunctions() {
+        return functions;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Profiling getProfiling() {
+        return profiling;
+    }
+
+    public Execution getExecution() {
+        return execution;
+    }
+
+    public Scoring getScoring() {
+        return scoring;
+    }
+
+    public Import getImport() {
+        return importSettings;
+    }
+
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    // Settings for the in-memory cache of ready-to-evaluate rules
+    public static class Cache {
+        // raised to fit the whole catalog when rules are preloaded
+        private int maxSize = 10000;
+        // for rules loaded on a cache miss; preloaded and published rules do not expire
+        private Duration ttl = Duration.ofMinutes(30);
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    // How rule trees are stored in the database
+    public static class Persistence {
+        private AstStorage astStorage = AstStorage.COMPACT;
+        private boolean migrateOnStartup = true;
+
+        public AstStorage getAstStorage() {
+            return astStorage;
+        }
+
+        public void setAstStorage(AstStorage astStorage) {
+            this.astStorage = astStorage;
+        }
+
+        public boolean isMigrateOnStartup() {
+            return migrateOnStartup;
+        }
+
+        public void setMigrateOnStartup(boolean migrateOnStartup) {
+            this.migrateOnStartup = migrateOnStartup;
+        }
+    }
+
+    // Settings for NDJSON streaming evaluation
+    public static class Stream {
+        // records evaluated together per stream; reading pauses until their results are written
+        private int maxInFlight = 1024;
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+    }
+
+    // Settings for user-defined functions
+    public static class Functions {
+        // results kept per pure function that declares its inputs; 0 disables caching across records
+        private int cacheSize = 10000;
+        // calls of functions with a timeout that may run at once; further calls fail immediately
+        private int timeoutThreads = 16;
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public int getTimeoutThreads() {
+            return timeoutThreads;
+        }
+
+        public void setTimeoutThreads(int timeoutThreads) {
+            this.timeoutThreads = timeoutThreads;
+        }
+    }
+
+    // Settings for engine metrics
+    public static class Metrics {
+        // evaluation and match latency is timed for one call in sampleRate; 1 times every call,
+        // which costs several times the evaluation of a simple rule
+        private int sampleRate = 64;
+        // tag evaluation meters with the rule id; each rule then adds its own series
+        private boolean perRule = false;
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(int sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public boolean isPerRule() {
+            return perRule;
+        }
+
+        public void setPerRule(boolean perRule) {
+            this.perRule = perRule;
+        }
+    }
+
+    // Settings for opt-in evaluation profiling
+    public static class Profiling {
+        // how long per-node statistics are aggregated before a new profile is started
+        private Duration window = Duration.ofMinutes(5);
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+    }
+
+    // How a rule is evaluated over a batch of records
+    public static class Batch {
+        // evaluate column by column; false evaluates each record on its own
+        private boolean columnar = true;
+        // records per columnar chunk; chunks of a large batch are evaluated in parallel
+        private int chunkSize = 1024;
+
+        public boolean isColumnar() {
+            return columnar;
+        }
+
+        public void setColumnar(boolean columnar) {
+            this.columnar = columnar;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    // How REST evaluation requests are run off the servlet threads
+    public static class Execution {
+        private ExecutionMode mode = ExecutionMode.AUTO;
+        // evaluations running at once; 0 means twice the number of processors
+        private int threads = 0;
+        // accepted requests waiting for a thread; requests beyond this are rejected
+        private int queueCapacity = 256;
+        // requests still waiting after this long are dropped instead of run
+        private Duration queueTimeout = Duration.ofSeconds(2);
+
+        public ExecutionMode getMode() {
+            return mode;
+        }
+
+        public void setMode(ExecutionMode mode) {
+            this.mode = mode;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getQueueTimeout() {
+            return queueTimeout;
+        }
+
+        public void setQueueTimeout(Duration queueTimeout) {
+            this.queueTimeout = queueTimeout;
+        }
+    }
+
+    // Settings for scoring jobs over local files
+    public static class Scoring {
+        // directory input and output files must be in; jobs are disabled while unset
+        private String directory = "";
+        // bytes of the input mapped and evaluated as one unit of parallel work
+        private DataSize chunkSize = DataSize.ofMegabytes(64);
+        // worker threads evaluating chunks, shared by all jobs; 0 means the number of processors
+        private int parallelism = 0;
+        // jobs running at once; further submissions are rejected until one finishes
+        private int maxConcurrentJobs = 2;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(DataSize chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getMaxConcurrentJobs() {
+            return maxConcurrentJobs;
+        }
+
+        public void setMaxConcurrentJobs(int maxConcurrentJobs) {
+            this.maxConcurrentJobs = maxConcurrentJobs;
+        }
+    }
+
+    // Settings for bulk rule import
+    public static class Import {
+        // rules saved per transaction; inserts within a chunk are sent in JDBC batches
+        private int chunkSize = 500;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    // Settings for loading and warming up rules before the application reports ready
+    public static class Warmup {
+        private boolean enabled = true;
+        // synthetic evaluations spread over all rules to get the evaluation code compiled by the JIT
+        private int evaluations = 100000;
+        // the synthetic evaluations stop after this long
+        private Duration timeout = Duration.ofSeconds(20);
+        // file of rule trees read at startup instead of unchanged rules from the database; empty disables it
+        private String snapshot = "";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getEvaluations() {
+            return evaluations;
+        }
+
+        public void setEvaluations(int evaluations) {
+            this.evaluations = evaluations;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public String getSnapshot() {
+            return snapshot;
+        }
+
+        public void setSnapshot(String snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    public enum ExecutionMode {
+        // virtual threads when the JVM has them, otherwise a bounded pool
+        AUTO,
+        // one virtual thread per request
+        VIRTUAL,
+        // a fixed pool of platform threads
+        POOLED
+    }
+
+    public enum AstStorage {
+        // one encoded column on the rules table
+        COMPACT,
+        // one row per node in the nodes table
+        NODES
+    }
+}
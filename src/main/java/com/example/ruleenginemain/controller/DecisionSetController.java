@@ -0,0 +1,81 @@
+package com.example.ruleenginemain.controller;
+
+import com.example.ruleenginemain.exception.EvaluationRejectedException;
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.DecisionSet;
+import com.example.ruleenginemain.service.DecisionSetService;
+import com.example.ruleenginemain.service.EvaluationExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/decision-sets")
+public class DecisionSetController {
+    private final DecisionSetService decisionSetService;
+    private final EvaluationExecutor evaluationExecutor;
+
+    @Autowired
+    public DecisionSetController(DecisionSetService decisionSetService, EvaluationExecutor evaluationExecutor) {
+        this.decisionSetService = decisionSetService;
+        this.evaluationExecutor = evaluationExecutor;
+    }
+
+    // Body: {"name": ..., "mode": "FIRST_MATCH" | "ALL_MATCH", "rules": [{"ruleId": 1, "priority": 10}, ...]}
+    @PostMapping
+    public ResponseEntity<?> createDecisionSet(@RequestBody DecisionSet request) {
+        try {
+            DecisionSet decisionSet = decisionSetService.createDecisionSet(request.getName(), request.getMode(),
+                    request.getRules());
+            return ResponseEntity.ok(decisionSet);
+        } catch (RuleEngineException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<DecisionSet>> getAllDecisionSets() {
+        return ResponseEntity.ok(decisionSetService.getAllDecisionSets());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getDecisionSet(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(decisionSetService.getDecisionSet(id));
+        } catch (RuleEngineException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteDecisionSet(@PathVariable Long id) {
+        try {
+            decisionSetService.deleteDecisionSet(id);
+            return ResponseEntity.noContent().build();
+        } catch (RuleEngineException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/evaluate")
+    public CompletableFuture<ResponseEntity<?>> evaluate(@PathVariable Long id, @RequestBody Map<String, Object> data) {
+        return evaluationExecutor.submit(() -> {
+            try {
+                return ResponseEntity.ok(decisionSetService.evaluate(id, data));
+            } catch (RuleEngineException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
+    }
+
+    @ExceptionHandler(EvaluationRejectedException.class)
+    public ResponseEntity<String> handleRejected(EvaluationRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+    }
+}
@@ -1,24 +1,54 @@
 package com.example.ruleenginemain.controller;
 
+import com.example.ruleenginemain.exception.EvaluationRejectedException;
+import com.example.ruleenginemain.exception.RuleConflictException;
 import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.BatchEvaluationResult;
 import com.example.ruleenginemain.model.Rule;
+import com.example.ruleenginemain.model.RuleImportRequest;
+import com.example.ruleenginemain.model.RuleEvaluation;
+import com.example.ruleenginemain.service.EvaluationExecutor;
+import com.example.ruleenginemain.service.RuleImportService;
+import com.example.ruleenginemain.service.RuleProfilingService;
 import com.example.ruleenginemain.service.RuleService;
+import com.example.ruleenginemain.service.StreamingEvaluationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/rules")
 public class RuleController {
+    private static final String NDJSON = "application/x-ndjson";
+    // Version of the rule an evaluation response was computed with
+    private static final String RULE_VERSION = "X-Rule-Version";
+
     private final RuleService ruleService;
+    private final RuleImportService ruleImportService;
+    private final StreamingEvaluationService streamingEvaluationService;
+    private final RuleProfilingService ruleProfilingService;
+    private final EvaluationExecutor evaluationExecutor;
 
     @Autowired
-    public RuleController(RuleService ruleService) {
+    public RuleController(RuleService ruleService, RuleImportService ruleImportService,
+                          StreamingEvaluationService streamingEvaluationService,
+                          RuleProfilingService ruleProfilingService, EvaluationExecutor evaluationExecutor) {
         this.ruleService = ruleService;
+        this.ruleImportService = ruleImportService;
+        this.streamingEvaluationService = streamingEvaluationService;
+        this.ruleProfilingService = ruleProfilingService;
+        this.evaluationExecutor = evaluationExecutor;
     }
 
     @PostMapping("/create")
@@ -40,6 +70,16 @@ public class RuleController {
         }
     }
 
+    // Body: [{"ruleString": ..., "tags": [...]}, ...]; rules that fail are reported without stopping the rest
+    @PostMapping("/import")
+    public ResponseEntity<?> importRules(@RequestBody List<RuleImportRequest> rules) {
+        try {
+            return ResponseEntity.ok(ruleImportService.importRules(rules));
+        } catch (RuleEngineException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/combine")
     public ResponseEntity<?> combineRules(@RequestBody List<Long> ruleIds) {
         try {
@@ -51,15 +91,115 @@ public class RuleController {
     }
 
     @PostMapping("/{ruleId}/evaluate")
-    public ResponseEntity<?> evaluateRule(@PathVariable Long ruleId, @RequestBody Map<String, Object> data) {
+    public CompletableFuture<ResponseEntity<?>> evaluateRule(@PathVariable Long ruleId,
+                                                             @RequestParam(defaultValue = "false") boolean profile,
+                                                             @RequestBody Map<String, Object> data) {
+        return evaluationExecutor.submit(() -> {
+            try {
+                if (profile) {
+                    return ResponseEntity.ok(ruleProfilingService.evaluate(ruleId, data));
+                }
+                RuleEvaluation result = ruleService.evaluate(ruleId, data);
+                return ResponseEntity.ok().header(RULE_VERSION, String.valueOf(result.getRuleVersion()))
+                        .body(result.isMatched());
+            } catch (RuleEngineException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
+    }
+
+    @GetMapping("/{ruleId}/profile")
+    public ResponseEntity<?> getProfile(@PathVariable Long ruleId) {
+        try {
+            return ResponseEntity.ok(ruleProfilingService.getProfile(ruleId));
+        } catch (RuleEngineException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Collapsed-stack text for flamegraph.pl or speedscope
+    @GetMapping(value = "/{ruleId}/profile/folded", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<?> getFoldedProfile(@PathVariable Long ruleId) {
+        try {
+            return ResponseEntity.ok(ruleProfilingService.getFoldedProfile(ruleId));
+        } catch (RuleEngineException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{ruleId}/profile")
+    public ResponseEntity<?> resetProfile(@PathVariable Long ruleId) {
+        ruleProfilingService.resetProfile(ruleId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{ruleId}/evaluate/batch")
+    public CompletableFuture<ResponseEntity<?>> evaluateBatch(@PathVariable Long ruleId,
+                                                              @RequestBody List<Map<String, Object>> records) {
+        return evaluationExecutor.submit(() -> {
+            try {
+                BatchEvaluationResult result = ruleService.evaluateBatch(ruleId, records);
+                return ResponseEntity.ok().header(RULE_VERSION, String.valueOf(result.getRuleVersion())).body(result);
+            } catch (RuleEngineException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
+    }
+
+    // Reads NDJSON records from the request and streams one result line per record back.
+    // Runs on the servlet thread for the whole stream, outside EvaluationExecutor's queueing and shedding.
+    @PostMapping(value = "/{ruleId}/evaluate/stream", consumes = NDJSON, produces = NDJSON)
+    public ResponseEntity<?> evaluateStream(@PathVariable Long ruleId, HttpServletRequest request,
+                                            HttpServletResponse response) throws IOException {
+        try {
+            response.setContentType(NDJSON);
+            streamingEvaluationService.evaluate(ruleId, request.getInputStream(), response.getOutputStream());
+            return null; // the response has been written
+        } catch (RuleEngineException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/match")
+    public CompletableFuture<ResponseEntity<?>> matchRules(@RequestParam(required = false) String tag,
+                                                           @RequestBody Map<String, Object> data) {
+        return evaluationExecutor.submit(() -> {
+            try {
+                List<Long> ruleIds = ruleService.matchRules(data, tag);
+                return ResponseEntity.ok(ruleIds);
+            } catch (RuleEngineException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
+    }
+
+    @PutMapping("/{ruleId}/tags")
+    public ResponseEntity<?> updateTags(@PathVariable Long ruleId, @RequestBody Set<String> tags) {
         try {
-            boolean result = ruleService.evaluateRule(ruleId, data);
-            return ResponseEntity.ok(result);
+            Rule rule = ruleService.updateTags(ruleId, tags);
+            return ResponseEntity.ok(rule);
+        } catch (RuleConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuleEngineException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+        return ResponseEntity.ok(ruleService.getCacheStats());
+    }
+
+    @GetMapping("/functions/stats")
+    public ResponseEntity<?> getFunctionStats() {
+        return ResponseEntity.ok(ruleService.getFunctionStats());
+    }
+
+    @ExceptionHandler(EvaluationRejectedException.class)
+    public ResponseEntity<String> handleRejected(EvaluationRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleException(Exception e) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An unexpected error occurred: " + e.getMessage());
@@ -0,0 +1,81 @@
+package com.example.ruleenginemain.controller;
+
+import com.example.ruleenginemain.exception.EvaluationRejectedException;
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.ScoringJob;
+import com.example.ruleenginemain.service.FileScoringService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/scoring-jobs")
+public class ScoringJobController {
+    private final FileScoringService fileScoringService;
+
+    @Autowired
+    public ScoringJobController(FileScoringService fileScoringService) {
+        this.fileScoringService = fileScoringService;
+    }
+
+    // Body: {"ruleId": 1, "input": "extract.csv", "output": "matches.csv", "format": "CSV" | "NDJSON", "idField": "id"}
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestBody Map<String, String> request) {
+        try {
+            ScoringJob job = fileScoringService.submit(ruleId(request.get("ruleId")), request.get("input"),
+                    request.get("output"), format(request.get("format")), request.get("idField"));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (EvaluationRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (RuleEngineException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ScoringJob>> getJobs() {
+        return ResponseEntity.ok(fileScoringService.getJobs());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(fileScoringService.getJob(id));
+        } catch (RuleEngineException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> cancel(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(fileScoringService.cancel(id));
+        } catch (RuleEngineException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private static Long ruleId(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new RuleEngineException("Invalid rule ID: " + value);
+        }
+    }
+
+    private static ScoringJob.Format format(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return ScoringJob.Format.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuleEngineException("Unknown format: " + value + "; expected CSV or NDJSON");
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.ruleenginemain.engine;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Evaluation order for the children of an AND or OR, adapted to the facts seen at runtime.
+ * <p>
+ * One evaluation in {@value #SAMPLE_RATE} is sampled: every child is evaluated and timed,
+ * and how often it held is recorded. After every {@value #SAMPLES_PER_REORDER} samples the
+ * children are re-ranked so that cheap children likely to decide the result run first:
+ * by {@code cost / P(false)} for AND and {@code cost / P(true)} for OR. Older samples are
+ * halved away, so the order follows drifting data. Statistics are updated without
+ * synchronisation; lost updates only make them slightly less precise, and ratios are
+ * clamped when ranking.
+ * <p>
+ * Reordering never changes a true/false outcome. A child that cannot be evaluated, e.g.
+ * because its attribute is missing, is passed over and its error kept; the error is
+ * thrown only if no other child settles the result. Every child is evaluated at most once,
+ * and the error thrown is that of the first failing child as written, the one the written
+ * order would report.
+ */
+final class AdaptiveOrder {
+
+    private static final int SAMPLE_RATE = 128;
+    private static final int SAMPLES_PER_REORDER = 16;
+    private static final long MAX_SAMPLES = 1024;
+
+    private final Condition[] children;
+    private final boolean conjunction;
+    private final long[] samples;
+    private final long[] satisfied;
+    private final long[] nanos;
+    private int pendingSamples;
+    // Positions in children, in evaluation order
+    private volatile int[] order;
+
+    AdaptiveOrder(Condition[] children, boolean conjunction) {
+        this.children = children;
+        this.conjunction = conjunction;
+        this.samples = new long[children.length];
+        this.satisfied = new long[children.length];
+        this.nanos = new long[children.length];
+        this.order = new int[children.length];
+        for (int i = 0; i < children.length; i++) {
+            order[i] = i;
+        }
+    }
+
+    // Children in their current evaluation order
+    Condition[] current() {
+        int[] current = order;
+        Condition[] conditions = new Condition[current.length];
+        for (int i = 0; i < current.length; i++) {
+            conditions[i] = children[current[i]];
+        }
+        return conditions;
+    }
+
+    boolean test(Map<String, Object> data) {
+        if (children.length > 1 && ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0) {
+            return sample(data);
+        }
+        RuntimeException error = null;
+        int errorPosition = children.length;
+        for (int position : order) {
+            boolean value;
+            try {
+                value = children[position].test(data);
+            } catch (RuntimeException e) {
+                if (position < errorPosition) {
+                    error = e;
+                    errorPosition = position;
+                }
+                continue;
+            }
+            if (value != conjunction) {
+                return !conjunction;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return conjunction;
+    }
+
+    // Evaluates and measures every child in written order; a failed child is not measured
+    private boolean sample(Map<String, Object> data) {
+        boolean result = conjunction;
+        RuntimeException error = null;
+        for (int i = 0; i < children.length; i++) {
+            long start = System.nanoTime();
+            boolean value;
+            try {
+                value = children[i].test(data);
+            } catch (RuntimeException e) {
+                if (error == null) {
+                    error = e;
+                }
+                continue;
+            }
+            nanos[i] += System.nanoTime() - start;
+            samples[i]++;
+            if (value) {
+                satisfied[i]++;
+            }
+            if (value != conjunction) {
+                result = !conjunction;
+            }
+        }
+        if (++pendingSamples >= SAMPLES_PER_REORDER) {
+            pendingSamples = 0;
+            reorder();
+        }
+        if (error != null && result == conjunction) {
+            throw error;
+        }
+        return result;
+    }
+
+    private void reorder() {
+        double[] ranks = new double[children.length];
+        Integer[] positions = new Integer[children.length];
+        for (int i = 0; i < children.length; i++) {
+            if (samples[i] > MAX_SAMPLES) {
+                samples[i] /= 2;
+                satisfied[i] /= 2;
+                nanos[i] /= 2;
+            }
+            // Racing updates may leave satisfied above samples
+            long sampled = Math.max(0, samples[i]);
+            long held = Math.min(Math.max(0, satisfied[i]), sampled);
+            double cost = (Math.max(0, nanos[i]) + 1.0) / (sampled + 1.0);
+            double pTrue = (held + 1.0) / (sampled + 2.0);
+            // expected cost per evaluation that the child settles the result
+            ranks[i] = cost / (conjunction ? 1.0 - pTrue : pTrue);
+            positions[i] = i;
+        }
+        Arrays.sort(positions, Comparator.comparingDouble(i -> ranks[i]));
+        int[] reordered = new int[children.length];
+        for (int i = 0; i < positions.length; i++) {
+            reordered[i] = positions[i];
+        }
+        order = reordered;
+    }
+}
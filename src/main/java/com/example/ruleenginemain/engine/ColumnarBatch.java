@@ -0,0 +1,360 @@
+package com.example.ruleenginemain.engine;
+
+import java.util.*;
+
+/**
+ * Evaluates one compiled rule over a range of records column by column instead of record by
+ * record.
+ * <p>
+ * Each attribute a comparison reads becomes a column of the batch, filled the first time a
+ * row is asked for and with numeric values parsed once. A condition node takes a selection
+ * vector - the ascending indexes of the rows still in play - and returns the rows it holds
+ * for: a comparison is one tight loop over its column, AND passes each child's survivors to
+ * the next child, OR only asks each child about the rows no earlier child matched, and NOT
+ * takes the difference. Later conditions therefore only look at, and only load, rows that can
+ * still change the result.
+ * <p>
+ * Rows whose outcome in the columns could differ from {@link CompiledRule#evaluate} - a
+ * missing attribute that may name a user-defined function, or a non-numeric value in an
+ * ordering comparison, which fails the record - are set aside and evaluated record by record
+ * at the end, so results and errors are exactly those of the row-wise path. Comparisons
+ * without a column form (functions, attribute-to-attribute) are tested per selected row.
+ */
+public final class ColumnarBatch {
+
+    private static final int[] NO_ROWS = new int[0];
+
+    private final CompiledRule rule;
+    private final List<Map<String, Object>> records;
+    private final int from;
+    private final int size;
+    private final Map<String, Column> columns = new HashMap<>();
+    // Rows to be evaluated record by record, indexed from 'from'
+    private final boolean[] deferred;
+    private boolean anyDeferred;
+    // Per-row views for conditions tested record by record, so pure functions run once per row
+    private Object[] views;
+
+    private ColumnarBatch(CompiledRule rule, List<Map<String, Object>> records, int from, int to) {
+        this.rule = rule;
+        this.records = records;
+        this.from = from;
+        this.size = to - from;
+        this.deferred = new boolean[size];
+    }
+
+    /**
+     * Evaluates records {@code from} (inclusive) to {@code to} (exclusive), setting
+     * {@code results[i]} for each matching record and putting the message of each record
+     * that cannot be evaluated into {@code errors}. Returns the number of matches.
+     */
+    public static int evaluate(CompiledRule rule, List<Map<String, Object>> records, int from, int to,
+                               boolean[] results, Map<Integer, String> errors) {
+        return new ColumnarBatch(rule, records, from, to).evaluate(results, errors);
+    }
+
+    private int evaluate(boolean[] results, Map<Integer, String> errors) {
+        int[] rows = new int[size];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            Map<String, Object> data = records.get(from + row);
+            if (data == null || data.isEmpty()) {
+                errors.put(from + row, "Data for evaluation cannot be null or empty");
+            } else {
+                rows[count++] = row;
+            }
+        }
+        int matches = 0;
+        for (int row : select(rule.getCondition(), trim(rows, count))) {
+            if (!deferred[row]) {
+                results[from + row] = true;
+                matches++;
+            }
+        }
+        if (anyDeferred) {
+            for (int row = 0; row < size; row++) {
+                if (deferred[row]) {
+                    try {
+                        results[from + row] = rule.getCondition().test(view(row));
+                        matches += results[from + row] ? 1 : 0;
+                    } catch (Exception e) {
+                        errors.put(from + row, e.getMessage());
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    // The selected rows the condition holds for, ascending; rows deferred here are not included
+    private int[] select(Condition condition, int[] rows) {
+        if (rows.length == 0) {
+            return rows;
+        }
+        if (condition instanceof Conditions.And) {
+            for (Condition child : ((Conditions.And) condition).getEvaluationOrder()) {
+                rows = select(child, rows);
+                if (rows.length == 0) {
+                    break;
+                }
+            }
+            return rows;
+        }
+        if (condition instanceof Conditions.Or) {
+            int[] matched = NO_ROWS;
+            int[] remaining = rows;
+            for (Condition child : ((Conditions.Or) condition).getEvaluationOrder()) {
+                int[] childMatched = select(child, remaining);
+                matched = union(matched, childMatched);
+                remaining = difference(remaining, childMatched);
+                if (remaining.length == 0) {
+                    break;
+                }
+            }
+            return matched;
+        }
+        if (condition instanceof Conditions.Not) {
+            return difference(rows, select(((Conditions.Not) condition).getChild(), rows));
+        }
+        if (condition instanceof Conditions.Constant) {
+            return ((Conditions.Constant) condition).getValue() ? rows : NO_ROWS;
+        }
+        Operand left = condition instanceof Conditions.Comparison ? ((Conditions.Comparison) condition).getLeft() : null;
+        if (left instanceof Operand.Reference) {
+            Column column = column(((Operand.Reference) left).getName());
+            boolean numeric = !(condition instanceof Conditions.StringEquals);
+            int missing = column.load(rows, numeric);
+            // If no row has the attribute, the name most likely refers to a function
+            if (missing < rows.length) {
+                if (condition instanceof Conditions.GreaterThan) {
+                    return greaterThan(column, ((Conditions.GreaterThan) condition).getConstant(), rows);
+                }
+                if (condition instanceof Conditions.LessThan) {
+                    return lessThan(column, ((Conditions.LessThan) condition).getConstant(), rows);
+                }
+                if (condition instanceof Conditions.NumberEquals) {
+                    Conditions.NumberEquals equals = (Conditions.NumberEquals) condition;
+                    return numberEquals(column, equals.getConstant(), equals.isNegated(), rows, missing > 0);
+                }
+                if (condition instanceof Conditions.StringEquals) {
+                    Conditions.StringEquals equals = (Conditions.StringEquals) condition;
+                    return stringEquals(column, equals.getConstant(), equals.isNegated(), rows, missing > 0);
+                }
+            }
+        }
+        return test(condition, rows);
+    }
+
+    private int[] greaterThan(Column column, double constant, int[] rows) {
+        double[] numbers = column.numbers;
+        int[] selected = new int[rows.length];
+        int count = 0;
+        boolean nan = false;
+        // Branch-free compaction: every row is written, the count only advances on a match
+        for (int row : rows) {
+            double value = numbers[row];
+            selected[count] = row;
+            count += value > constant ? 1 : 0;
+            nan |= value != value;
+        }
+        if (nan) {
+            deferNaN(numbers, rows);
+        }
+        return trim(selected, count);
+    }
+
+    private int[] lessThan(Column column, double constant, int[] rows) {
+        double[] numbers = column.numbers;
+        int[] selected = new int[rows.length];
+        int count = 0;
+        boolean nan = false;
+        for (int row : rows) {
+            double value = numbers[row];
+            selected[count] = row;
+            count += value < constant ? 1 : 0;
+            nan |= value != value;
+        }
+        if (nan) {
+            deferNaN(numbers, rows);
+        }
+        return trim(selected, count);
+    }
+
+    // An ordering comparison fails a record whose value is missing or not numeric
+    private void deferNaN(double[] numbers, int[] rows) {
+        for (int row : rows) {
+            if (Double.isNaN(numbers[row])) {
+                defer(row);
+            }
+        }
+    }
+
+    private int[] numberEquals(Column column, double constant, boolean negated, int[] rows, boolean anyMissing) {
+        double[] numbers = column.numbers;
+        int[] selected = new int[rows.length];
+        int count = 0;
+        for (int row : rows) {
+            selected[count] = row;
+            count += (numbers[row] == constant) != negated ? 1 : 0;
+        }
+        return anyMissing ? withoutMissing(column.values, rows, selected, count) : trim(selected, count);
+    }
+
+    private int[] stringEquals(Column column, String constant, boolean negated, int[] rows, boolean anyMissing) {
+        Object[] values = column.values;
+        int[] selected = new int[rows.length];
+        int count = 0;
+        for (int row : rows) {
+            Object value = values[row];
+            boolean equal = value instanceof String ? constant.equals(value) : constant.equals(String.valueOf(value));
+            selected[count] = row;
+            count += equal != negated ? 1 : 0;
+        }
+        return anyMissing ? withoutMissing(column.values, rows, selected, count) : trim(selected, count);
+    }
+
+    // A missing attribute may resolve to a function, so those rows go record by record
+    private int[] withoutMissing(Object[] values, int[] rows, int[] selected, int count) {
+        for (int row : rows) {
+            if (values[row] == null) {
+                defer(row);
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (values[selected[i]] != null) {
+                selected[kept++] = selected[i];
+            }
+        }
+        return trim(selected, kept);
+    }
+
+    // Conditions without a column form, tested against each selected record
+    private int[] test(Condition condition, int[] rows) {
+        int[] selected = new int[rows.length];
+        int count = 0;
+        for (int row : rows) {
+            try {
+                if (condition.test(view(row))) {
+                    selected[count++] = row;
+                }
+            } catch (RuntimeException e) {
+                defer(row);
+            }
+        }
+        return trim(selected, count);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> view(int row) {
+        if (views == null) {
+            views = new Object[size];
+        }
+        if (views[row] == null) {
+            views[row] = rule.view(records.get(from + row));
+        }
+        return (Map<String, Object>) views[row];
+    }
+
+    private void defer(int row) {
+        deferred[row] = true;
+        anyDeferred = true;
+    }
+
+    private Column column(String name) {
+        Column column = columns.get(name);
+        if (column == null) {
+            column = new Column(name);
+            columns.put(name, column);
+        }
+        return column;
+    }
+
+    private static int[] trim(int[] rows, int count) {
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    // Both inputs ascending and the result ascending
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        int[] merged = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                merged[count++] = a[i++];
+            } else if (a[i] > b[j]) {
+                merged[count++] = b[j++];
+            } else {
+                merged[count++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            merged[count++] = a[i++];
+        }
+        while (j < b.length) {
+            merged[count++] = b[j++];
+        }
+        return trim(merged, count);
+    }
+
+    // Rows of a not in b and not deferred
+    private int[] difference(int[] a, int[] b) {
+        int[] remaining = new int[a.length];
+        int j = 0;
+        int count = 0;
+        for (int row : a) {
+            while (j < b.length && b[j] < row) {
+                j++;
+            }
+            if ((j == b.length || b[j] != row) && !deferred[row]) {
+                remaining[count++] = row;
+            }
+        }
+        return trim(remaining, count);
+    }
+
+    // Values of one attribute across the batch, with their numeric form (NaN if missing or not numeric)
+    private final class Column {
+        private static final byte UNREAD = 0;
+        private static final byte READ = 1;
+        private static final byte PARSED = 2;
+
+        private final String name;
+        private final Object[] values = new Object[size];
+        private final double[] numbers = new double[size];
+        private final byte[] state = new byte[size];
+
+        private Column(String name) {
+            this.name = name;
+        }
+
+        // Reads the given rows not read yet, parsing them if numeric; returns how many lack the attribute
+        private int load(int[] rows, boolean numeric) {
+            byte wanted = numeric ? PARSED : READ;
+            int missing = 0;
+            for (int row : rows) {
+                if (state[row] < wanted) {
+                    if (state[row] == UNREAD) {
+                        values[row] = records.get(from + row).get(name);
+                    }
+                    if (numeric) {
+                        numbers[row] = Operand.toNumberOrNaN(values[row]);
+                    }
+                    state[row] = wanted;
+                }
+                if (values[row] == null) {
+                    missing++;
+                }
+            }
+            return missing;
+        }
+    }
+}
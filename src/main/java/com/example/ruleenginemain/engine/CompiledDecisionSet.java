@@ -0,0 +1,76 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Attribute;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A decision set compiled as a unit: the member rules' conditions are hash-consed into one
+ * {@link ConditionNetwork}, so a condition shared by several rules - a common prefix such as
+ * {@code country = 'DE' AND ...} - is evaluated at most once per fact.
+ * <p>
+ * In first-match mode the network has no predicate index, so conditions are only evaluated
+ * as the rules are tried in priority order and nothing past the winning rule is touched. In
+ * all-match mode every rule is visited anyway, and indexed comparisons are resolved in bulk
+ * from the fact's values. As in {@link RuleIndex}, a comparison that cannot be evaluated
+ * against the fact counts as false.
+ */
+public final class CompiledDecisionSet {
+
+    private final Long decisionSetId;
+    private final boolean firstMatch;
+    private final ConditionNetwork network;
+    private final Long[] ruleIds;
+    private final ConditionNetwork.NetworkNode[] roots;
+
+    // rules: the member rules in the order they are to be tried
+    public CompiledDecisionSet(Long decisionSetId, boolean firstMatch, List<CompiledRule> rules,
+                               Function<String, Attribute.AttributeType> attributeTypes) {
+        this.decisionSetId = decisionSetId;
+        this.firstMatch = firstMatch;
+        this.network = new ConditionNetwork(firstMatch ? name -> null : attributeTypes);
+        this.ruleIds = new Long[rules.size()];
+        this.roots = new ConditionNetwork.NetworkNode[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            ruleIds[i] = rules.get(i).getRuleId();
+            roots[i] = network.acquire(rules.get(i).getCondition());
+        }
+    }
+
+    public Long getDecisionSetId() {
+        return decisionSetId;
+    }
+
+    // Number of distinct conditions across all member rules
+    public int distinctConditions() {
+        return network.size();
+    }
+
+    // Ids of the rules the fact satisfies, in the order they were tried
+    public List<Long> evaluate(Map<String, Object> data) {
+        ConditionNetwork.Memo memo = network.begin(data, new ArrayList<>(0));
+        try {
+            if (firstMatch) {
+                for (int i = 0; i < roots.length; i++) {
+                    if (roots[i].evaluate(memo)) {
+                        return Collections.singletonList(ruleIds[i]);
+                    }
+                }
+                return Collections.emptyList();
+            }
+            List<Long> matched = new ArrayList<>();
+            for (int i = 0; i < roots.length; i++) {
+                if (roots[i].evaluate(memo)) {
+                    matched.add(ruleIds[i]);
+                }
+            }
+            return matched;
+        } finally {
+            network.end(memo);
+        }
+    }
+}
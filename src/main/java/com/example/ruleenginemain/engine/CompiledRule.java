@@ -0,0 +1,70 @@
+package com.example.ruleenginemain.engine;
+
+import java.util.Map;
+
+/**
+ * Immutable, ready-to-evaluate form of one version of a persisted rule. Edits never change a
+ * compiled rule; they compile the new tree and publish it in place of the old one, so an
+ * evaluation always sees one whole version.
+ */
+public final class CompiledRule {
+
+    private final Long ruleId;
+    private final long version;
+    private final Condition condition;
+    private final FactSchema schema;
+    private final int slotCount;
+
+    public CompiledRule(Long ruleId, Condition condition) {
+        this(ruleId, 0, condition, null, 0);
+    }
+
+    // Records are viewed through the schema if given; slotCount is one more than the highest slot the condition reads
+    public CompiledRule(Long ruleId, long version, Condition condition, FactSchema schema, int slotCount) {
+        this.ruleId = ruleId;
+        this.version = version;
+        this.condition = condition;
+        this.schema = schema;
+        this.slotCount = slotCount;
+    }
+
+    public Long getRuleId() {
+        return ruleId;
+    }
+
+    // Version of the rule this was compiled from
+    public long getVersion() {
+        return version;
+    }
+
+    public Condition getCondition() {
+        return condition;
+    }
+
+    // True if the condition was simplified to a constant, i.e. the rule always or never matches
+    public boolean isConstant() {
+        return condition instanceof Conditions.Constant;
+    }
+
+    public boolean evaluate(Map<String, Object> data) {
+        return condition.test(view(data));
+    }
+
+    // The record as the condition reads it
+    Map<String, Object> view(Map<String, Object> data) {
+        return schema == null ? data : schema.view(data, slotCount);
+    }
+
+    /**
+     * Evaluates through the given profile, recording per-node statistics. The result, and
+     * any exception a condition throws, are the ones {@link #evaluate(Map)} gives.
+     */
+    public boolean evaluate(Map<String, Object> data, RuleProfile profile) {
+        return profile.evaluate(view(data));
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledRule{" + ruleId + " v" + version + ": " + condition + "}";
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.ruleenginemain.engine;
+
+import java.util.Map;
+
+/**
+ * A compiled, immutable boolean expression over a fact. Implementations are produced by
+ * {@link RuleCompiler} and are safe to share between threads.
+ */
+public interface Condition {
+
+    boolean test(Map<String, Object> data);
+}
@@ -0,0 +1,477 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Attribute;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Discrimination network shared by all indexed rules. Structurally identical condition
+ * subtrees are hash-consed into a single {@link NetworkNode}, so a comparison such as
+ * {@code age > 30} that appears in many rules - or a whole rule re-embedded by
+ * {@code combineRules} - is evaluated at most once per fact, and the result of every
+ * AND/OR join is shared by all rules containing it.
+ * <p>
+ * Leaf comparisons on catalogued attributes are also registered in a {@link PredicateIndex},
+ * which resolves all of an attribute's leaves from the fact value in logarithmic time.
+ * Rules that are a conjunction of such leaves are matched by counting satisfied leaves
+ * rather than by walking their trees.
+ * <p>
+ * Nodes are reference counted: rules are added and removed incrementally, and a node is
+ * dropped when the last rule using it goes away. Node ids and conjunction slots are reused,
+ * so memos stay sized to the live rules rather than to the edit history, but only once every
+ * match that could still reach the dropped node has ended.
+ */
+public class ConditionNetwork {
+
+    private static final NetworkNode[] NO_CHILDREN = new NetworkNode[0];
+    private static final Conjunction[] NO_CONJUNCTIONS = new Conjunction[0];
+
+    // guarded by this
+    private final Map<Condition, NetworkNode> nodes = new HashMap<>();
+    private final PredicateIndex predicates;
+    private final Ids nodeIds = new Ids();
+    private final Ids conjunctionSlots = new Ids();
+    // Advanced whenever freed ids are retired; each match records the epoch it began in
+    private volatile long epoch;
+    private final Set<Memo> active = ConcurrentHashMap.newKeySet();
+    // Conjunctions added while indexing is deferred, appended to their leaves on flush
+    private Map<NetworkNode, List<Conjunction>> pendingConjunctions;
+
+    // Memos of ended matches, reused by later ones whatever thread they run on. A thread-local
+    // would allocate a fresh memo for every request when requests run on virtual threads.
+    private final Queue<Memo> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final int maxIdle = 2 * Runtime.getRuntime().availableProcessors();
+
+    public ConditionNetwork(Function<String, Attribute.AttributeType> attributeTypes) {
+        this.predicates = new PredicateIndex(attributeTypes);
+    }
+
+    public synchronized NetworkNode acquire(Condition condition) {
+        NetworkNode node = nodes.get(condition);
+        if (node == null) {
+            NetworkNode[] children = NO_CHILDREN;
+            if (condition instanceof Conditions.And || condition instanceof Conditions.Or) {
+                Condition[] childConditions = condition instanceof Conditions.And
+                        ? ((Conditions.And) condition).getChildren()
+                        : ((Conditions.Or) condition).getChildren();
+                children = new NetworkNode[childConditions.length];
+                for (int i = 0; i < childConditions.length; i++) {
+                    children[i] = acquire(childConditions[i]);
+                }
+            } else if (condition instanceof Conditions.Not) {
+                children = new NetworkNode[]{acquire(((Conditions.Not) condition).getChild())};
+            }
+            String indexedAttribute = predicates.indexableAttribute(condition);
+            int attributeSlot = indexedAttribute == null ? -1 : predicates.slot(indexedAttribute);
+            node = new NetworkNode(nodeIds.allocate(this::oldestActiveEpoch), condition, children, indexedAttribute, attributeSlot);
+            nodes.put(condition, node);
+            if (indexedAttribute != null) {
+                predicates.add(indexedAttribute, node);
+            }
+        }
+        node.refCount++;
+        return node;
+    }
+
+    // The caller must have made the node unreachable from anything a new match starts from
+    public synchronized void release(NetworkNode node) {
+        releaseNode(node);
+        if (pendingConjunctions == null) {
+            retireFreedIds();
+        }
+    }
+
+    private void releaseNode(NetworkNode node) {
+        if (--node.refCount > 0) {
+            return;
+        }
+        nodes.remove(node.condition);
+        nodeIds.free(node.id);
+        if (node.indexedAttribute != null) {
+            predicates.remove(node.indexedAttribute, node);
+        }
+        for (NetworkNode child : node.children) {
+            releaseNode(child);
+        }
+    }
+
+    /**
+     * Registers a rule for match counting if its root is an indexed leaf or an AND of indexed
+     * leaves. Returns null if the rule has to be evaluated through its tree instead.
+     */
+    public synchronized Conjunction addConjunction(NetworkNode root, Long ruleId, Set<String> tags) {
+        NetworkNode[] leaves;
+        if (root.attributeSlot >= 0) {
+            leaves = new NetworkNode[]{root};
+        } else if (root.and) {
+            Set<NetworkNode> distinct = new LinkedHashSet<>(Arrays.asList(root.children));
+            for (NetworkNode leaf : distinct) {
+                if (leaf.attributeSlot < 0) {
+                    return null;
+                }
+            }
+            leaves = distinct.toArray(NO_CHILDREN);
+        } else {
+            return null;
+        }
+        Conjunction conjunction = new Conjunction(ruleId, tags, conjunctionSlots.allocate(this::oldestActiveEpoch), leaves);
+        for (NetworkNode leaf : leaves) {
+            if (pendingConjunctions != null) {
+                pendingConjunctions.computeIfAbsent(leaf, k -> new ArrayList<>()).add(conjunction);
+                continue;
+            }
+            Conjunction[] updated = Arrays.copyOf(leaf.conjunctions, leaf.conjunctions.length + 1);
+            updated[updated.length - 1] = conjunction;
+            leaf.conjunctions = updated;
+        }
+        return conjunction;
+    }
+
+    public synchronized void removeConjunction(Conjunction conjunction) {
+        for (NetworkNode leaf : conjunction.leaves) {
+            if (pendingConjunctions != null) {
+                List<Conjunction> pending = pendingConjunctions.get(leaf);
+                if (pending != null && pending.remove(conjunction)) {
+                    continue;
+                }
+            }
+            List<Conjunction> remaining = new ArrayList<>(Arrays.asList(leaf.conjunctions));
+            remaining.remove(conjunction);
+            leaf.conjunctions = remaining.toArray(NO_CONJUNCTIONS);
+        }
+        conjunctionSlots.free(conjunction.slot);
+        if (pendingConjunctions == null) {
+            retireFreedIds();
+        }
+    }
+
+    /**
+     * Defers index maintenance until {@link #flushIndexing()}, so adding many rules rebuilds
+     * each attribute index and extends each leaf's conjunctions once rather than per rule.
+     * Rules added in between are not matched by counting until the flush.
+     */
+    public synchronized void deferIndexing() {
+        predicates.defer();
+        if (pendingConjunctions == null) {
+            pendingConjunctions = new HashMap<>();
+        }
+    }
+
+    public synchronized void flushIndexing() {
+        if (pendingConjunctions != null) {
+            for (Map.Entry<NetworkNode, List<Conjunction>> entry : pendingConjunctions.entrySet()) {
+                NetworkNode leaf = entry.getKey();
+                List<Conjunction> added = entry.getValue();
+                Conjunction[] updated = Arrays.copyOf(leaf.conjunctions, leaf.conjunctions.length + added.size());
+                for (int i = 0; i < added.size(); i++) {
+                    updated[leaf.conjunctions.length + i] = added.get(i);
+                }
+                leaf.conjunctions = updated;
+            }
+            pendingConjunctions = null;
+        }
+        predicates.flush();
+        retireFreedIds();
+    }
+
+    // Called once freed nodes are unreachable: matches beginning from now on cannot see them
+    private void retireFreedIds() {
+        if (nodeIds.retire(epoch) | conjunctionSlots.retire(epoch)) {
+            epoch++;
+        }
+    }
+
+    private long oldestActiveEpoch() {
+        long oldest = Long.MAX_VALUE;
+        for (Memo memo : active) {
+            oldest = Math.min(oldest, memo.epoch);
+        }
+        return oldest;
+    }
+
+    // One past the highest node id in use or awaiting reuse; the size every memo grows to
+    int nodeCapacity() {
+        return nodeIds.capacity();
+    }
+
+    // Number of distinct conditions currently held by the network
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Starts evaluating a new fact with a memo taken from the pool: resolves every indexed leaf on the
+     * fact's attributes and returns the counted conjunctions it completes. Results cached by
+     * a previous fact are discarded, without clearing or reallocating the memo. Every call
+     * must be followed by {@link #end(Memo)} once the match is done, which returns the memo.
+     */
+    public Memo begin(Map<String, Object> data, List<Conjunction> completed) {
+        Memo memo = take();
+        // Registered before reading the epoch, so no id this match may still reach is reused meanwhile
+        memo.epoch = -1;
+        active.add(memo);
+        memo.epoch = epoch;
+        memo.reset(data, nodeIds.capacity(), predicates.slotCount(), conjunctionSlots.capacity());
+        if (!predicates.isEmpty()) {
+            for (Map.Entry<String, Object> field : data.entrySet()) {
+                PredicateIndex.AttributeIndex index = predicates.get(field.getKey());
+                if (index == null || field.getValue() == null) {
+                    continue;
+                }
+                memo.markResolved(index.slot());
+                index.forEachSatisfied(field.getValue(), leaf -> {
+                    memo.store(leaf.id, true);
+                    for (Conjunction conjunction : leaf.conjunctions) {
+                        if (memo.count(conjunction.slot) == conjunction.leaves.length) {
+                            completed.add(conjunction);
+                        }
+                    }
+                });
+            }
+        }
+        return memo;
+    }
+
+    private Memo take() {
+        Memo memo = idle.poll();
+        if (memo == null) {
+            return new Memo();
+        }
+        idleCount.decrementAndGet();
+        return memo;
+    }
+
+    public void end(Memo memo) {
+        memo.data = null;
+        active.remove(memo);
+        // Beyond the cap the memo is left to the collector, so a burst of requests is not kept
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(memo);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    // Memos waiting to be reused
+    int idleMemos() {
+        return idleCount.get();
+    }
+
+    public static final class NetworkNode {
+        private final int id;
+        private final Condition condition;
+        private final NetworkNode[] children;
+        private final boolean and;
+        private final boolean or;
+        private final boolean not;
+        private final String indexedAttribute;
+        private final int attributeSlot;
+        private volatile Conjunction[] conjunctions = NO_CONJUNCTIONS;
+        private int refCount; // guarded by the owning network
+
+        private NetworkNode(int id, Condition condition, NetworkNode[] children, String indexedAttribute, int attributeSlot) {
+            this.id = id;
+            this.condition = condition;
+            this.children = children;
+            this.and = condition instanceof Conditions.And;
+            this.or = condition instanceof Conditions.Or;
+            this.not = condition instanceof Conditions.Not;
+            this.indexedAttribute = indexedAttribute;
+            this.attributeSlot = attributeSlot;
+        }
+
+        public Condition getCondition() {
+            return condition;
+        }
+
+        public boolean evaluate(Memo memo) {
+            if (memo.isStored(id)) {
+                return memo.values[id];
+            }
+            // The predicate index already reported every satisfied leaf of a resolved attribute
+            if (attributeSlot >= 0 && memo.isResolved(attributeSlot)) {
+                return false;
+            }
+            boolean result;
+            if (and) {
+                result = true;
+                for (NetworkNode child : children) {
+                    if (!child.evaluate(memo)) {
+                        result = false;
+                        break;
+                    }
+                }
+            } else if (or) {
+                result = false;
+                for (NetworkNode child : children) {
+                    if (child.evaluate(memo)) {
+                        result = true;
+                        break;
+                    }
+                }
+            } else if (not) {
+                result = !children[0].evaluate(memo);
+            } else {
+                result = memo.test(condition);
+            }
+            memo.store(id, result);
+            return result;
+        }
+    }
+
+    /**
+     * A rule matched by counting: it holds once all of its indexed leaves are satisfied.
+     */
+    public static final class Conjunction {
+        private final Long ruleId;
+        private final Set<String> tags;
+        private final int slot;
+        private final NetworkNode[] leaves;
+
+        private Conjunction(Long ruleId, Set<String> tags, int slot, NetworkNode[] leaves) {
+            this.ruleId = ruleId;
+            this.tags = tags;
+            this.slot = slot;
+            this.leaves = leaves;
+        }
+
+        public Long getRuleId() {
+            return ruleId;
+        }
+
+        public Set<String> getTags() {
+            return tags;
+        }
+    }
+
+    /**
+     * Results for the fact being matched, owned by one match at a time. An entry is valid only if its stamp
+     * equals the current generation, which makes starting a new fact O(1).
+     */
+    public static final class Memo {
+        private int[] stamps = new int[0];
+        private boolean[] values = new boolean[0];
+        private int[] resolvedStamps = new int[0];
+        private int[] countStamps = new int[0];
+        private int[] counts = new int[0];
+        private int generation;
+        private volatile long epoch;
+        private Map<String, Object> data;
+
+        private void reset(Map<String, Object> data, int nodeCapacity, int attributeCapacity, int conjunctionCapacity) {
+            this.data = data;
+            if (stamps.length < nodeCapacity) {
+                int size = Math.max(nodeCapacity, stamps.length * 2);
+                stamps = Arrays.copyOf(stamps, size);
+                values = Arrays.copyOf(values, size);
+            }
+            if (resolvedStamps.length < attributeCapacity) {
+                resolvedStamps = Arrays.copyOf(resolvedStamps, Math.max(attributeCapacity, resolvedStamps.length * 2));
+            }
+            if (countStamps.length < conjunctionCapacity) {
+                int size = Math.max(conjunctionCapacity, countStamps.length * 2);
+                countStamps = Arrays.copyOf(countStamps, size);
+                counts = Arrays.copyOf(counts, size);
+            }
+            if (++generation == 0) {
+                Arrays.fill(stamps, 0);
+                Arrays.fill(resolvedStamps, 0);
+                Arrays.fill(countStamps, 0);
+                generation = 1;
+            }
+        }
+
+        private boolean isStored(int id) {
+            return id < stamps.length && stamps[id] == generation;
+        }
+
+        private void store(int id, boolean value) {
+            // Nodes added after this fact started are evaluated but not memoised
+            if (id < stamps.length) {
+                stamps[id] = generation;
+                values[id] = value;
+            }
+        }
+
+        private void markResolved(int attributeSlot) {
+            if (attributeSlot < resolvedStamps.length) {
+                resolvedStamps[attributeSlot] = generation;
+            }
+        }
+
+        private boolean isResolved(int attributeSlot) {
+            return attributeSlot < resolvedStamps.length && resolvedStamps[attributeSlot] == generation;
+        }
+
+        // Increments and returns the number of satisfied leaves of a conjunction
+        private int count(int slot) {
+            if (slot >= counts.length) {
+                return -1;
+            }
+            if (countStamps[slot] != generation) {
+                countStamps[slot] = generation;
+                counts[slot] = 0;
+            }
+            return ++counts[slot];
+        }
+
+        // A leaf that cannot be evaluated against the fact, e.g. a missing attribute, is false
+        private boolean test(Condition condition) {
+            try {
+                return condition.test(data);
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Dense ids for nodes or conjunction slots. Freed ids wait until they are retired with
+     * the current epoch, and are handed out again only once no match older than that epoch
+     * is running. Guarded by the owning network.
+     */
+    private static final class Ids {
+        private volatile int next;
+        private final List<Integer> freed = new ArrayList<>();
+        // {epoch, id} in retirement order
+        private final ArrayDeque<long[]> retired = new ArrayDeque<>();
+        private final ArrayDeque<Integer> free = new ArrayDeque<>();
+
+        private int allocate(LongSupplier oldestActiveEpoch) {
+            if (free.isEmpty() && !retired.isEmpty()) {
+                long oldest = oldestActiveEpoch.getAsLong();
+                while (!retired.isEmpty() && retired.peekFirst()[0] < oldest) {
+                    free.push((int) retired.pollFirst()[1]);
+                }
+            }
+            return free.isEmpty() ? next++ : free.pop();
+        }
+
+        private void free(int id) {
+            freed.add(id);
+        }
+
+        // Returns whether any ids were retired
+        private boolean retire(long epoch) {
+            if (freed.isEmpty()) {
+                return false;
+            }
+            for (int id : freed) {
+                retired.addLast(new long[]{epoch, id});
+            }
+            freed.clear();
+            return true;
+        }
+
+        // Upper bound of the ids handed out so far
+        private int capacity() {
+            return next;
+        }
+    }
+}
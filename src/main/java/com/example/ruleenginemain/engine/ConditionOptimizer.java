@@ -0,0 +1,229 @@
+package com.example.ruleenginemain.engine;
+
+import java.util.*;
+
+/**
+ * Simplifies a compiled condition tree before it is evaluated:
+ * <ul>
+ *   <li>comparisons between two literals, e.g. {@code 5 > 3}, are folded to a constant;</li>
+ *   <li>constants are propagated through AND, OR and NOT, and chains of the same junction
+ *       exposed by folding are flattened again, with duplicates removed;</li>
+ *   <li>numeric bounds on the same operand are merged: {@code age > 30 AND age > 20} keeps
+ *       only {@code age > 30}, {@code age > 30 OR age > 20} only {@code age > 20}, and
+ *       contradictory bounds such as {@code age > 50 AND age < 10} make the AND false;</li>
+ *   <li>{@code NOT NOT x} becomes {@code x}, and a negated equality flips its operator.</li>
+ * </ul>
+ * A rule that reduces to {@link Conditions#TRUE} or {@link Conditions#FALSE} is constant.
+ * Operands are assumed to be free of side effects, as for reordering; a rewritten rule gives
+ * the same result for every record the original could evaluate, but may no longer fail on
+ * an operand that is no longer read.
+ */
+final class ConditionOptimizer {
+
+    private ConditionOptimizer() {
+    }
+
+    static Condition optimize(Condition condition) {
+        if (condition instanceof Conditions.And) {
+            return junction(((Conditions.And) condition).getChildren(), true);
+        }
+        if (condition instanceof Conditions.Or) {
+            return junction(((Conditions.Or) condition).getChildren(), false);
+        }
+        if (condition instanceof Conditions.Not) {
+            return negate(optimize(((Conditions.Not) condition).getChild()));
+        }
+        if (condition instanceof Conditions.Comparison) {
+            return fold((Conditions.Comparison) condition);
+        }
+        return condition;
+    }
+
+    private static Condition junction(Condition[] children, boolean and) {
+        Set<Condition> operands = new LinkedHashSet<>();
+        for (Condition child : children) {
+            Condition optimized = optimize(child);
+            if (optimized instanceof Conditions.Constant) {
+                if (((Conditions.Constant) optimized).getValue() != and) {
+                    return optimized; // FALSE decides an AND, TRUE decides an OR
+                }
+            } else if (and && optimized instanceof Conditions.And) {
+                operands.addAll(Arrays.asList(((Conditions.And) optimized).getChildren()));
+            } else if (!and && optimized instanceof Conditions.Or) {
+                operands.addAll(Arrays.asList(((Conditions.Or) optimized).getChildren()));
+            } else {
+                operands.add(optimized);
+            }
+        }
+        if (and ? !mergeConjunctionBounds(operands) : mergeDisjunctionBounds(operands)) {
+            return and ? Conditions.FALSE : Conditions.TRUE;
+        }
+        if (operands.isEmpty()) {
+            return and ? Conditions.TRUE : Conditions.FALSE;
+        }
+        if (operands.size() == 1) {
+            return operands.iterator().next();
+        }
+        Condition[] result = operands.toArray(new Condition[0]);
+        return and ? new Conditions.And(result) : new Conditions.Or(result);
+    }
+
+    /**
+     * Keeps the tightest lower and upper bound per operand and drops bounds implied by an
+     * equality. Returns false if the bounds on some operand cannot all hold.
+     */
+    private static boolean mergeConjunctionBounds(Set<Condition> operands) {
+        Map<Operand, Bounds> byOperand = collectBounds(operands);
+        for (Bounds bounds : byOperand.values()) {
+            if (bounds.size < 2) {
+                continue;
+            }
+            Conditions.GreaterThan lower = null;
+            for (Conditions.GreaterThan candidate : bounds.lower) {
+                if (lower == null || candidate.getConstant() > lower.getConstant()) {
+                    lower = candidate;
+                }
+            }
+            Conditions.LessThan upper = null;
+            for (Conditions.LessThan candidate : bounds.upper) {
+                if (upper == null || candidate.getConstant() < upper.getConstant()) {
+                    upper = candidate;
+                }
+            }
+            if (lower != null && upper != null && lower.getConstant() >= upper.getConstant()) {
+                return false;
+            }
+            Conditions.NumberEquals equal = null;
+            for (Conditions.NumberEquals candidate : bounds.equal) {
+                if (equal != null && candidate.getConstant() != equal.getConstant()) {
+                    return false;
+                }
+                equal = candidate;
+            }
+            if (equal != null) {
+                if ((lower != null && !(equal.getConstant() > lower.getConstant()))
+                        || (upper != null && !(equal.getConstant() < upper.getConstant()))) {
+                    return false;
+                }
+                lower = null;
+                upper = null;
+            }
+            operands.removeAll(bounds.lower);
+            operands.removeAll(bounds.upper);
+            addIfPresent(operands, lower);
+            addIfPresent(operands, upper);
+        }
+        return true;
+    }
+
+    /**
+     * Keeps the loosest lower and upper bound per operand and drops equalities they already
+     * cover. Never proves an OR true, since bounds fail on non-numeric values.
+     */
+    private static boolean mergeDisjunctionBounds(Set<Condition> operands) {
+        Map<Operand, Bounds> byOperand = collectBounds(operands);
+        for (Bounds bounds : byOperand.values()) {
+            if (bounds.size < 2) {
+                continue;
+            }
+            Conditions.GreaterThan lower = null;
+            for (Conditions.GreaterThan candidate : bounds.lower) {
+                if (lower == null || candidate.getConstant() < lower.getConstant()) {
+                    lower = candidate;
+                }
+            }
+            Conditions.LessThan upper = null;
+            for (Conditions.LessThan candidate : bounds.upper) {
+                if (upper == null || candidate.getConstant() > upper.getConstant()) {
+                    upper = candidate;
+                }
+            }
+            for (Conditions.NumberEquals equal : bounds.equal) {
+                if ((lower != null && equal.getConstant() > lower.getConstant())
+                        || (upper != null && equal.getConstant() < upper.getConstant())) {
+                    operands.remove(equal);
+                }
+            }
+            operands.removeAll(bounds.lower);
+            operands.removeAll(bounds.upper);
+            addIfPresent(operands, lower);
+            addIfPresent(operands, upper);
+        }
+        return false;
+    }
+
+    // Bounds are re-added at the end of the set; evaluation order is adapted at runtime anyway
+    private static void addIfPresent(Set<Condition> operands, Condition bound) {
+        if (bound != null) {
+            operands.add(bound);
+        }
+    }
+
+    private static Map<Operand, Bounds> collectBounds(Set<Condition> operands) {
+        Map<Operand, Bounds> byOperand = new HashMap<>();
+        for (Condition operand : operands) {
+            if (operand instanceof Conditions.GreaterThan) {
+                Conditions.GreaterThan bound = (Conditions.GreaterThan) operand;
+                bounds(byOperand, bound.getLeft()).lower.add(bound);
+            } else if (operand instanceof Conditions.LessThan) {
+                Conditions.LessThan bound = (Conditions.LessThan) operand;
+                bounds(byOperand, bound.getLeft()).upper.add(bound);
+            } else if (operand instanceof Conditions.NumberEquals && !((Conditions.NumberEquals) operand).isNegated()) {
+                Conditions.NumberEquals bound = (Conditions.NumberEquals) operand;
+                bounds(byOperand, bound.getLeft()).equal.add(bound);
+            }
+        }
+        return byOperand;
+    }
+
+    private static Bounds bounds(Map<Operand, Bounds> byOperand, Operand operand) {
+        Bounds bounds = byOperand.computeIfAbsent(operand, o -> new Bounds());
+        bounds.size++;
+        return bounds;
+    }
+
+    private static Condition negate(Condition condition) {
+        if (condition instanceof Conditions.Constant) {
+            return ((Conditions.Constant) condition).getValue() ? Conditions.FALSE : Conditions.TRUE;
+        }
+        if (condition instanceof Conditions.Not) {
+            return ((Conditions.Not) condition).getChild();
+        }
+        if (condition instanceof Conditions.NumberEquals) {
+            Conditions.NumberEquals equals = (Conditions.NumberEquals) condition;
+            return new Conditions.NumberEquals(equals.getLeft(), equals.getConstant(), !equals.isNegated());
+        }
+        if (condition instanceof Conditions.StringEquals) {
+            Conditions.StringEquals equals = (Conditions.StringEquals) condition;
+            return new Conditions.StringEquals(equals.getLeft(), equals.getConstant(), !equals.isNegated());
+        }
+        if (condition instanceof Conditions.Equals) {
+            Conditions.Equals equals = (Conditions.Equals) condition;
+            return new Conditions.Equals(equals.getLeft(), equals.getRight(), !equals.isNegated());
+        }
+        return new Conditions.Not(condition);
+    }
+
+    // A comparison that reads no record data has the same outcome every time
+    private static Condition fold(Conditions.Comparison comparison) {
+        if (!comparison.getLeft().isLiteral()) {
+            return comparison;
+        }
+        if ((comparison instanceof Conditions.Compare && !((Conditions.Compare) comparison).getRight().isLiteral())
+                || (comparison instanceof Conditions.Equals && !((Conditions.Equals) comparison).getRight().isLiteral())) {
+            return comparison;
+        }
+        try {
+            return comparison.test(Collections.emptyMap()) ? Conditions.TRUE : Conditions.FALSE;
+        } catch (RuntimeException e) {
+            return comparison; // e.g. 'abc' > 3, left to fail when evaluated
+        }
+    }
+
+    private static final class Bounds {
+        private final List<Conditions.GreaterThan> lower = new ArrayList<>();
+        private final List<Conditions.LessThan> upper = new ArrayList<>();
+        private final List<Conditions.NumberEquals> equal = new ArrayList<>();
+        private int size;
+    }
+}
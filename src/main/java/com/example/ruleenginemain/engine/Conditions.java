@@ -0,0 +1,478 @@
+package com.example.ruleenginemain.engine;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The compiled condition node types. Comparisons are specialised on the shape of their
+ * operands when the rule is compiled, so evaluation never dispatches on operator strings.
+ * Conditions compare structurally, so identical subtrees from different rules are equal.
+ */
+public final class Conditions {
+
+    private Conditions() {
+    }
+
+    public static final Condition TRUE = new Constant(true);
+    public static final Condition FALSE = new Constant(false);
+
+    // A leaf comparison; the compiler keeps the subject (usually an attribute) on the left
+    public interface Comparison extends Condition {
+        Operand getLeft();
+    }
+
+    public static final class Constant implements Condition {
+        private final boolean value;
+
+        private Constant(boolean value) {
+            this.value = value;
+        }
+
+        public boolean getValue() {
+            return value;
+        }
+
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    public static final class And implements Condition {
+        private final Condition[] children;
+        private final int hash;
+        private final AdaptiveOrder order;
+
+        public And(Condition... children) {
+            this.children = children.clone();
+            this.hash = 31 * Arrays.hashCode(this.children) + 1;
+            this.order = new AdaptiveOrder(this.children, true);
+        }
+
+        // Children as written; equality and hashing depend only on these
+        public Condition[] getChildren() {
+            return children.clone();
+        }
+
+        // Children in the order currently used for evaluation
+        public Condition[] getEvaluationOrder() {
+            return order.current().clone();
+        }
+
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return order.test(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof And)) {
+                return false;
+            }
+            And other = (And) o;
+            return hash == other.hash && Arrays.equals(children, other.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return join(children, " AND ");
+        }
+    }
+
+    public static final class Or implements Condition {
+        private final Condition[] children;
+        private final int hash;
+        private final AdaptiveOrder order;
+
+        public Or(Condition... children) {
+            this.children = children.clone();
+            this.hash = 31 * Arrays.hashCode(this.children) + 2;
+            this.order = new AdaptiveOrder(this.children, false);
+        }
+
+        // Children as written; equality and hashing depend only on these
+        public Condition[] getChildren() {
+            return children.clone();
+        }
+
+        // Children in the order currently used for evaluation
+        public Condition[] getEvaluationOrder() {
+            return order.current().clone();
+        }
+
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return order.test(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Or)) {
+                return false;
+            }
+            Or other = (Or) o;
+            return hash == other.hash && Arrays.equals(children, other.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return join(children, " OR ");
+        }
+    }
+
+    public static final class Not implements Condition {
+        private final Condition child;
+
+        public Not(Condition child) {
+            this.child = child;
+        }
+
+        public Condition getChild() {
+            return child;
+        }
+
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return !child.test(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Not && child.equals(((Not) o).child);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * child.hashCode() + 3;
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + child;
+        }
+    }
+
+    // attribute > constant
+    public static final class GreaterThan implements Comparison {
+        private final Operand left;
+        private final double constant;
+
+        public GreaterThan(Operand left, double constant) {
+            this.left = left;
+            this.constant = constant;
+        }
+
+        @Override
+        public Operand getLeft() {
+            return left;
+        }
+
+        public double getConstant() {
+            return constant;
+        }
+
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return left.number(data) > constant;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GreaterThan)) {
+                return false;
+            }
+            GreaterThan other = (GreaterThan) o;
+            return left.equals(other.left) && Double.compare(constant, other.constant) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(GreaterThan.class, left, constant);
+        }
+
+        @Override
+        public String toString() {
+            return left + " > " + constant;
+        }
+    }
+
+    // attribute < constant
+    public static final class LessThan implements Comparison {
+        private final Operand left;
+        private final double constant;
+
+        public LessThan(Operand left, double constant) {
+            this.left = left;
+            this.constant = constant;
+        }
+
+        @Override
+        public Operand getLeft() {
+            return left;
+        }
+
+        public double getConstant() {
+            return constant;
+        }
+
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return left.number(data) < constant;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof LessThan)) {
+                return false;
+            }
+            LessThan other = (LessThan) o;
+            return left.equals(other.left) && Double.compare(constant, other.constant) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(LessThan.class, left, constant);
+        }
+
+        @Override
+        public String toString() {
+            return left + " < " + constant;
+        }
+    }
+
+    // attribute = constant / attribute != constant, for numeric constants
+    public static final class NumberEquals implements Comparison {
+        private final Operand left;
+        private final double constant;
+        private final boolean negated;
+
+        public NumberEquals(Operand left, double constant, boolean negated) {
+            this.left = left;
+            this.constant = constant;
+            this.negated = negated;
+        }
+
+        @Override
+        public Operand getLeft() {
+            return left;
+        }
+
+        public double getConstant() {
+            return constant;
+        }
+
+        public boolean isNegated() {
+            return negated;
+        }
+
+        @Override
+        public boolean test(Map<String, Object> data) {
+            return (left.numberOrNaN(data) == constant) != negated;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof NumberEquals)) {
+                return false;
+            }
+            NumberEquals other = (NumberEquals) o;
+            return left.equals(other.left) && Double.compare(constant, other.constant) == 0 && negated == other.negated;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(NumberEquals.class, left, constant, negated);
+        }
+
+        @Override
+        public String toString() {
+            return left + (negated ? " != " : " = ") + constant;
+        }
+    }
+
+    // attribute = 'text' / attribute != 'text'
+    public static final class StringEquals implements Comparison {
+        private final Operand left;
+        private final String constant;
+        private final boolean negated;
+
+        public StringEquals(Operand left, String constant, boolean negated) {
+            this.left = left;
+            this.constant = constant;
+            this.negated = negated;
+        }
+
+        @Override
+        public Operand getLeft() {
+            return left;
+        }
+
+        public String getConstant() {
+            return constant;
+        }
+
+        public boolean isNegated() {
+            return negated;
+        }
+
+        @Override
+        public boolean test(Map<String, Object> data) {
+            Object value = left.value(data);
+            boolean equal = value instanceof String ? constant.equals(value) : constant.equals(String.valueOf(value));
+            return equal != negated;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof StringEquals)) {
+                return false;
+            }
+            StringEquals other = (StringEquals) o;
+            return left.equals(other.left) && constant.equals(other.constant) && negated == other.negated;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(StringEquals.class, left, constant, negated);
+        }
+
+        @Override
+        public String toString() {
+            return left + (negated ? " != '" : " = '") + constant + "'";
+        }
+    }
+
+    // Numeric comparison where neither side is a literal, e.g. salary > bonus
+    public static final class Compare implements Comparison {
+        private final Operand left;
+        private final Operand right;
+        private final boolean greater;
+
+        public Compare(Operand left, Operand right, boolean greater) {
+            this.left = left;
+            this.right = right;
+            this.greater = greater;
+        }
+
+        @Override
+        public Operand getLeft() {
+            return left;
+        }
+
+        public Operand getRight() {
+            return right;
+        }
+
+        public boolean isGreater() {
+            return greater;
+        }
+
+        @Override
+        public boolean test(Map<String, Object> data) {
+            double l = left.number(data);
+            double r = right.number(data);
+            return greater ? l > r : l < r;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Compare)) {
+                return false;
+            }
+            Compare other = (Compare) o;
+            return left.equals(other.left) && right.equals(other.right) && greater == other.greater;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Compare.class, left, right, greater);
+        }
+
+        @Override
+        public String toString() {
+            return left + (greater ? " > " : " < ") + right;
+        }
+    }
+
+    // Equality where neither side is a literal: numeric if both sides are numbers, textual otherwise
+    public static final class Equals implements Comparison {
+        private final Operand left;
+        private final Operand right;
+        private final boolean negated;
+
+        public Equals(Operand left, Operand right, boolean negated) {
+            this.left = left;
+            this.right = right;
+            this.negated = negated;
+        }
+
+        @Override
+        public Operand getLeft() {
+            return left;
+        }
+
+        public Operand getRight() {
+            return right;
+        }
+
+        public boolean isNegated() {
+            return negated;
+        }
+
+        @Override
+        public boolean test(Map<String, Object> data) {
+            Object l = left.value(data);
+            Object r = right.value(data);
+            double ln = Operand.toNumberOrNaN(l);
+            double rn = Operand.toNumberOrNaN(r);
+            boolean equal = !Double.isNaN(ln) && !Double.isNaN(rn) ? ln == rn : String.valueOf(l).equals(String.valueOf(r));
+            return equal != negated;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Equals)) {
+                return false;
+            }
+            Equals other = (Equals) o;
+            return left.equals(other.left) && right.equals(other.right) && negated == other.negated;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Equals.class, left, right, negated);
+        }
+
+        @Override
+        public String toString() {
+            return left + (negated ? " != " : " = ") + right;
+        }
+    }
+
+    private static String join(Condition[] children, String separator) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < children.length; i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            sb.append(children[i]);
+        }
+        return sb.append(')').toString();
+    }
+}
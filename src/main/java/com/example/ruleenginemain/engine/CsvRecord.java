@@ -0,0 +1,223 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Attribute;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * One CSV line of a (typically memory-mapped) buffer, viewed as a read-only record map.
+ * <p>
+ * Splitting the line only records where each field starts and ends; a field is decoded the
+ * first time it is read, so a rule touching three columns of a wide file never materialises
+ * the others. Fields of NUMBER attributes in plain decimal notation are parsed straight from
+ * the bytes. Empty fields are absent. Quoted fields may contain commas and doubled quotes,
+ * but not line breaks: every record is one line.
+ */
+public final class CsvRecord extends AbstractMap<String, Object> {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final Header header;
+    private final ByteBuffer buffer;
+    private final int[] bounds;
+    private final int fields;
+    private final Object[] decoded;
+
+    private CsvRecord(Header header, ByteBuffer buffer, int[] bounds, int fields) {
+        this.header = header;
+        this.buffer = buffer;
+        this.bounds = bounds;
+        this.fields = fields;
+        this.decoded = new Object[fields];
+    }
+
+    /**
+     * Splits the line between {@code start} (inclusive) and {@code end} (exclusive, before
+     * any line terminator) of the buffer; the buffer's position and limit are not used.
+     */
+    public static CsvRecord of(Header header, ByteBuffer buffer, int start, int end) {
+        int columns = header.names.length;
+        int[] bounds = new int[2 * columns];
+        int fields = 0;
+        int fieldStart = start;
+        boolean quoted = false;
+        for (int i = start; i < end && fields < columns; i++) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == ',' && !quoted) {
+                bounds[2 * fields] = fieldStart;
+                bounds[2 * fields + 1] = i;
+                fields++;
+                fieldStart = i + 1;
+            }
+        }
+        if (fields < columns) {
+            bounds[2 * fields] = fieldStart;
+            bounds[2 * fields + 1] = end;
+            fields++;
+        }
+        return new CsvRecord(header, buffer, bounds, fields);
+    }
+
+    @Override
+    public Object get(Object key) {
+        Integer column = header.columns.get(key);
+        return column == null ? null : field(column);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    // Field as written, unquoted but not parsed as a number; null if the column is absent or empty
+    public String getText(String name) {
+        Integer column = header.columns.get(name);
+        if (column == null || column >= fields || bounds[2 * column] == bounds[2 * column + 1]) {
+            return null;
+        }
+        return text(bounds[2 * column], bounds[2 * column + 1]);
+    }
+
+    private Object field(int column) {
+        if (column >= fields) {
+            return null;
+        }
+        Object value = decoded[column];
+        if (value == null) {
+            int start = bounds[2 * column];
+            int end = bounds[2 * column + 1];
+            if (start == end) {
+                return null;
+            }
+            if (header.numeric[column]) {
+                double number = parseNumber(buffer, start, end);
+                value = Double.isNaN(number) ? text(start, end) : (Object) number;
+            } else {
+                value = text(start, end);
+            }
+            decoded[column] = value;
+        }
+        return value;
+    }
+
+    private String text(int start, int end) {
+        boolean quoted = end - start >= 2 && buffer.get(start) == '"' && buffer.get(end - 1) == '"';
+        if (quoted) {
+            start++;
+            end--;
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        return quoted ? text.replace("\"\"", "\"") : text;
+    }
+
+    /**
+     * Plain decimals ({@code -12}, {@code 3.25}) with at most 15 significant digits are exact
+     * as a long divided by a power of ten, so they are parsed without allocating; anything
+     * else goes through {@link Double#parseDouble}. Returns NaN if the field is not a number.
+     */
+    static double parseNumber(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+        boolean plain = i == end && i > start + (negative || first == '+' ? 1 : 0) && scale != 0;
+        if (plain && digits <= 15 && (scale < 0 || scale < POWERS_OF_TEN.length)) {
+            double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+            return negative ? -value : value;
+        }
+        byte[] bytes = new byte[end - start];
+        for (int j = 0; j < bytes.length; j++) {
+            bytes[j] = buffer.get(start + j);
+        }
+        return Operand.toNumberOrNaN(new String(bytes, StandardCharsets.US_ASCII).trim());
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int column = 0; column < fields; column++) {
+            if (bounds[2 * column] != bounds[2 * column + 1]) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        for (int column = 0; column < fields; column++) {
+            Object value = field(column);
+            if (value != null) {
+                entries.put(header.names[column], value);
+            }
+        }
+        return Collections.unmodifiableMap(entries).entrySet();
+    }
+
+    /**
+     * Column names from the header line, with each column's catalog type deciding whether
+     * its fields are read as numbers.
+     */
+    public static final class Header {
+        private final String[] names;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private final boolean[] numeric;
+
+        public Header(String line, Function<String, Attribute.AttributeType> attributeTypes) {
+            this.names = line.split(",", -1);
+            this.numeric = new boolean[names.length];
+            for (int i = 0; i < names.length; i++) {
+                String name = names[i].trim();
+                if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+                    name = name.substring(1, name.length() - 1);
+                }
+                names[i] = name;
+                columns.putIfAbsent(name, i);
+                numeric[i] = attributeTypes.apply(name) == Attribute.AttributeType.NUMBER;
+            }
+        }
+
+        public List<String> getNames() {
+            return Collections.unmodifiableList(Arrays.asList(names));
+        }
+    }
+}
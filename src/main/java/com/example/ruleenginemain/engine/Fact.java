@@ -0,0 +1,164 @@
+package com.example.ruleenginemain.engine;
+
+import java.util.*;
+
+/**
+ * A record bound to a {@link FactSchema}. Values of catalogued attributes live in arrays
+ * indexed by slot, with the numeric form kept as a primitive {@code double}, so compiled
+ * references read them without hashing, boxing or parsing. Keys outside the catalog are
+ * kept in a side map.
+ * <p>
+ * The fact is also a read-only {@link Map}, so code written against plain maps, such as
+ * user-defined functions, keeps working. A fact that is a view of a record loads each slot
+ * from the record the first time it is read, and serves its map view from the record; a
+ * view is meant for a single evaluation on one thread.
+ * <p>
+ * A fact also remembers the results of pure user-defined functions called with it, so each
+ * is invoked at most once per fact however many conditions refer to it.
+ */
+public final class Fact extends AbstractMap<String, Object> {
+
+    // Marks a view slot that was loaded but has no value in the record
+    private static final Object ABSENT = new Object();
+
+    private final FactSchema schema;
+    private final Map<String, Object> source;
+    private Object[] values;
+    private double[] numbers;
+    private int present;
+    private Map<String, Object> extras = Collections.emptyMap();
+    private Map<String, Object> functionResults = Collections.emptyMap();
+
+    Fact(FactSchema schema, int capacity, Map<String, Object> source) {
+        this.schema = schema;
+        this.source = source;
+        this.values = new Object[capacity];
+        this.numbers = new double[capacity];
+    }
+
+    boolean isBoundTo(FactSchema schema) {
+        return this.schema == schema;
+    }
+
+    // Value in the slot, or null if the fact has none
+    Object value(int slot) {
+        if (slot >= values.length) {
+            return source != null ? source.get(schema.name(slot)) : null;
+        }
+        Object value = values[slot];
+        if (value == null && source != null) {
+            value = load(slot);
+        }
+        return value == ABSENT ? null : value;
+    }
+
+    // Numeric value in the slot, or NaN if the fact has none or it is not numeric
+    double number(int slot) {
+        if (slot >= values.length) {
+            return source != null ? Operand.toNumberOrNaN(source.get(schema.name(slot))) : Double.NaN;
+        }
+        Object value = values[slot];
+        if (value == null && source != null) {
+            value = load(slot);
+        }
+        return value == null || value == ABSENT ? Double.NaN : numbers[slot];
+    }
+
+    private Object load(int slot) {
+        Object value = source.get(schema.name(slot));
+        if (value == null) {
+            value = ABSENT;
+        } else {
+            numbers[slot] = Operand.toNumberOrNaN(value);
+        }
+        values[slot] = value;
+        return value;
+    }
+
+    void set(int slot, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (slot >= values.length) {
+            int size = Math.max(slot + 1, values.length * 2);
+            values = Arrays.copyOf(values, size);
+            numbers = Arrays.copyOf(numbers, size);
+        }
+        if (values[slot] == null) {
+            present++;
+        }
+        values[slot] = value;
+        numbers[slot] = Operand.toNumberOrNaN(value);
+    }
+
+    // Results of pure functions already called with this fact, by function name
+    boolean hasFunctionResult(String function) {
+        return functionResults.containsKey(function);
+    }
+
+    Object functionResult(String function) {
+        return functionResults.get(function);
+    }
+
+    void storeFunctionResult(String function, Object result) {
+        if (functionResults.isEmpty()) {
+            functionResults = new HashMap<>();
+        }
+        functionResults.put(function, result);
+    }
+
+    void setExtra(String key, Object value) {
+        if (extras.isEmpty()) {
+            extras = new HashMap<>();
+        }
+        extras.put(key, value);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (source != null) {
+            return source.get(key);
+        }
+        int slot = schema.existingSlot(key);
+        return slot >= 0 ? value(slot) : extras.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (source != null) {
+            return source.containsKey(key);
+        }
+        int slot = schema.existingSlot(key);
+        return slot >= 0 ? value(slot) != null : extras.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return source != null ? source.size() : present + extras.size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (source != null) {
+            return Collections.unmodifiableMap(source).entrySet();
+        }
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                List<Entry<String, Object>> entries = new ArrayList<>(Fact.this.size());
+                for (int slot = 0; slot < values.length; slot++) {
+                    if (values[slot] != null) {
+                        entries.add(new SimpleImmutableEntry<>(schema.name(slot), values[slot]));
+                    }
+                }
+                entries.addAll(extras.entrySet());
+                return Collections.unmodifiableList(entries).iterator();
+            }
+
+            @Override
+            public int size() {
+                return Fact.this.size();
+            }
+        };
+    }
+}
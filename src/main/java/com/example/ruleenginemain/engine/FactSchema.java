@@ -0,0 +1,110 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Attribute;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Maps catalogued attributes to fixed slot indexes so that facts can be stored as arrays
+ * and compiled references read them by index.
+ * <p>
+ * Slots are assigned on first use and never change or get reused, so a rule compiled
+ * against an earlier state of the schema stays valid as attributes are added. Lookups read
+ * a volatile snapshot and never lock.
+ */
+public class FactSchema {
+
+    private final Function<String, Attribute.AttributeType> attributeTypes;
+    // guarded by this
+    private volatile Map<String, Integer> slots = Collections.emptyMap();
+    private volatile String[] names = new String[0];
+    private volatile Attribute.AttributeType[] types = new Attribute.AttributeType[0];
+
+    public FactSchema(Function<String, Attribute.AttributeType> attributeTypes) {
+        this.attributeTypes = attributeTypes;
+    }
+
+    // Slot of a catalogued attribute, assigned on first use; -1 if the name is not in the catalog
+    public int slot(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null) {
+            return slot;
+        }
+        Attribute.AttributeType type = attributeTypes.apply(name);
+        return type == null ? -1 : assign(name, type);
+    }
+
+    // Slot if already assigned, without consulting the catalog
+    int existingSlot(Object name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    String name(int slot) {
+        return names[slot];
+    }
+
+    Attribute.AttributeType type(int slot) {
+        return types[slot];
+    }
+
+    /**
+     * Converts a JSON-style map into a fact bound to this schema. Catalogued attributes are
+     * stored by slot, with numeric values parsed once; any other keys
+     * are kept as-is so user-defined functions still see the whole record.
+     */
+    public Fact fact(Map<String, Object> data) {
+        if (data instanceof Fact && ((Fact) data).isBoundTo(this)) {
+            return (Fact) data;
+        }
+        Fact fact = new Fact(this, size(), null);
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            int slot = slot(entry.getKey());
+            if (slot >= 0) {
+                fact.set(slot, entry.getValue());
+            } else {
+                fact.setExtra(entry.getKey(), entry.getValue());
+            }
+        }
+        return fact;
+    }
+
+    /**
+     * Wraps a record for one evaluation: slots below {@code capacity} are loaded from the
+     * record when first read, so each attribute is looked up and parsed at most once and only
+     * if a condition actually reads it.
+     */
+    public Fact view(Map<String, Object> data, int capacity) {
+        if (data instanceof Fact && ((Fact) data).isBoundTo(this)) {
+            return (Fact) data;
+        }
+        return new Fact(this, capacity, data);
+    }
+
+    private synchronized int assign(String name, Attribute.AttributeType type) {
+        Integer existing = slots.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        int slot = names.length;
+        Map<String, Integer> updated = new HashMap<>(slots);
+        updated.put(name, slot);
+        String[] updatedNames = Arrays.copyOf(names, slot + 1);
+        updatedNames[slot] = name;
+        Attribute.AttributeType[] updatedTypes = Arrays.copyOf(types, slot + 1);
+        updatedTypes[slot] = type;
+        // names and types grow before the map publishes the slot, so readers never see a slot without them
+        names = updatedNames;
+        types = updatedTypes;
+        slots = updated;
+        return slot;
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.UserDefinedFunction;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe registry of user-defined functions. Functions are looked up by compiled rules
+ * on every call, so registering or replacing one takes effect immediately.
+ * <p>
+ * {@link #get} returns the function wrapped with the behaviour it declared:
+ * <ul>
+ *   <li>a pure function is called at most once per {@link Fact}, and if it declares its
+ *       inputs, results are also kept across records in a bounded LRU cache keyed by the
+ *       input values;</li>
+ *   <li>a function with a timeout runs on one of a bounded set of threads and fails the
+ *       condition reading it once the timeout elapses, or at once if every thread is busy.
+ *       The call is interrupted but may keep running, so it is given an immutable copy of
+ *       its declared inputs (of the whole record if it declares none), never the record;</li>
+ *   <li>every actual call is counted and timed, see {@link #stats()}.</li>
+ * </ul>
+ */
+public class FunctionRegistry {
+
+    private final Map<String, Registered> functions = new ConcurrentHashMap<>();
+    private final int cacheSize;
+    private final int timeoutThreads;
+    private volatile ExecutorService timeoutExecutor;
+
+    public FunctionRegistry(int cacheSize) {
+        this(cacheSize, 16);
+    }
+
+    // cacheSize: results kept per pure function with declared inputs; 0 disables caching across records.
+    // timeoutThreads: calls of functions with a timeout that may run at once, including abandoned ones
+    public FunctionRegistry(int cacheSize, int timeoutThreads) {
+        this.cacheSize = cacheSize;
+        this.timeoutThreads = Math.max(1, timeoutThreads);
+    }
+
+    public void register(UserDefinedFunction function) {
+        if (function.getName() == null || function.getName().trim().isEmpty()) {
+            throw new RuleEngineException("Function name cannot be null or empty");
+        }
+        functions.put(function.getName(), new Registered(function));
+    }
+
+    // The instrumented function, or null if none is registered under the name
+    public UserDefinedFunction get(String name) {
+        Registered registered = functions.get(name);
+        return registered == null ? null : registered.instrumented;
+    }
+
+    public boolean contains(String name) {
+        return functions.containsKey(name);
+    }
+
+    public List<Stats> stats() {
+        List<Stats> stats = new ArrayList<>();
+        for (Registered registered : functions.values()) {
+            stats.add(registered.stats());
+        }
+        stats.sort(Comparator.comparing(Stats::getName));
+        return stats;
+    }
+
+    // Statistics of one function, or null if none is registered under the name
+    public Stats stats(String name) {
+        Registered registered = functions.get(name);
+        return registered == null ? null : registered.stats();
+    }
+
+    private ExecutorService timeoutExecutor() {
+        ExecutorService executor = timeoutExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = timeoutExecutor;
+                if (executor == null) {
+                    AtomicInteger threads = new AtomicInteger();
+                    // No queue: a call either gets a thread now or is rejected
+                    executor = new ThreadPoolExecutor(0, timeoutThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                            task -> {
+                                Thread thread = new Thread(task, "rule-function-" + threads.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    timeoutExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private final class Registered {
+        private final UserDefinedFunction function;
+        private final UserDefinedFunction instrumented;
+        private final Map<List<Object>, Object> results;
+        private final long timeoutNanos;
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Registered(UserDefinedFunction function) {
+            this.function = function;
+            this.timeoutNanos = function.getTimeout() == null ? 0 : function.getTimeout().toNanos();
+            this.results = function.isPure() && !function.getInputs().isEmpty() && cacheSize > 0
+                    ? Collections.synchronizedMap(new LinkedHashMap<List<Object>, Object>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<List<Object>, Object> eldest) {
+                            return size() > cacheSize;
+                        }
+                    })
+                    : null;
+            this.instrumented = new UserDefinedFunction(function.getName(), this::apply,
+                    function.isPure(), function.getInputs(), function.getTimeout());
+        }
+
+        private Object apply(Map<String, Object> data) {
+            if (!function.isPure()) {
+                return call(data);
+            }
+            Fact fact = data instanceof Fact ? (Fact) data : null;
+            if (fact != null && fact.hasFunctionResult(function.getName())) {
+                cacheHits.increment();
+                return fact.functionResult(function.getName());
+            }
+            Object result;
+            if (results != null) {
+                List<Object> key = key(data);
+                boolean cached;
+                // null results are cached too, so presence is checked with the lookup
+                synchronized (results) {
+                    cached = results.containsKey(key);
+                    result = results.get(key);
+                }
+                if (cached) {
+                    cacheHits.increment();
+                } else {
+                    result = call(data);
+                    results.put(key, result);
+                }
+            } else {
+                result = call(data);
+            }
+            if (fact != null) {
+                fact.storeFunctionResult(function.getName(), result);
+            }
+            return result;
+        }
+
+        private List<Object> key(Map<String, Object> data) {
+            List<String> inputs = function.getInputs();
+            Object[] values = new Object[inputs.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = data.get(inputs.get(i));
+            }
+            return Arrays.asList(values);
+        }
+
+        private Object call(Map<String, Object> data) {
+            long start = System.nanoTime();
+            try {
+                return timeoutNanos > 0 ? callWithTimeout(data) : function.apply(data);
+            } catch (RuntimeException e) {
+                failures.increment();
+                throw e;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                calls.increment();
+                totalNanos.add(elapsed);
+                maxNanos.accumulate(elapsed);
+            }
+        }
+
+        private Object callWithTimeout(Map<String, Object> data) {
+            // A timed-out call keeps running, so it must not share the caller's record
+            Map<String, Object> inputs = snapshot(data);
+            Future<Object> future;
+            try {
+                future = timeoutExecutor().submit(() -> function.apply(inputs));
+            } catch (RejectedExecutionException e) {
+                throw new RuleEngineException("Function " + function.getName() + " rejected: all "
+                        + timeoutThreads + " function threads are busy");
+            }
+            try {
+                return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                timeouts.increment();
+                throw new RuleEngineException("Function " + function.getName() + " timed out after "
+                        + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuleEngineException("Function " + function.getName() + " failed: " + cause, cause);
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new RuleEngineException("Interrupted while calling function " + function.getName());
+            }
+        }
+
+        private Map<String, Object> snapshot(Map<String, Object> data) {
+            List<String> declared = function.getInputs();
+            if (declared.isEmpty()) {
+                return Collections.unmodifiableMap(new HashMap<>(data));
+            }
+            Map<String, Object> copy = new HashMap<>();
+            for (String input : declared) {
+                Object value = data.get(input);
+                if (value != null || data.containsKey(input)) {
+                    copy.put(input, value);
+                }
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+
+        private Stats stats() {
+            return new Stats(function.getName(), function.isPure(), calls.sum(), failures.sum(), timeouts.sum(),
+                    cacheHits.sum(), totalNanos.sum(), maxNanos.get());
+        }
+    }
+
+    public static class Stats {
+        private final String name;
+        private final boolean pure;
+        private final long calls;
+        private final long failures;
+        private final long timeouts;
+        private final long cacheHits;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        public Stats(String name, boolean pure, long calls, long failures, long timeouts, long cacheHits,
+                     long totalNanos, long maxNanos) {
+            this.name = name;
+            this.pure = pure;
+            this.calls = calls;
+            this.failures = failures;
+            this.timeouts = timeouts;
+            this.cacheHits = cacheHits;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isPure() {
+            return pure;
+        }
+
+        // Actual invocations, excluding results served from a fact or the cache
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMeanMillis() {
+            return calls == 0 ? 0.0 : totalNanos / 1e6 / calls;
+        }
+    }
+}
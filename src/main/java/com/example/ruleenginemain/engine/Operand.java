@@ -0,0 +1,283 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.UserDefinedFunction;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * One side of a comparison, resolved at compile time to either a literal or a reference
+ * that is looked up in the fact (or a user-defined function) at evaluation time.
+ */
+public abstract class Operand {
+
+    // Boxed value, used for equality checks against strings
+    public abstract Object value(Map<String, Object> data);
+
+    // Primitive value, used for numeric comparisons; fails if the value is not numeric
+    public abstract double number(Map<String, Object> data);
+
+    // Primitive value or NaN when the value is not numeric
+    public double numberOrNaN(Map<String, Object> data) {
+        return toNumberOrNaN(value(data));
+    }
+
+    public boolean isLiteral() {
+        return false;
+    }
+
+    public static Operand parse(String token, Function<String, UserDefinedFunction> functions) {
+        return parse(token, functions, null);
+    }
+
+    // As above, with references to catalogued attributes bound to their slot in the schema
+    public static Operand parse(String token, Function<String, UserDefinedFunction> functions, FactSchema schema) {
+        if (token.length() >= 2 && isQuote(token.charAt(0)) && token.charAt(token.length() - 1) == token.charAt(0)) {
+            return new StringLiteral(unescape(token.substring(1, token.length() - 1)).intern());
+        }
+        double number = toNumberOrNaN(token);
+        if (!Double.isNaN(number)) {
+            return new NumberLiteral(number, token);
+        }
+        return new Reference(token, functions, schema, schema == null ? -1 : schema.slot(token));
+    }
+
+    static double toNumberOrNaN(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value == null) {
+            return Double.NaN;
+        }
+        String text = value.toString();
+        if (!looksNumeric(text)) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    // Cheap pre-check so bare words never pay for a NumberFormatException
+    private static boolean looksNumeric(String text) {
+        int length = text.length();
+        if (length == 0) {
+            return false;
+        }
+        int start = text.charAt(0) == '-' || text.charAt(0) == '+' ? 1 : 0;
+        if (start == length) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            char c = text.charAt(i);
+            if ((c < '0' || c > '9') && c != '.' && c != 'e' && c != 'E' && c != '-' && c != '+') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                c = text.charAt(++i);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isQuote(char c) {
+        return c == '\'' || c == '"';
+    }
+
+    public static final class NumberLiteral extends Operand {
+        private final double number;
+        private final Double boxed;
+        private final String text;
+
+        NumberLiteral(double number, String text) {
+            this.number = number;
+            this.boxed = number;
+            this.text = text;
+        }
+
+        public double getNumber() {
+            return number;
+        }
+
+        @Override
+        public Object value(Map<String, Object> data) {
+            return boxed;
+        }
+
+        @Override
+        public double number(Map<String, Object> data) {
+            return number;
+        }
+
+        @Override
+        public double numberOrNaN(Map<String, Object> data) {
+            return number;
+        }
+
+        @Override
+        public boolean isLiteral() {
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NumberLiteral && Double.compare(number, ((NumberLiteral) o).number) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Double.hashCode(number);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    public static final class StringLiteral extends Operand {
+        private final String text;
+
+        StringLiteral(String text) {
+            this.text = text;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        @Override
+        public Object value(Map<String, Object> data) {
+            return text;
+        }
+
+        @Override
+        public double number(Map<String, Object> data) {
+            throw new RuleEngineException("Cannot compare non-numeric value: " + text);
+        }
+
+        @Override
+        public boolean isLiteral() {
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StringLiteral && text.equals(((StringLiteral) o).text);
+        }
+
+        @Override
+        public int hashCode() {
+            return text.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "'" + text + "'";
+        }
+    }
+
+    /**
+     * A name resolved against the fact first, then against the registered user-defined
+     * functions. Unresolved names evaluate to the name itself, matching how bare words
+     * have always been treated as string values.
+     * <p>
+     * A reference to a catalogued attribute also carries the attribute's schema slot, and
+     * reads a {@link Fact} bound to that schema by index.
+     */
+    public static final class Reference extends Operand {
+        private final String name;
+        private final Function<String, UserDefinedFunction> functions;
+        private final FactSchema schema;
+        private final int slot;
+
+        Reference(String name, Function<String, UserDefinedFunction> functions, FactSchema schema, int slot) {
+            this.name = name;
+            this.functions = functions;
+            this.schema = schema;
+            this.slot = slot;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        // Schema slot of the attribute, or -1 if the reference is not bound to one
+        int getSlot() {
+            return slot;
+        }
+
+        @Override
+        public Object value(Map<String, Object> data) {
+            Object value = slot >= 0 && data instanceof Fact && ((Fact) data).isBoundTo(schema)
+                    ? ((Fact) data).value(slot)
+                    : data.get(name);
+            if (value != null) {
+                return value;
+            }
+            UserDefinedFunction function = functions.apply(name);
+            return function != null ? function.apply(data) : name;
+        }
+
+        @Override
+        public double numberOrNaN(Map<String, Object> data) {
+            if (slot >= 0 && data instanceof Fact && ((Fact) data).isBoundTo(schema)) {
+                double number = ((Fact) data).number(slot);
+                if (!Double.isNaN(number)) {
+                    return number;
+                }
+            }
+            return toNumberOrNaN(value(data));
+        }
+
+        @Override
+        public double number(Map<String, Object> data) {
+            if (slot >= 0 && data instanceof Fact && ((Fact) data).isBoundTo(schema)) {
+                double number = ((Fact) data).number(slot);
+                if (!Double.isNaN(number)) {
+                    return number;
+                }
+            }
+            Object value = value(data);
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            double number = toNumberOrNaN(value);
+            if (Double.isNaN(number)) {
+                throw new RuleEngineException("Cannot compare non-numeric value for " + name + ": " + value);
+            }
+            return number;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Reference && name.equals(((Reference) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Reference.class, name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Attribute;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Per-attribute indexes over the leaf comparisons of a {@link ConditionNetwork}.
+ * <p>
+ * For attributes the catalog types as {@code NUMBER}, {@code >} and {@code <} thresholds
+ * are kept in sorted arrays and {@code =} constants in a hash map; for {@code STRING}
+ * attributes {@code =} constants are hashed. Given a value, the satisfied leaves of an
+ * attribute are found with one binary search per operator (or one hash lookup) instead of
+ * testing every leaf. Inequalities ({@code !=}) and comparisons on other attributes are
+ * left to direct evaluation.
+ * <p>
+ * Each attribute's index is an immutable snapshot rebuilt when its leaves change, so
+ * readers never lock. While indexing is deferred, changed attributes are only marked and
+ * each is rebuilt once when the deferral ends, so loading many leaves stays linear.
+ */
+class PredicateIndex {
+
+    private static final ConditionNetwork.NetworkNode[] NO_LEAVES = new ConditionNetwork.NetworkNode[0];
+
+    private final Function<String, Attribute.AttributeType> attributeTypes;
+    // guarded by the owning network
+    private final Map<String, Set<ConditionNetwork.NetworkNode>> leavesByAttribute = new HashMap<>();
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final Set<String> dirty = new HashSet<>();
+    private boolean deferred;
+    private volatile Map<String, AttributeIndex> indexes = Collections.emptyMap();
+
+    PredicateIndex(Function<String, Attribute.AttributeType> attributeTypes) {
+        this.attributeTypes = attributeTypes;
+    }
+
+    // Attribute indexed by the leaf, or null if the leaf has to be evaluated directly
+    String indexableAttribute(Condition condition) {
+        if (!(condition instanceof Conditions.Comparison)) {
+            return null;
+        }
+        Operand left = ((Conditions.Comparison) condition).getLeft();
+        if (!(left instanceof Operand.Reference)) {
+            return null;
+        }
+        String attribute = ((Operand.Reference) left).getName();
+        Attribute.AttributeType type = attributeTypes.apply(attribute);
+        if (type == Attribute.AttributeType.NUMBER) {
+            if (condition instanceof Conditions.GreaterThan || condition instanceof Conditions.LessThan
+                    || (condition instanceof Conditions.NumberEquals && !((Conditions.NumberEquals) condition).isNegated())) {
+                return attribute;
+            }
+        } else if (type == Attribute.AttributeType.STRING) {
+            if (condition instanceof Conditions.StringEquals && !((Conditions.StringEquals) condition).isNegated()) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
+    int slot(String attribute) {
+        return slots.computeIfAbsent(attribute, k -> slots.size());
+    }
+
+    int slotCount() {
+        return slots.size();
+    }
+
+    void add(String attribute, ConditionNetwork.NetworkNode leaf) {
+        leavesByAttribute.computeIfAbsent(attribute, k -> new HashSet<>()).add(leaf);
+        changed(attribute);
+    }
+
+    void remove(String attribute, ConditionNetwork.NetworkNode leaf) {
+        Set<ConditionNetwork.NetworkNode> leaves = leavesByAttribute.get(attribute);
+        if (leaves != null && leaves.remove(leaf)) {
+            if (leaves.isEmpty()) {
+                leavesByAttribute.remove(attribute);
+            }
+            changed(attribute);
+        }
+    }
+
+    AttributeIndex get(String attribute) {
+        return indexes.get(attribute);
+    }
+
+    boolean isEmpty() {
+        return indexes.isEmpty();
+    }
+
+    void defer() {
+        deferred = true;
+    }
+
+    // Rebuilds every attribute changed since defer() and publishes them together
+    void flush() {
+        deferred = false;
+        if (!dirty.isEmpty()) {
+            rebuild(dirty);
+            dirty.clear();
+        }
+    }
+
+    private void changed(String attribute) {
+        if (deferred) {
+            dirty.add(attribute);
+        } else {
+            rebuild(Collections.singleton(attribute));
+        }
+    }
+
+    private void rebuild(Collection<String> attributes) {
+        Map<String, AttributeIndex> updated = new HashMap<>(indexes);
+        for (String attribute : attributes) {
+            Set<ConditionNetwork.NetworkNode> leaves = leavesByAttribute.get(attribute);
+            if (leaves == null) {
+                updated.remove(attribute);
+            } else {
+                updated.put(attribute, new AttributeIndex(slot(attribute), leaves));
+            }
+        }
+        indexes = updated;
+    }
+
+    /**
+     * Immutable index of one attribute's leaves.
+     */
+    static final class AttributeIndex {
+        private final int slot;
+        private final double[] greaterThan;
+        private final ConditionNetwork.NetworkNode[][] greaterThanLeaves;
+        private final double[] lessThan;
+        private final ConditionNetwork.NetworkNode[][] lessThanLeaves;
+        private final Map<Double, ConditionNetwork.NetworkNode[]> numberEquals = new HashMap<>();
+        private final Map<String, ConditionNetwork.NetworkNode[]> stringEquals = new HashMap<>();
+        private final boolean numeric;
+
+        private AttributeIndex(int slot, Collection<ConditionNetwork.NetworkNode> leaves) {
+            this.slot = slot;
+            TreeMap<Double, List<ConditionNetwork.NetworkNode>> gt = new TreeMap<>();
+            TreeMap<Double, List<ConditionNetwork.NetworkNode>> lt = new TreeMap<>();
+            Map<Double, List<ConditionNetwork.NetworkNode>> eq = new HashMap<>();
+            Map<String, List<ConditionNetwork.NetworkNode>> seq = new HashMap<>();
+            for (ConditionNetwork.NetworkNode leaf : leaves) {
+                Condition condition = leaf.getCondition();
+                if (condition instanceof Conditions.GreaterThan) {
+                    gt.computeIfAbsent(((Conditions.GreaterThan) condition).getConstant(), k -> new ArrayList<>()).add(leaf);
+                } else if (condition instanceof Conditions.LessThan) {
+                    lt.computeIfAbsent(((Conditions.LessThan) condition).getConstant(), k -> new ArrayList<>()).add(leaf);
+                } else if (condition instanceof Conditions.NumberEquals) {
+                    eq.computeIfAbsent(normalize(((Conditions.NumberEquals) condition).getConstant()), k -> new ArrayList<>()).add(leaf);
+                } else if (condition instanceof Conditions.StringEquals) {
+                    seq.computeIfAbsent(((Conditions.StringEquals) condition).getConstant(), k -> new ArrayList<>()).add(leaf);
+                }
+            }
+            this.greaterThan = keys(gt);
+            this.greaterThanLeaves = values(gt);
+            this.lessThan = keys(lt);
+            this.lessThanLeaves = values(lt);
+            eq.forEach((k, v) -> numberEquals.put(k, v.toArray(NO_LEAVES)));
+            seq.forEach((k, v) -> stringEquals.put(k, v.toArray(NO_LEAVES)));
+            this.numeric = stringEquals.isEmpty();
+        }
+
+        int slot() {
+            return slot;
+        }
+
+        // Passes every leaf satisfied by the value to the visitor
+        void forEachSatisfied(Object value, Consumer<ConditionNetwork.NetworkNode> visitor) {
+            if (!numeric) {
+                ConditionNetwork.NetworkNode[] matches = stringEquals.get(value instanceof String ? (String) value : String.valueOf(value));
+                if (matches != null) {
+                    for (ConditionNetwork.NetworkNode leaf : matches) {
+                        visitor.accept(leaf);
+                    }
+                }
+                return;
+            }
+            double number = Operand.toNumberOrNaN(value);
+            if (Double.isNaN(number)) {
+                return;
+            }
+            // thresholds strictly below the value satisfy "attribute > threshold"
+            int below = lowerBound(greaterThan, number);
+            for (int i = 0; i < below; i++) {
+                for (ConditionNetwork.NetworkNode leaf : greaterThanLeaves[i]) {
+                    visitor.accept(leaf);
+                }
+            }
+            // thresholds strictly above the value satisfy "attribute < threshold"
+            for (int i = upperBound(lessThan, number); i < lessThan.length; i++) {
+                for (ConditionNetwork.NetworkNode leaf : lessThanLeaves[i]) {
+                    visitor.accept(leaf);
+                }
+            }
+            ConditionNetwork.NetworkNode[] equal = numberEquals.get(normalize(number));
+            if (equal != null) {
+                for (ConditionNetwork.NetworkNode leaf : equal) {
+                    visitor.accept(leaf);
+                }
+            }
+        }
+
+        // First index whose threshold is >= value
+        private static int lowerBound(double[] thresholds, double value) {
+            int low = 0;
+            int high = thresholds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (thresholds[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First index whose threshold is > value
+        private static int upperBound(double[] thresholds, double value) {
+            int low = 0;
+            int high = thresholds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (thresholds[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static double[] keys(TreeMap<Double, List<ConditionNetwork.NetworkNode>> map) {
+            double[] keys = new double[map.size()];
+            int i = 0;
+            for (Double key : map.keySet()) {
+                keys[i++] = key;
+            }
+            return keys;
+        }
+
+        private static ConditionNetwork.NetworkNode[][] values(TreeMap<Double, List<ConditionNetwork.NetworkNode>> map) {
+            ConditionNetwork.NetworkNode[][] values = new ConditionNetwork.NetworkNode[map.size()][];
+            int i = 0;
+            for (List<ConditionNetwork.NetworkNode> leaves : map.values()) {
+                values[i++] = leaves.toArray(NO_LEAVES);
+            }
+            return values;
+        }
+
+        // 0.0 and -0.0 compare equal but are different Double keys
+        private static double normalize(double value) {
+            return value == 0.0 ? 0.0 : value;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.Node;
+import com.example.ruleenginemain.model.UserDefinedFunction;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Turns a rule's {@link Node} tree into a {@link CompiledRule}. Operators are resolved and
+ * numeric literals parsed once here instead of on every evaluation. Nested chains of the
+ * same operator, such as those built by combining rules, are flattened into one AND or OR
+ * with duplicate operands removed, so their evaluation order can be adapted as a whole.
+ * The result is then simplified by the {@link ConditionOptimizer}.
+ */
+public class RuleCompiler {
+
+    private final Function<String, UserDefinedFunction> functions;
+    private final FactSchema schema;
+
+    public RuleCompiler(Function<String, UserDefinedFunction> functions) {
+        this(functions, null);
+    }
+
+    // Attribute references are resolved to schema slots, so facts bound to the schema are read by index
+    public RuleCompiler(Function<String, UserDefinedFunction> functions, FactSchema schema) {
+        this.functions = functions;
+        this.schema = schema;
+    }
+
+    public CompiledRule compile(Long ruleId, Node root) {
+        return compile(ruleId, 0, root);
+    }
+
+    public CompiledRule compile(Long ruleId, long version, Node root) {
+        if (root == null) {
+            throw new RuleEngineException("Rule " + ruleId + " has no condition tree");
+        }
+        Condition condition = ConditionOptimizer.optimize(compileNode(root));
+        if (schema == null) {
+            return new CompiledRule(ruleId, version, condition, null, 0);
+        }
+        // slotCount[0]: one more than the highest slot read, slotCount[1]: number of references
+        int[] slotCount = {0, 0};
+        collectSlots(condition, slotCount);
+        // Rules reading only literals need no view; function-only rules get one to memoise results
+        return new CompiledRule(ruleId, version, condition, slotCount[1] > 0 ? schema : null, slotCount[0]);
+    }
+
+    private static void collectSlots(Condition condition, int[] slotCount) {
+        if (condition instanceof Conditions.And) {
+            for (Condition child : ((Conditions.And) condition).getChildren()) {
+                collectSlots(child, slotCount);
+            }
+        } else if (condition instanceof Conditions.Or) {
+            for (Condition child : ((Conditions.Or) condition).getChildren()) {
+                collectSlots(child, slotCount);
+            }
+        } else if (condition instanceof Conditions.Not) {
+            collectSlots(((Conditions.Not) condition).getChild(), slotCount);
+        } else if (condition instanceof Conditions.Comparison) {
+            addSlot(((Conditions.Comparison) condition).getLeft(), slotCount);
+            if (condition instanceof Conditions.Compare) {
+                addSlot(((Conditions.Compare) condition).getRight(), slotCount);
+            } else if (condition instanceof Conditions.Equals) {
+                addSlot(((Conditions.Equals) condition).getRight(), slotCount);
+            }
+        }
+    }
+
+    private static void addSlot(Operand operand, int[] slotCount) {
+        if (operand instanceof Operand.Reference) {
+            slotCount[0] = Math.max(slotCount[0], ((Operand.Reference) operand).getSlot() + 1);
+            slotCount[1]++;
+        }
+    }
+
+    private Condition compileNode(Node node) {
+        if (!"operator".equals(node.getType())) {
+            return Conditions.TRUE; // Leaf node (attribute or value) always evaluates to true
+        }
+        String operator = node.getValue();
+        switch (operator) {
+            case "AND":
+            case "OR":
+                return compileJunction(node, operator);
+            case "NOT":
+                return new Conditions.Not(compileNode(node.getLeft()));
+            case ">":
+            case "<":
+            case "=":
+            case "!=":
+                return compileComparison(operator, operand(node.getLeft(), operator), operand(node.getRight(), operator));
+            default:
+                throw new RuleEngineException("Unknown operator: " + operator);
+        }
+    }
+
+    private Condition compileJunction(Node node, String operator) {
+        Set<Condition> operands = new LinkedHashSet<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Node current = pending.pop();
+            if ("operator".equals(current.getType()) && operator.equals(current.getValue())) {
+                requireChild(current.getRight(), operator);
+                requireChild(current.getLeft(), operator);
+                pending.push(current.getRight());
+                pending.push(current.getLeft());
+            } else {
+                operands.add(compileNode(current));
+            }
+        }
+        if (operands.size() == 1) {
+            return operands.iterator().next();
+        }
+        Condition[] children = operands.toArray(new Condition[0]);
+        return "AND".equals(operator) ? new Conditions.And(children) : new Conditions.Or(children);
+    }
+
+    private static void requireChild(Node child, String operator) {
+        if (child == null) {
+            throw new RuleEngineException("Invalid rule syntax: operator " + operator + " requires two operands");
+        }
+    }
+
+    private Condition compileComparison(String operator, Operand left, Operand right) {
+        // Keep the literal on the right so the specialised forms below apply, e.g. 30 < age -> age > 30
+        if (left.isLiteral() && !right.isLiteral()) {
+            Operand swap = left;
+            left = right;
+            right = swap;
+            if (">".equals(operator)) {
+                operator = "<";
+            } else if ("<".equals(operator)) {
+                operator = ">";
+            }
+        }
+        switch (operator) {
+            case ">":
+                return right instanceof Operand.NumberLiteral
+                        ? new Conditions.GreaterThan(left, ((Operand.NumberLiteral) right).getNumber())
+                        : new Conditions.Compare(left, right, true);
+            case "<":
+                return right instanceof Operand.NumberLiteral
+                        ? new Conditions.LessThan(left, ((Operand.NumberLiteral) right).getNumber())
+                        : new Conditions.Compare(left, right, false);
+            default:
+                boolean negated = "!=".equals(operator);
+                if (right instanceof Operand.NumberLiteral) {
+                    return new Conditions.NumberEquals(left, ((Operand.NumberLiteral) right).getNumber(), negated);
+                }
+                if (right instanceof Operand.StringLiteral) {
+                    return new Conditions.StringEquals(left, ((Operand.StringLiteral) right).getText(), negated);
+                }
+                return new Conditions.Equals(left, right, negated);
+        }
+    }
+
+    private Operand operand(Node node, String operator) {
+        if (node == null || !"operand".equals(node.getType()) || node.getValue() == null) {
+            throw new RuleEngineException("Invalid rule syntax: operator " + operator + " requires two operands");
+        }
+        return Operand.parse(node.getValue(), functions, schema);
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Attribute;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Index of compiled rules used to find every rule a single fact satisfies.
+ * <p>
+ * Each rule is filed under one "anchor" attribute: an attribute the rule cannot be true
+ * without. Matching a fact only visits the rules anchored on attributes the fact actually
+ * carries, so the work grows with the relevant rules rather than with the whole catalog.
+ * The rarest required attribute is chosen as anchor to keep buckets small.
+ * <p>
+ * Candidate rules are evaluated through a shared {@link ConditionNetwork}, so conditions
+ * common to several rules are evaluated once per fact. Rules that are a conjunction of
+ * indexed comparisons skip the anchor buckets entirely and are matched by counting the
+ * satisfied comparisons the network's predicate index reports.
+ */
+public class RuleIndex {
+
+    private static final String[] NO_ATTRIBUTES = new String[0];
+
+    private final Predicate<String> isFunction;
+    private final ConditionNetwork network;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Map<Long, Entry>> byAnchor = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> unanchored = new ConcurrentHashMap<>();
+    // Number of indexed rules that require each attribute; guarded by this
+    private final Map<String, Integer> requiredCounts = new HashMap<>();
+
+    public RuleIndex(Predicate<String> isFunction, Function<String, Attribute.AttributeType> attributeTypes) {
+        this.isFunction = isFunction;
+        this.network = new ConditionNetwork(attributeTypes);
+    }
+
+    public synchronized void put(CompiledRule rule, Set<String> tags) {
+        remove(rule.getRuleId());
+        Set<String> required = requiredAttributes(rule.getCondition());
+        for (String attribute : required) {
+            requiredCounts.merge(attribute, 1, Integer::sum);
+        }
+        String anchor = null;
+        for (String attribute : required) {
+            if (anchor == null || requiredCounts.get(attribute) < requiredCounts.get(anchor)) {
+                anchor = attribute;
+            }
+        }
+        Set<String> tagSet = tags == null || tags.isEmpty() ? Collections.emptySet() : new HashSet<>(tags);
+        ConditionNetwork.NetworkNode root = network.acquire(rule.getCondition());
+        ConditionNetwork.Conjunction conjunction = network.addConjunction(root, rule.getRuleId(), tagSet);
+        Entry entry = new Entry(rule.getRuleId(), rule.getVersion(), root, conjunction, tagSet,
+                required.toArray(NO_ATTRIBUTES), anchor);
+        entries.put(rule.getRuleId(), entry);
+        if (conjunction != null) {
+            return;
+        }
+        if (anchor == null) {
+            unanchored.put(rule.getRuleId(), entry);
+        } else {
+            byAnchor.computeIfAbsent(anchor, k -> new ConcurrentHashMap<>()).put(rule.getRuleId(), entry);
+        }
+    }
+
+    /**
+     * Indexes many rules at once, e.g. on startup or after a bulk import; tags holds each
+     * rule's tags at the same position. Index structures are rebuilt once at the end, so the
+     * rules become matchable together.
+     */
+    public synchronized void putAll(List<CompiledRule> rules, List<Set<String>> tags) {
+        network.deferIndexing();
+        try {
+            for (int i = 0; i < rules.size(); i++) {
+                put(rules.get(i), tags.get(i));
+            }
+        } finally {
+            network.flushIndexing();
+        }
+    }
+
+    public synchronized void remove(Long ruleId) {
+        Entry entry = entries.remove(ruleId);
+        if (entry == null) {
+            return;
+        }
+        for (String attribute : entry.required) {
+            requiredCounts.computeIfPresent(attribute, (k, count) -> count == 1 ? null : count - 1);
+        }
+        if (entry.anchor == null) {
+            unanchored.remove(ruleId);
+        } else {
+            Map<Long, Entry> bucket = byAnchor.get(entry.anchor);
+            if (bucket != null) {
+                bucket.remove(ruleId);
+            }
+        }
+        // Released last, once new matches can no longer reach the rule's nodes
+        if (entry.conjunction != null) {
+            network.removeConjunction(entry.conjunction);
+        }
+        network.release(entry.root);
+    }
+
+    // Version of the rule as indexed, or -1 if it is not indexed
+    public long version(Long ruleId) {
+        Entry entry = entries.get(ruleId);
+        return entry == null ? -1 : entry.version;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Number of distinct conditions shared by the indexed rules
+    public int distinctConditions() {
+        return network.size();
+    }
+
+    /**
+     * Returns the ids of all indexed rules satisfied by the fact, in ascending order. When a
+     * tag is given only rules carrying that tag are considered. A comparison that cannot be
+     * evaluated against the fact (for example because its attribute is missing) counts as false.
+     */
+    public List<Long> match(Map<String, Object> data, String tag) {
+        List<ConditionNetwork.Conjunction> completed = new ArrayList<>();
+        ConditionNetwork.Memo memo = network.begin(data, completed);
+        List<Long> matched = new ArrayList<>();
+        try {
+            for (ConditionNetwork.Conjunction conjunction : completed) {
+                if (tag == null || conjunction.getTags().contains(tag)) {
+                    matched.add(conjunction.getRuleId());
+                }
+            }
+            for (String attribute : data.keySet()) {
+                Map<Long, Entry> bucket = byAnchor.get(attribute);
+                if (bucket != null) {
+                    collect(bucket.values(), data, memo, tag, matched);
+                }
+            }
+            collect(unanchored.values(), data, memo, tag, matched);
+        } finally {
+            network.end(memo);
+        }
+        Collections.sort(matched);
+        return matched;
+    }
+
+    private static void collect(Collection<Entry> candidates, Map<String, Object> data, ConditionNetwork.Memo memo,
+                                String tag, List<Long> matched) {
+        for (Entry entry : candidates) {
+            if (tag != null && !entry.tags.contains(tag)) {
+                continue;
+            }
+            if (entry.hasRequiredAttributes(data) && entry.root.evaluate(memo)) {
+                matched.add(entry.ruleId);
+            }
+        }
+    }
+
+    // Attributes that must be present in the fact for the condition to hold
+    private Set<String> requiredAttributes(Condition condition) {
+        if (condition instanceof Conditions.Comparison) {
+            Operand left = ((Conditions.Comparison) condition).getLeft();
+            if (left instanceof Operand.Reference && !isFunction.test(((Operand.Reference) left).getName())) {
+                return Collections.singleton(((Operand.Reference) left).getName());
+            }
+            return Collections.emptySet();
+        }
+        if (condition instanceof Conditions.And) {
+            Set<String> union = new HashSet<>();
+            for (Condition child : ((Conditions.And) condition).getChildren()) {
+                union.addAll(requiredAttributes(child));
+            }
+            return union;
+        }
+        if (condition instanceof Conditions.Or) {
+            Set<String> intersection = null;
+            for (Condition child : ((Conditions.Or) condition).getChildren()) {
+                Set<String> childRequired = requiredAttributes(child);
+                if (intersection == null) {
+                    intersection = new HashSet<>(childRequired);
+                } else {
+                    intersection.retainAll(childRequired);
+                }
+            }
+            return intersection == null ? Collections.emptySet() : intersection;
+        }
+        return Collections.emptySet();
+    }
+
+    private static final class Entry {
+        private final Long ruleId;
+        private final long version;
+        private final ConditionNetwork.NetworkNode root;
+        private final ConditionNetwork.Conjunction conjunction;
+        private final Set<String> tags;
+        private final String[] required;
+        private final String anchor;
+
+        private Entry(Long ruleId, long version, ConditionNetwork.NetworkNode root,
+                      ConditionNetwork.Conjunction conjunction, Set<String> tags, String[] required, String anchor) {
+            this.ruleId = ruleId;
+            this.version = version;
+            this.root = root;
+            this.conjunction = conjunction;
+            this.tags = tags;
+            this.required = required;
+            this.anchor = anchor;
+        }
+
+        private boolean hasRequiredAttributes(Map<String, Object> data) {
+            for (String attribute : required) {
+                if (data.get(attribute) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
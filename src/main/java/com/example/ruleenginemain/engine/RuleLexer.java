@@ -0,0 +1,175 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.exception.RuleEngineException;
+
+/**
+ * Single-pass tokenizer for rule strings. The lexer keeps only the current token's kind
+ * and bounds; text is materialised on demand, so scanning keywords, operators and
+ * parentheses allocates nothing.
+ */
+final class RuleLexer {
+
+    enum TokenType {
+        IDENTIFIER, NUMBER, STRING, AND, OR, NOT, COMPARISON, LEFT_PAREN, RIGHT_PAREN, END
+    }
+
+    private final String input;
+    private final int length;
+    private int position;
+
+    private TokenType type;
+    private int start;
+    private int end;
+
+    RuleLexer(String input) {
+        this.input = input;
+        this.length = input.length();
+        next();
+    }
+
+    TokenType type() {
+        return type;
+    }
+
+    int start() {
+        return start;
+    }
+
+    // Token text; string literals keep their quotes so they stay distinguishable from names
+    String text() {
+        return input.substring(start, end);
+    }
+
+    void next() {
+        while (position < length && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+        start = position;
+        if (position >= length) {
+            type = TokenType.END;
+            end = position;
+            return;
+        }
+        char c = input.charAt(position);
+        switch (c) {
+            case '(':
+                single(TokenType.LEFT_PAREN);
+                return;
+            case ')':
+                single(TokenType.RIGHT_PAREN);
+                return;
+            case '>':
+            case '<':
+            case '=':
+                if (position + 1 < length && input.charAt(position + 1) == '=') {
+                    throw error("Unsupported operator " + c + "=");
+                }
+                single(TokenType.COMPARISON);
+                return;
+            case '!':
+                if (position + 1 < length && input.charAt(position + 1) == '=') {
+                    position += 2;
+                    end = position;
+                    type = TokenType.COMPARISON;
+                    return;
+                }
+                throw error("Unexpected character '!'");
+            case '\'':
+            case '"':
+                string(c);
+                return;
+            default:
+                break;
+        }
+        if (isDigit(c) || ((c == '-' || c == '.') && position + 1 < length && isDigit(input.charAt(position + 1)))) {
+            number();
+        } else if (isIdentifierStart(c)) {
+            identifier();
+        } else {
+            throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    RuleEngineException error(String message) {
+        return new RuleEngineException("Invalid rule syntax: " + message + " at position " + start);
+    }
+
+    private void single(TokenType tokenType) {
+        position++;
+        end = position;
+        type = tokenType;
+    }
+
+    private void string(char quote) {
+        position++;
+        while (position < length && input.charAt(position) != quote) {
+            if (input.charAt(position) == '\\') {
+                position++;
+            }
+            position++;
+        }
+        if (position >= length) {
+            throw error("Unterminated string literal");
+        }
+        position++;
+        end = position;
+        type = TokenType.STRING;
+    }
+
+    private void number() {
+        position++;
+        while (position < length) {
+            char c = input.charAt(position);
+            if (isDigit(c) || c == '.') {
+                position++;
+            } else if ((c == 'e' || c == 'E') && position + 1 < length) {
+                position++;
+                if (input.charAt(position) == '-' || input.charAt(position) == '+') {
+                    position++;
+                }
+            } else {
+                break;
+            }
+        }
+        end = position;
+        type = TokenType.NUMBER;
+        if (position < length && isIdentifierPart(input.charAt(position))) {
+            throw error("Malformed number");
+        }
+    }
+
+    private void identifier() {
+        position++;
+        while (position < length && isIdentifierPart(input.charAt(position))) {
+            position++;
+        }
+        end = position;
+        type = keyword();
+    }
+
+    private TokenType keyword() {
+        int size = end - start;
+        if (size == 3 && input.regionMatches(true, start, "AND", 0, 3)) {
+            return TokenType.AND;
+        }
+        if (size == 2 && input.regionMatches(true, start, "OR", 0, 2)) {
+            return TokenType.OR;
+        }
+        if (size == 3 && input.regionMatches(true, start, "NOT", 0, 3)) {
+            return TokenType.NOT;
+        }
+        return TokenType.IDENTIFIER;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+}
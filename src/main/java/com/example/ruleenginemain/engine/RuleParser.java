@@ -0,0 +1,182 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.Node;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Precedence-climbing parser turning a rule string into a {@link Node} tree.
+ * <pre>
+ *   expression := unary (("AND" | "OR") unary)*      OR binds looser than AND
+ *   unary      := "NOT" unary | "(" expression ")" | comparison
+ *   comparison := operand [(">" | "<" | "=" | "!=") operand]
+ *   operand    := identifier | number | 'string'
+ * </pre>
+ * Comparisons become operator nodes whose children are the two operands; {@code NOT} is an
+ * operator node with a single (left) child. Identifiers are checked with the supplied
+ * validator as they are read, so a rule is tokenized, parsed and validated in one pass.
+ * <p>
+ * When attribute types are supplied, comparisons are also type checked: {@code >} and
+ * {@code <} need numeric operands, and {@code =}/{@code !=} reject a number attribute
+ * compared with a string or vice versa. Identifiers without a type (functions, unknown
+ * names) are not checked.
+ */
+public class RuleParser {
+
+    private static final int OR_PRECEDENCE = 1;
+    private static final int AND_PRECEDENCE = 2;
+
+    private final Predicate<String> identifierValidator;
+    private final Function<String, Attribute.AttributeType> attributeTypes;
+
+    public RuleParser(Predicate<String> identifierValidator) {
+        this(identifierValidator, name -> null);
+    }
+
+    public RuleParser(Predicate<String> identifierValidator, Function<String, Attribute.AttributeType> attributeTypes) {
+        this.identifierValidator = identifierValidator;
+        this.attributeTypes = attributeTypes;
+    }
+
+    public Node parse(String rule) {
+        if (rule == null || rule.trim().isEmpty()) {
+            throw new RuleEngineException("Rule string cannot be null or empty");
+        }
+        RuleLexer lexer = new RuleLexer(rule);
+        Node root = expression(lexer, OR_PRECEDENCE);
+        if (lexer.type() != RuleLexer.TokenType.END) {
+            throw lexer.error("Unexpected '" + lexer.text() + "'");
+        }
+        return root;
+    }
+
+    private Node expression(RuleLexer lexer, int minPrecedence) {
+        Node left = unary(lexer);
+        while (true) {
+            int precedence = precedence(lexer.type());
+            if (precedence < minPrecedence) {
+                return left;
+            }
+            String operator = lexer.type() == RuleLexer.TokenType.AND ? "AND" : "OR";
+            lexer.next();
+            Node right = expression(lexer, precedence + 1);
+            left = new Node("operator", left, right, operator);
+        }
+    }
+
+    private Node unary(RuleLexer lexer) {
+        switch (lexer.type()) {
+            case NOT:
+                lexer.next();
+                return new Node("operator", unary(lexer), null, "NOT");
+            case LEFT_PAREN:
+                lexer.next();
+                Node inner = expression(lexer, OR_PRECEDENCE);
+                if (lexer.type() != RuleLexer.TokenType.RIGHT_PAREN) {
+                    throw lexer.error("Missing closing parenthesis");
+                }
+                lexer.next();
+                return inner;
+            default:
+                return comparison(lexer);
+        }
+    }
+
+    private Node comparison(RuleLexer lexer) {
+        Attribute.AttributeType leftType = typeOf(lexer);
+        Node left = operand(lexer);
+        if (lexer.type() != RuleLexer.TokenType.COMPARISON) {
+            return left; // a bare operand, kept as a leaf
+        }
+        String operator = lexer.text();
+        int position = lexer.start();
+        lexer.next();
+        Attribute.AttributeType rightType = typeOf(lexer);
+        Node right = operand(lexer);
+        checkTypes(left.getValue(), leftType, operator, right.getValue(), rightType, position);
+        return new Node("operator", left, right, operator);
+    }
+
+    // Static type of the current operand token, or null if it is not known
+    private Attribute.AttributeType typeOf(RuleLexer lexer) {
+        switch (lexer.type()) {
+            case NUMBER:
+                return Attribute.AttributeType.NUMBER;
+            case STRING:
+                return Attribute.AttributeType.STRING;
+            case IDENTIFIER:
+                return attributeTypes.apply(lexer.text());
+            default:
+                return null;
+        }
+    }
+
+    private static void checkTypes(String left, Attribute.AttributeType leftType, String operator,
+                                   String right, Attribute.AttributeType rightType, int position) {
+        if (">".equals(operator) || "<".equals(operator)) {
+            if (leftType != null && leftType != Attribute.AttributeType.NUMBER) {
+                throw typeError(left, leftType, operator, position);
+            }
+            if (rightType != null && rightType != Attribute.AttributeType.NUMBER) {
+                throw typeError(right, rightType, operator, position);
+            }
+        } else if (leftType != null && rightType != null && leftType != rightType
+                && leftType != Attribute.AttributeType.BOOLEAN && rightType != Attribute.AttributeType.BOOLEAN) {
+            throw new RuleEngineException("Type mismatch: cannot compare " + left + " (" + leftType + ") with "
+                    + right + " (" + rightType + ") at position " + position);
+        }
+    }
+
+    private static RuleEngineException typeError(String operand, Attribute.AttributeType type, String operator, int position) {
+        return new RuleEngineException("Type mismatch: operator " + operator + " needs numbers but " + operand
+                + " is " + type + " at position " + position);
+    }
+
+    private Node operand(RuleLexer lexer) {
+        RuleLexer.TokenType type = lexer.type();
+        if (type != RuleLexer.TokenType.IDENTIFIER && type != RuleLexer.TokenType.NUMBER && type != RuleLexer.TokenType.STRING) {
+            throw lexer.error(type == RuleLexer.TokenType.END ? "Unexpected end of rule" : "Expected an operand but found '" + lexer.text() + "'");
+        }
+        String text = lexer.text();
+        if (type == RuleLexer.TokenType.IDENTIFIER && !identifierValidator.test(text)) {
+            throw new RuleEngineException("Invalid attribute or value: " + text);
+        }
+        lexer.next();
+        return new Node("operand", null, null, text);
+    }
+
+    private static int precedence(RuleLexer.TokenType type) {
+        if (type == RuleLexer.TokenType.AND) {
+            return AND_PRECEDENCE;
+        }
+        if (type == RuleLexer.TokenType.OR) {
+            return OR_PRECEDENCE;
+        }
+        return 0;
+    }
+
+    /**
+     * Renders a tree back into rule syntax, parenthesising every AND/OR group. Parsing the
+     * result yields an equivalent tree, so the output also serves as a canonical form.
+     */
+    public static String format(Node node) {
+        if (node == null) {
+            return "";
+        }
+        if (!"operator".equals(node.getType())) {
+            return node.getValue();
+        }
+        switch (node.getValue()) {
+            case "AND":
+            case "OR":
+                return "(" + format(node.getLeft()) + " " + node.getValue() + " " + format(node.getRight()) + ")";
+            case "NOT":
+                return "NOT " + format(node.getLeft());
+            default:
+                return format(node.getLeft()) + " " + node.getValue() + " " + format(node.getRight());
+        }
+    }
+}
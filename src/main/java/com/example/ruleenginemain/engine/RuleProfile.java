@@ -0,0 +1,250 @@
+package com.example.ruleenginemain.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-node evaluation statistics of one compiled rule, aggregated over all profiled
+ * evaluations since the profile was created.
+ * <p>
+ * A profiled evaluation walks the condition tree itself instead of calling
+ * {@link Condition#test}, visiting AND/OR children in their current adaptive order and
+ * recording, for every node, how often it was visited, how often it held, how often it
+ * settled an AND/OR before its last child, and the time spent in it. Ordinary evaluation
+ * never touches a profile, so profiling costs nothing while it is not used.
+ * <p>
+ * Nodes are identified by their path in the compiled tree, children numbered as written:
+ * the root is {@code 0}, its second child {@code 0.1}. Statistics are updated with
+ * {@link LongAdder}s, so a profile may be shared by concurrent evaluations.
+ */
+public final class RuleProfile {
+
+    private final Condition condition;
+    private final ProfileNode root;
+    private final long startedAt = System.currentTimeMillis();
+    private final LongAdder evaluations = new LongAdder();
+
+    public RuleProfile(Condition condition) {
+        this.condition = condition;
+        this.root = new ProfileNode("0", condition);
+    }
+
+    // True if the profile was built for this compiled condition
+    public boolean isFor(Condition condition) {
+        return this.condition == condition;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    boolean evaluate(Map<String, Object> data) {
+        evaluations.increment();
+        return root.evaluate(data);
+    }
+
+    public Snapshot snapshot() {
+        List<NodeStats> nodes = new ArrayList<>();
+        root.collect(0, nodes);
+        return new Snapshot(startedAt, evaluations.sum(), nodes);
+    }
+
+    /**
+     * The profile in collapsed-stack format, one line per node with its self time in
+     * nanoseconds, e.g. {@code rule-7;AND;age > 30.0 1250}. Flame graph tools such as
+     * flamegraph.pl or speedscope render it directly.
+     */
+    public String folded(String rootFrame) {
+        StringBuilder sb = new StringBuilder();
+        root.fold(frame(rootFrame), sb);
+        return sb.toString();
+    }
+
+    // ';' separates frames and the last space separates the value
+    private static String frame(String label) {
+        return label.replace(';', ',').replace('\n', ' ');
+    }
+
+    private static final class ProfileNode {
+        private final String path;
+        private final String label;
+        private final Condition condition;
+        private final boolean and;
+        private final boolean or;
+        private final boolean not;
+        private final Condition[] written;
+        private final ProfileNode[] children;
+        // Children of a junction are distinct instances, so the reordered ones are found by identity
+        private final Map<Condition, ProfileNode> byCondition = new IdentityHashMap<>();
+
+        private final LongAdder visits = new LongAdder();
+        private final LongAdder satisfied = new LongAdder();
+        private final LongAdder shortCircuits = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private ProfileNode(String path, Condition condition) {
+            this.path = path;
+            this.condition = condition;
+            this.and = condition instanceof Conditions.And;
+            this.or = condition instanceof Conditions.Or;
+            this.not = condition instanceof Conditions.Not;
+            if (and || or) {
+                written = and ? ((Conditions.And) condition).getChildren() : ((Conditions.Or) condition).getChildren();
+            } else if (not) {
+                written = new Condition[]{((Conditions.Not) condition).getChild()};
+            } else {
+                written = new Condition[0];
+            }
+            this.children = new ProfileNode[written.length];
+            for (int i = 0; i < written.length; i++) {
+                children[i] = new ProfileNode(path + "." + i, written[i]);
+                byCondition.put(written[i], children[i]);
+            }
+            this.label = and ? "AND" : or ? "OR" : not ? "NOT" : condition.toString();
+        }
+
+        private boolean evaluate(Map<String, Object> data) {
+            long start = System.nanoTime();
+            try {
+                boolean result = and || or ? junction(data) : not ? !children[0].evaluate(data) : condition.test(data);
+                if (result) {
+                    satisfied.increment();
+                }
+                return result;
+            } finally {
+                visits.increment();
+                nanos.add(System.nanoTime() - start);
+            }
+        }
+
+        private boolean junction(Map<String, Object> data) {
+            Condition[] order = and ? ((Conditions.And) condition).getEvaluationOrder()
+                    : ((Conditions.Or) condition).getEvaluationOrder();
+            for (int i = 0; i < order.length; i++) {
+                ProfileNode child = byCondition.get(order[i]);
+                // A child the profile does not know is still evaluated, just not recorded
+                boolean result = child != null ? child.evaluate(data) : order[i].test(data);
+                if (result != and) {
+                    if (i < order.length - 1) {
+                        shortCircuits.increment();
+                    }
+                    return !and;
+                }
+            }
+            return and;
+        }
+
+        private void collect(int depth, List<NodeStats> nodes) {
+            long total = nanos.sum();
+            long childNanos = 0;
+            for (ProfileNode child : children) {
+                childNanos += child.nanos.sum();
+            }
+            nodes.add(new NodeStats(path, depth, label, visits.sum(), satisfied.sum(), shortCircuits.sum(),
+                    total, Math.max(0, total - childNanos)));
+            for (ProfileNode child : children) {
+                child.collect(depth + 1, nodes);
+            }
+        }
+
+        private void fold(String stack, StringBuilder sb) {
+            String frames = stack + ";" + frame(label);
+            long childNanos = 0;
+            for (ProfileNode child : children) {
+                childNanos += child.nanos.sum();
+                child.fold(frames, sb);
+            }
+            long self = Math.max(0, nanos.sum() - childNanos);
+            if (self > 0) {
+                sb.append(frames).append(' ').append(self).append('\n');
+            }
+        }
+    }
+
+    public static class Snapshot {
+        private final long startedAt;
+        private final long evaluations;
+        private final List<NodeStats> nodes;
+
+        public Snapshot(long startedAt, long evaluations, List<NodeStats> nodes) {
+            this.startedAt = startedAt;
+            this.evaluations = evaluations;
+            this.nodes = Collections.unmodifiableList(nodes);
+        }
+
+        // Epoch millis at which the aggregation window started
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        // Pre-order, with depth for indentation
+        public List<NodeStats> getNodes() {
+            return nodes;
+        }
+    }
+
+    public static class NodeStats {
+        private final String path;
+        private final int depth;
+        private final String label;
+        private final long visits;
+        private final long satisfied;
+        private final long shortCircuits;
+        private final long totalNanos;
+        private final long selfNanos;
+
+        public NodeStats(String path, int depth, String label, long visits, long satisfied, long shortCircuits,
+                         long totalNanos, long selfNanos) {
+            this.path = path;
+            this.depth = depth;
+            this.label = label;
+            this.visits = visits;
+            this.satisfied = satisfied;
+            this.shortCircuits = shortCircuits;
+            this.totalNanos = totalNanos;
+            this.selfNanos = selfNanos;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getVisits() {
+            return visits;
+        }
+
+        public long getSatisfied() {
+            return satisfied;
+        }
+
+        // Times an AND/OR settled its result before evaluating its last child
+        public long getShortCircuits() {
+            return shortCircuits;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        // Time not spent in child nodes
+        public long getSelfNanos() {
+            return selfNanos;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.ruleenginemain.exception;
+
+// Thrown when an evaluation request or scoring job is shed because the engine is saturated
+public class EvaluationRejectedException extends RuleEngineException {
+    public EvaluationRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.ruleenginemain.exception;
+
+// Thrown when an edit loses to another edit of the same rule saved since it was read
+public class RuleConflictException extends RuleEngineException {
+    public RuleConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
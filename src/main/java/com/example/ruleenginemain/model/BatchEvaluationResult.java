@@ -0,0 +1,54 @@
+package com.example.ruleenginemain.model;
+
+import java.util.Map;
+
+/**
+ * Outcome of evaluating one rule against a batch of records. {@code results[i]} is the result
+ * for the i-th input record; records that could not be evaluated are reported as not matching
+ * and listed in {@code errors} by index. All records are evaluated against the same version
+ * of the rule.
+ */
+public class BatchEvaluationResult {
+    private final Long ruleId;
+    private final long ruleVersion;
+    private final boolean[] results;
+    private final int matchedCount;
+    private final Map<Integer, String> errors;
+
+    public BatchEvaluationResult(Long ruleId, boolean[] results, int matchedCount, Map<Integer, String> errors) {
+        this(ruleId, 0, results, matchedCount, errors);
+    }
+
+    public BatchEvaluationResult(Long ruleId, long ruleVersion, boolean[] results, int matchedCount,
+                                 Map<Integer, String> errors) {
+        this.ruleId = ruleId;
+        this.ruleVersion = ruleVersion;
+        this.results = results;
+        this.matchedCount = matchedCount;
+        this.errors = errors;
+    }
+
+    public Long getRuleId() {
+        return ruleId;
+    }
+
+    public long getRuleVersion() {
+        return ruleVersion;
+    }
+
+    public int getTotal() {
+        return results.length;
+    }
+
+    public int getMatchedCount() {
+        return matchedCount;
+    }
+
+    public boolean[] getResults() {
+        return results;
+    }
+
+    public Map<Integer, String> getErrors() {
+        return errors;
+    }
+}
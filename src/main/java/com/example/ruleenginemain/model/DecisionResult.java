@@ -0,0 +1,36 @@
+package com.example.ruleenginemain.model;
+
+import java.util.List;
+
+/**
+ * Outcome of evaluating a decision set against one fact: the ids of the rules that hold, in
+ * priority order. In first-match mode the list holds at most the winning rule.
+ */
+public class DecisionResult {
+    private final Long decisionSetId;
+    private final DecisionSet.Mode mode;
+    private final List<Long> matchedRuleIds;
+
+    public DecisionResult(Long decisionSetId, DecisionSet.Mode mode, List<Long> matchedRuleIds) {
+        this.decisionSetId = decisionSetId;
+        this.mode = mode;
+        this.matchedRuleIds = matchedRuleIds;
+    }
+
+    public Long getDecisionSetId() {
+        return decisionSetId;
+    }
+
+    public DecisionSet.Mode getMode() {
+        return mode;
+    }
+
+    public List<Long> getMatchedRuleIds() {
+        return matchedRuleIds;
+    }
+
+    // Highest-priority rule that holds, or null if none does
+    public Long getDecision() {
+        return matchedRuleIds.isEmpty() ? null : matchedRuleIds.get(0);
+    }
+}
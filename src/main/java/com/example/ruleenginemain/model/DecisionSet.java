@@ -0,0 +1,106 @@
+package com.example.ruleenginemain.model;
+
+import jakarta.persistence.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An ordered group of rules evaluated together against one fact. Rules are tried by
+ * descending priority, ties in the order they were listed; {@link Mode#FIRST_MATCH} stops
+ * at the first rule that holds, {@link Mode#ALL_MATCH} reports every rule that holds.
+ */
+@Entity
+@Table(name = "decision_sets")
+public class DecisionSet {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Mode mode;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "decision_set_rules", joinColumns = @JoinColumn(name = "decision_set_id"))
+    @OrderColumn(name = "position")
+    private List<Entry> rules = new ArrayList<>();
+
+    public DecisionSet(String name, Mode mode, List<Entry> rules) {
+        this.name = name;
+        this.mode = mode;
+        this.rules = rules;
+    }
+
+    public DecisionSet() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public List<Entry> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<Entry> rules) {
+        this.rules = rules;
+    }
+
+    public enum Mode {
+        FIRST_MATCH, ALL_MATCH
+    }
+
+    @Embeddable
+    public static class Entry {
+        @Column(name = "rule_id", nullable = false)
+        private Long ruleId;
+
+        @Column(nullable = false)
+        private int priority;
+
+        public Entry(Long ruleId, int priority) {
+            this.ruleId = ruleId;
+            this.priority = priority;
+        }
+
+        public Entry() {}
+
+        public Long getRuleId() {
+            return ruleId;
+        }
+
+        public void setRuleId(Long ruleId) {
+            this.ruleId = ruleId;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public void setPriority(int priority) {
+            this.priority = priority;
+        }
+    }
+}
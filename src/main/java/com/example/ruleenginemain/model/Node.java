@@ -1,24 +1,26 @@
 package com.example.ruleenginemain.model;
 
-import javax.persistence.*;
+import jakarta.persistence.*;
 
 @Entity
 @Table(name = "nodes")
 public class Node {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "nodes_seq")
+    @SequenceGenerator(name = "nodes_seq", sequenceName = "nodes_seq", allocationSize = 50)
     private Long id;
 
     private String type; // "operator" for AND/OR, "operand" for conditions
 
-    @ManyToOne
+    @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinColumn(name = "left_node_id")
     private Node left; // Reference to the left child
 
-    @ManyToOne
+    @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinColumn(name = "right_node_id")
     private Node right; // Reference to the right child (for operators)
 
+    @Column(name = "node_value") // VALUE is a reserved word in H2 2.x
     private String value; // Optional value for operand nodes (e.g., number for comparisons)
 
     // Constructor
@@ -0,0 +1,133 @@
+package com.example.ruleenginemain.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of a {@link Node} tree, stored in a single column of the rule row.
+ * <p>
+ * Nodes are written in pre-order, each as one tag byte. Operators the parser produces get
+ * their own tag, so a comparison costs one byte plus its two operand strings; operand
+ * values are length-prefixed UTF-8. Anything else falls back to a generic tag carrying the
+ * node's type and value, so every tree round-trips.
+ */
+public final class NodeCodec {
+
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte OPERAND = 1;
+    private static final byte GENERIC = 2;
+    private static final String[] OPERATORS = {"AND", "OR", "NOT", ">", "<", "=", "!="};
+    private static final byte FIRST_OPERATOR = 3;
+
+    private NodeCodec() {
+    }
+
+    public static byte[] encode(Node root) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(VERSION);
+        write(root, out);
+        return out.toByteArray();
+    }
+
+    public static Node decode(byte[] bytes) {
+        if (bytes.length == 0 || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported rule tree encoding");
+        }
+        int[] position = {1};
+        Node root = read(bytes, position);
+        if (position[0] != bytes.length) {
+            throw new IllegalArgumentException("Trailing bytes after rule tree");
+        }
+        return root;
+    }
+
+    private static void write(Node node, ByteArrayOutputStream out) {
+        if (node == null) {
+            out.write(NULL);
+            return;
+        }
+        if ("operand".equals(node.getType()) && node.getValue() != null) {
+            out.write(OPERAND);
+            writeString(node.getValue(), out);
+            return;
+        }
+        int operator = "operator".equals(node.getType()) ? operatorIndex(node.getValue()) : -1;
+        if (operator >= 0) {
+            out.write(FIRST_OPERATOR + operator);
+        } else {
+            out.write(GENERIC);
+            writeString(node.getType(), out);
+            writeString(node.getValue(), out);
+        }
+        write(node.getLeft(), out);
+        write(node.getRight(), out);
+    }
+
+    private static Node read(byte[] bytes, int[] position) {
+        byte tag = bytes[position[0]++];
+        switch (tag) {
+            case NULL:
+                return null;
+            case OPERAND:
+                return new Node("operand", null, null, readString(bytes, position));
+            case GENERIC: {
+                String type = readString(bytes, position);
+                String value = readString(bytes, position);
+                Node left = read(bytes, position);
+                return new Node(type, left, read(bytes, position), value);
+            }
+            default: {
+                int operator = tag - FIRST_OPERATOR;
+                if (operator < 0 || operator >= OPERATORS.length) {
+                    throw new IllegalArgumentException("Unknown node tag " + tag);
+                }
+                Node left = read(bytes, position);
+                return new Node("operator", left, read(bytes, position), OPERATORS[operator]);
+            }
+        }
+    }
+
+    private static int operatorIndex(String value) {
+        for (int i = 0; i < OPERATORS.length; i++) {
+            if (OPERATORS[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Length + 1 as an unsigned varint (0 marks null), followed by the UTF-8 bytes
+    private static void writeString(String value, ByteArrayOutputStream out) {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        int length = utf8.length + 1;
+        while ((length & ~0x7F) != 0) {
+            out.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.write(length);
+        out.write(utf8, 0, utf8.length);
+    }
+
+    private static String readString(byte[] bytes, int[] position) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position[0]++];
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        if (length == 0) {
+            return null;
+        }
+        String value = new String(bytes, position[0], length - 1, StandardCharsets.UTF_8);
+        position[0] += length - 1;
+        return value;
+    }
+}
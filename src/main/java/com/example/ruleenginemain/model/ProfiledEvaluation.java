@@ -0,0 +1,31 @@
+package com.example.ruleenginemain.model;
+
+import com.example.ruleenginemain.engine.RuleProfile;
+
+/**
+ * Result of a profiled evaluation together with the rule's profile so far, i.e. the
+ * per-node statistics aggregated over the current profiling window including this record.
+ */
+public class ProfiledEvaluation {
+    private final Long ruleId;
+    private final boolean result;
+    private final RuleProfile.Snapshot profile;
+
+    public ProfiledEvaluation(Long ruleId, boolean result, RuleProfile.Snapshot profile) {
+        this.ruleId = ruleId;
+        this.result = result;
+        this.profile = profile;
+    }
+
+    public Long getRuleId() {
+        return ruleId;
+    }
+
+    public boolean getResult() {
+        return result;
+    }
+
+    public RuleProfile.Snapshot getProfile() {
+        return profile;
+    }
+}
@@ -1,27 +1,54 @@
 package com.example.ruleenginemain.model;
 
-import javax.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.*;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
 @Table(name = "rules")
 public class Rule {
+    // Ids come from a sequence in blocks of 50, so Hibernate can batch inserts (identity columns cannot be batched)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rules_seq")
+    @SequenceGenerator(name = "rules_seq", sequenceName = "rules_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String ruleString;
 
+    // Incremented by every save; evaluations report the version they used
+    @Version
+    private Long version;
+
+    // Row-per-node storage; kept for rules saved before the compact encoding was introduced
     @OneToOne(cascade = CascadeType.ALL)
     @JoinColumn(name = "root_node_id", referencedColumnName = "id")
     private Node rootNode;
 
+    // Whole tree encoded with NodeCodec in a single column
+    @Lob
+    @Column(name = "ast")
+    private byte[] ast;
+
+    @Transient
+    private Node decodedRoot;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "rule_tags", joinColumns = @JoinColumn(name = "rule_id"))
+    @Column(name = "tag")
+    private Set<String> tags = new HashSet<>();
+
     // Constructor
     public Rule(String ruleString, Node rootNode) {
         this.ruleString = ruleString;
         this.rootNode = rootNode;
     }
 
+    // Default constructor (required by JPA)
+    public Rule() {}
+
     // Getters
     public Long getId() {
         return id;
@@ -31,8 +58,28 @@ public class Rule {
         return ruleString;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    // The rule's tree, from whichever storage the rule currently uses
     public Node getRootNode() {
-        return rootNode;
+        if (rootNode != null) {
+            return rootNode;
+        }
+        if (decodedRoot == null && ast != null) {
+            decodedRoot = NodeCodec.decode(ast);
+        }
+        return decodedRoot;
+    }
+
+    @JsonIgnore
+    public boolean isStoredAsNodes() {
+        return rootNode != null;
+    }
+
+    public Set<String> getTags() {
+        return tags;
     }
 
     // Setters
@@ -40,15 +87,33 @@ public class Rule {
         this.id = id;
     }
 
+    // For rules restored from a snapshot rather than loaded by JPA
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public void setRuleString(String ruleString) {
         this.ruleString = ruleString;
     }
 
     public void setRootNode(Node rootNode) {
         this.rootNode = rootNode;
+        this.ast = null;
+        this.decodedRoot = null;
+    }
+
+    // Stores the tree as one encoded column instead of one row per node
+    public void setCompactRoot(Node root) {
+        this.ast = NodeCodec.encode(root);
+        this.decodedRoot = root;
+        this.rootNode = null;
+    }
+
+    public void setTags(Set<String> tags) {
+        this.tags = tags;
     }
 
     public boolean evaluate(java.util.Map<String, Object> data) {
-        return rootNode.evaluate(data);
+        return getRootNode().evaluate(data);
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.example.ruleenginemain.model;
+
+/**
+ * Outcome of evaluating one record, with the version of the rule that produced it.
+ */
+public class RuleEvaluation {
+    private final Long ruleId;
+    private final long ruleVersion;
+    private final boolean matched;
+
+    public RuleEvaluation(Long ruleId, long ruleVersion, boolean matched) {
+        this.ruleId = ruleId;
+        this.ruleVersion = ruleVersion;
+        this.matched = matched;
+    }
+
+    public Long getRuleId() {
+        return ruleId;
+    }
+
+    public long getRuleVersion() {
+        return ruleVersion;
+    }
+
+    public boolean isMatched() {
+        return matched;
+    }
+}
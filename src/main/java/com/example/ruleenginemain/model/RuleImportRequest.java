@@ -0,0 +1,36 @@
+package com.example.ruleenginemain.model;
+
+import java.util.Set;
+
+/**
+ * One rule of a bulk import: the rule string and optional tags. Ids, versions and trees are
+ * assigned by the engine, so they cannot be submitted.
+ */
+public class RuleImportRequest {
+    private String ruleString;
+    private Set<String> tags;
+
+    public RuleImportRequest() {
+    }
+
+    public RuleImportRequest(String ruleString, Set<String> tags) {
+        this.ruleString = ruleString;
+        this.tags = tags;
+    }
+
+    public String getRuleString() {
+        return ruleString;
+    }
+
+    public void setRuleString(String ruleString) {
+        this.ruleString = ruleString;
+    }
+
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(Set<String> tags) {
+        this.tags = tags;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.ruleenginemain.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk rule import. {@code ruleIds[i]} is the id given to the i-th submitted
+ * rule, or null if it was not imported; the reason is in {@code errors} under the same index.
+ */
+public class RuleImportResult {
+    private final List<Long> ruleIds;
+    private final int importedCount;
+    private final Map<Integer, String> errors;
+
+    public RuleImportResult(List<Long> ruleIds, int importedCount, Map<Integer, String> errors) {
+        this.ruleIds = ruleIds;
+        this.importedCount = importedCount;
+        this.errors = errors;
+    }
+
+    public int getTotal() {
+        return ruleIds.size();
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public List<Long> getRuleIds() {
+        return ruleIds;
+    }
+
+    public Map<Integer, String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.ruleenginemain.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A rule scored over a local CSV or NDJSON file, with its progress. Matching records are
+ * written to the output file as {@code offset,id} lines - the byte offset of the record in
+ * the input and the value of its id field - in input order. Jobs live in memory only.
+ */
+public class ScoringJob {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private final Long id;
+    private final Long ruleId;
+    private final String input;
+    private final String output;
+    private final Format format;
+    private final String idField;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder bytesProcessed = new LongAdder();
+    private volatile long bytesTotal;
+    private volatile State state = State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile long elapsedNanos = -1;
+    private volatile String error;
+
+    public ScoringJob(Long id, Long ruleId, String input, String output, Format format, String idField) {
+        this.id = id;
+        this.ruleId = ruleId;
+        this.input = input;
+        this.output = output;
+        this.format = format;
+        this.idField = idField;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getRuleId() {
+        return ruleId;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public String getIdField() {
+        return idField;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getMatched() {
+        return matched.sum();
+    }
+
+    // Records that could not be parsed or evaluated
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getBytesProcessed() {
+        return bytesProcessed.sum();
+    }
+
+    public long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    public Duration getElapsed() {
+        return Duration.ofNanos(elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - startNanos);
+    }
+
+    public double getRowsPerSecond() {
+        long nanos = getElapsed().toNanos();
+        return nanos == 0 ? 0 : getRows() * 1e9 / nanos;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+
+    // Called by the scoring workers as each chunk completes
+    public void recordChunk(long chunkRows, long chunkMatched, long chunkFailed, long chunkBytes) {
+        rows.add(chunkRows);
+        matched.add(chunkMatched);
+        failed.add(chunkFailed);
+        bytesProcessed.add(chunkBytes);
+    }
+
+    public void setBytesTotal(long bytesTotal) {
+        this.bytesTotal = bytesTotal;
+    }
+
+    // Moves a running job to its final state; a job that already finished keeps its state
+    public synchronized boolean finish(State state, String error) {
+        if (isFinished()) {
+            return false;
+        }
+        this.error = error;
+        this.elapsedNanos = System.nanoTime() - startNanos;
+        this.finishedAt = Instant.now();
+        this.state = state;
+        return true;
+    }
+}
@@ -21,24 +21,52 @@ public class UserDefinedFunction {
 }*/
 package com.example.ruleenginemain.model;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
 public class UserDefinedFunction {
     private String name;
     private Function<Map<String, Object>, Object> function; // Adjusted type
+    // A pure function's result depends only on the record, so it can be reused
+    private boolean pure;
+    // Attributes a pure function reads; when given, results are also cached across records by their values
+    private List<String> inputs;
+    // Longest a single call may take, or null for no limit
+    private Duration timeout;
 
     public UserDefinedFunction(String name, Function<Map<String, Object>, Object> function) {
+        this(name, function, false, Collections.emptyList(), null);
+    }
+
+    public UserDefinedFunction(String name, Function<Map<String, Object>, Object> function,
+                               boolean pure, List<String> inputs, Duration timeout) {
         this.name = name;
         this.function = function;
+        this.pure = pure;
+        this.inputs = inputs == null ? Collections.emptyList() : Collections.unmodifiableList(inputs);
+        this.timeout = timeout;
     }
 
     public String getName() {
         return name;
     }
 
+    public boolean isPure() {
+        return pure;
+    }
+
+    public List<String> getInputs() {
+        return inputs;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
     public Object apply(Map<String, Object> input) { // Adjusted parameter
         return function.apply(input);
     }
 }
-
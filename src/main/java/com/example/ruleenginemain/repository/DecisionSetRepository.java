@@ -0,0 +1,9 @@
+package com.example.ruleenginemain.repository;
+
+import com.example.ruleenginemain.model.DecisionSet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DecisionSetRepository extends JpaRepository<DecisionSet, Long> {
+}
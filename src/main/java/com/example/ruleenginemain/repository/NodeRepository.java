@@ -0,0 +1,18 @@
+package com.example.ruleenginemain.repository;
+
+import com.example.ruleenginemain.model.Node;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface NodeRepository extends JpaRepository<Node, Long> {
+
+    // Clears the child links so the table can be emptied regardless of row order
+    @Transactional
+    @Modifying
+    @Query("update Node n set n.left = null, n.right = null")
+    int unlinkAll();
+}
@@ -2,9 +2,20 @@ package com.example.ruleenginemain.repository;
 
 import com.example.ruleenginemain.model.Rule;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface RuleRepository extends JpaRepository<Rule, Long> {
     // You can add custom query methods here if needed
+
+    List<Rule> findByRootNodeIsNotNull();
+
+    long countByRootNodeIsNotNull();
+
+    // {id, version} of every rule, to tell which rules changed without loading them
+    @Query("select r.id, r.version from Rule r")
+    List<Object[]> findAllVersions();
 }
@@ -6,38 +6,80 @@ import com.example.ruleenginemain.repository.AttributeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class AttributeService {
 
     private final AttributeRepository attributeRepository;
 
+    // Read-mostly snapshot of the catalog (name -> type), loaded on first use and replaced
+    // wholesale on every change, so lookups during parsing never touch the database
+    private volatile Map<String, Attribute.AttributeType> catalog;
+
     @Autowired
     public AttributeService(AttributeRepository attributeRepository) {
         this.attributeRepository = attributeRepository;
     }
 
-    public Attribute createAttribute(String name, Attribute.AttributeType type) {
-        if (attributeRepository.findByName(name).isPresent()) {
+    public synchronized Attribute createAttribute(String name, Attribute.AttributeType type) {
+        if (catalog().containsKey(name)) {
             throw new RuleEngineException("Attribute with name " + name + " already exists");
         }
-        return attributeRepository.save(new Attribute(name, type));
+        Attribute saved = attributeRepository.save(new Attribute(name, type));
+        Map<String, Attribute.AttributeType> updated = new HashMap<>(catalog());
+        updated.put(saved.getName(), saved.getType());
+        catalog = Collections.unmodifiableMap(updated);
+        return saved;
     }
 
     public List<Attribute> getAllAttributes() {
         return attributeRepository.findAll();
     }
 
+    // Catalog type of the attribute, or null if it is not in the catalog
+    public Attribute.AttributeType getAttributeType(String name) {
+        return catalog().get(name);
+    }
+
+    // Reloads the snapshot, e.g. after the attributes table was changed outside this service
+    public synchronized void refreshCatalog() {
+        catalog = loadCatalog();
+    }
+
     /*public boolean isValidAttribute(String name) {
         return attributeRepository.findByName(name).isPresent();
     }*/
  // Update isValidAttribute method in AttributeService
     public boolean isValidAttribute(String name) {
-        boolean isValid = attributeRepository.findByName(name).isPresent();
+        boolean isValid = catalog().containsKey(name);
         if (!isValid) {
             throw new RuleEngineException("Invalid attribute: " + name + ". This attribute is not in the catalog.");
         }
         return true;
     }
+
+    private Map<String, Attribute.AttributeType> catalog() {
+        Map<String, Attribute.AttributeType> snapshot = catalog;
+        if (snapshot == null) {
+            synchronized (this) {
+                if (catalog == null) {
+                    catalog = loadCatalog();
+                }
+                snapshot = catalog;
+            }
+        }
+        return snapshot;
+    }
+
+    private Map<String, Attribute.AttributeType> loadCatalog() {
+        Map<String, Attribute.AttributeType> loaded = new HashMap<>();
+        for (Attribute attribute : attributeRepository.findAll()) {
+            loaded.put(attribute.getName(), attribute.getType());
+        }
+        return Collections.unmodifiableMap(loaded);
+    }
 }
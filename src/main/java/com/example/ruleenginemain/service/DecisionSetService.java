@@ -0,0 +1,138 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.engine.CompiledDecisionSet;
+import com.example.ruleenginemain.engine.CompiledRule;
+import com.example.ruleenginemain.engine.FactSchema;
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.DecisionResult;
+import com.example.ruleenginemain.model.DecisionSet;
+import com.example.ruleenginemain.repository.DecisionSetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class DecisionSetService {
+
+    private final DecisionSetRepository decisionSetRepository;
+    private final RuleService ruleService;
+    private final AttributeService attributeService;
+
+    // Compiled sets by id, each with the member rule snapshots it was compiled from
+    private final Map<Long, Compiled> compiled = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DecisionSetService(DecisionSetRepository decisionSetRepository, RuleService ruleService,
+                              AttributeService attributeService) {
+        this.decisionSetRepository = decisionSetRepository;
+        this.ruleService = ruleService;
+        this.attributeService = attributeService;
+    }
+
+    public DecisionSet createDecisionSet(String name, DecisionSet.Mode mode, List<DecisionSet.Entry> rules) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new RuleEngineException("Decision set name cannot be null or empty");
+        }
+        if (mode == null) {
+            throw new RuleEngineException("Decision set mode must be FIRST_MATCH or ALL_MATCH");
+        }
+        if (rules == null || rules.isEmpty()) {
+            throw new RuleEngineException("Decision set must contain at least one rule");
+        }
+        Set<Long> seen = new HashSet<>();
+        for (DecisionSet.Entry entry : rules) {
+            if (entry == null || entry.getRuleId() == null) {
+                throw new RuleEngineException("Rule ID cannot be null");
+            }
+            if (!seen.add(entry.getRuleId())) {
+                throw new RuleEngineException("Rule " + entry.getRuleId() + " is listed more than once");
+            }
+            try {
+                ruleService.getCompiledRule(entry.getRuleId());
+            } catch (RuleEngineException e) {
+                throw new RuleEngineException("Rule " + entry.getRuleId() + " cannot be used: " + e.getMessage(), e);
+            }
+        }
+        return decisionSetRepository.save(new DecisionSet(name, mode, new ArrayList<>(rules)));
+    }
+
+    public DecisionSet getDecisionSet(Long id) {
+        if (id == null) {
+            throw new RuleEngineException("Decision set ID cannot be null");
+        }
+        return decisionSetRepository.findById(id)
+                .orElseThrow(() -> new RuleEngineException("Decision set not found with ID: " + id));
+    }
+
+    public List<DecisionSet> getAllDecisionSets() {
+        return decisionSetRepository.findAll();
+    }
+
+    public void deleteDecisionSet(Long id) {
+        DecisionSet decisionSet = getDecisionSet(id);
+        decisionSetRepository.delete(decisionSet);
+        compiled.remove(id);
+    }
+
+    public DecisionResult evaluate(Long id, Map<String, Object> data) {
+        if (data == null || data.isEmpty()) {
+            throw new RuleEngineException("Data for evaluation cannot be null or empty");
+        }
+        Compiled set = compiled(id);
+        // Attributes are read lazily, so a first-match set that stops early parses only what it read
+        FactSchema schema = ruleService.getFactSchema();
+        try {
+            return new DecisionResult(id, set.mode, set.set.evaluate(schema.view(data, schema.size())));
+        } catch (Exception e) {
+            throw new RuleEngineException("Error evaluating decision set: " + e.getMessage(), e);
+        }
+    }
+
+    // Compiled form of the set, recompiled once one of its own rules has a newer version
+    private Compiled compiled(Long id) {
+        Compiled set = compiled.get(id);
+        if (set != null && isCurrent(set)) {
+            return set;
+        }
+        // Concurrent callers wait for one compilation instead of each compiling the set
+        return compiled.compute(id, (key, current) ->
+                current != null && isCurrent(current) ? current : compile(getDecisionSet(id)));
+    }
+
+    private boolean isCurrent(Compiled set) {
+        for (CompiledRule rule : set.rules) {
+            if (ruleService.getCompiledRule(rule.getRuleId()).getVersion() != rule.getVersion()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Compiled compile(DecisionSet decisionSet) {
+        // Stable sort: equal priorities keep the order they were listed in
+        List<DecisionSet.Entry> entries = new ArrayList<>(decisionSet.getRules());
+        entries.sort(Comparator.comparingInt(DecisionSet.Entry::getPriority).reversed());
+        List<CompiledRule> rules = new ArrayList<>(entries.size());
+        for (DecisionSet.Entry entry : entries) {
+            rules.add(ruleService.getCompiledRule(entry.getRuleId()));
+        }
+        boolean firstMatch = decisionSet.getMode() == DecisionSet.Mode.FIRST_MATCH;
+        return new Compiled(rules, decisionSet.getMode(),
+                new CompiledDecisionSet(decisionSet.getId(), firstMatch, rules, attributeService::getAttributeType));
+    }
+
+    private static final class Compiled {
+        // The snapshots compiled into the set, so staleness is judged by the rules actually used
+        private final List<CompiledRule> rules;
+        private final DecisionSet.Mode mode;
+        private final CompiledDecisionSet set;
+
+        private Compiled(List<CompiledRule> rules, DecisionSet.Mode mode, CompiledDecisionSet set) {
+            this.rules = rules;
+            this.mode = mode;
+            this.set = set;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.exception.EvaluationRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs REST evaluation requests off the servlet threads, so a burst of requests waiting on
+ * rule loads does not exhaust the container's pool.
+ * <p>
+ * Requests run on virtual threads when the JVM provides them (Java 21+) or on a fixed pool of
+ * {@code rule-engine.execution.threads} platform threads. Either way at most {@code threads}
+ * requests run at once and at most {@code queue-capacity} more wait; further requests are
+ * rejected immediately with {@link EvaluationRejectedException}, and a request that waited
+ * longer than {@code queue-timeout} is dropped when its turn comes, since its client has
+ * most likely given up. Shedding early keeps latency of the accepted requests flat.
+ */
+@Component
+public class EvaluationExecutor implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EvaluationExecutor.class);
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final int threads;
+    private final int maxInFlight;
+    private final long queueTimeoutNanos;
+    // With virtual threads every request gets a thread at once, so this bounds how many evaluate
+    private final Semaphore running;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    @Autowired
+    public EvaluationExecutor(RuleEngineProperties properties, RuleMetrics metrics) {
+        RuleEngineProperties.Execution execution = properties.getExecution();
+        this.threads = execution.getThreads() > 0 ? execution.getThreads()
+                : 2 * Runtime.getRuntime().availableProcessors();
+        this.maxInFlight = threads + Math.max(0, execution.getQueueCapacity());
+        this.queueTimeoutNanos = execution.getQueueTimeout() == null ? 0 : execution.getQueueTimeout().toNanos();
+
+        ExecutorService virtualExecutor = execution.getMode() == RuleEngineProperties.ExecutionMode.POOLED
+                ? null : newVirtualThreadExecutor();
+        if (virtualExecutor == null && execution.getMode() == RuleEngineProperties.ExecutionMode.VIRTUAL) {
+            log.warn("Virtual threads are not available on Java {}, evaluating on a pool of {} threads",
+                    System.getProperty("java.version"), threads);
+        }
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual ? virtualExecutor : newPool(threads);
+        this.running = virtual ? new Semaphore(threads) : null;
+        metrics.bindExecutor(this);
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor(), looked up reflectively as it only exists from Java 21
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        // The queue is unbounded because submit() already caps the requests in flight
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                task -> new Thread(task, "rule-eval-" + count.incrementAndGet()));
+    }
+
+    /**
+     * Runs the task asynchronously. The returned future fails with
+     * {@link EvaluationRejectedException} if the request was shed.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            reject(future, "Too many evaluation requests in progress, try again later");
+            return future;
+        }
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> run(task, future, queuedAt));
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            reject(future, "Evaluation executor is shut down");
+        }
+        return future;
+    }
+
+    private <T> void run(Supplier<T> task, CompletableFuture<T> future, long queuedAt) {
+        boolean acquired = false;
+        try {
+            if (running != null) {
+                running.acquire();
+                acquired = true;
+            }
+            if (queueTimeoutNanos > 0 && System.nanoTime() - queuedAt > queueTimeoutNanos) {
+                expired.increment();
+                reject(future, "Evaluation request waited too long in the queue, try again later");
+                return;
+            }
+            future.complete(task.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(future, "Evaluation request was interrupted");
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        } finally {
+            if (acquired) {
+                running.release();
+            }
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void reject(CompletableFuture<?> future, String message) {
+        rejected.increment();
+        future.completeExceptionally(new EvaluationRejectedException(message));
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // Requests accepted and not yet finished, running or waiting
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    // Requests shed, including those dropped after waiting too long
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // Requests dropped after waiting longer than the queue timeout
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
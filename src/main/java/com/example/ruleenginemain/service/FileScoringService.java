@@ -0,0 +1,413 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.engine.ColumnarBatch;
+import com.example.ruleenginemain.engine.CompiledRule;
+import com.example.ruleenginemain.engine.CsvRecord;
+import com.example.ruleenginemain.exception.EvaluationRejectedException;
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.ScoringJob;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scores a rule over a large CSV or NDJSON file on the local disk, without pushing the
+ * records through the REST API.
+ * <p>
+ * The input is memory-mapped in line-aligned chunks of {@code rule-engine.scoring.chunk-size}
+ * bytes and evaluated on one worker pool of {@code parallelism} threads shared by all jobs.
+ * At most {@code max-concurrent-jobs} jobs run at once; further submissions are rejected
+ * with {@link EvaluationRejectedException} rather than queued. CSV records are read in
+ * place from the mapping (see {@link CsvRecord}); NDJSON lines are parsed with Jackson. Each
+ * chunk is evaluated column by column in batches like {@link RuleService#evaluateBatch}, and
+ * the matches are appended to the output in input order as chunks complete. The output is
+ * written to a {@code .part} file and moved into place once the job completes, so a reader
+ * never sees a partial result.
+ * <p>
+ * A job scores the rule as compiled when it was submitted, even if the rule is modified
+ * while the job runs. Input and output must be inside {@code rule-engine.scoring.directory}.
+ */
+@Service
+public class FileScoringService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(FileScoringService.class);
+
+    // Records handed to the columnar evaluator at once
+    private static final int BATCH_SIZE = 1024;
+    // Chunks are mapped as ByteBuffers, which are indexed by int
+    private static final long MAX_CHUNK_SIZE = 1L << 30;
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final RuleService ruleService;
+    private final AttributeService attributeService;
+    private final RuleMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long chunkSize;
+    private final int parallelism;
+    private final int maxConcurrentJobs;
+    // Held by each running job, from submission until its coordinator returns
+    private final Semaphore running;
+    private final ExecutorService coordinators;
+    private final ExecutorService workers;
+
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<Long, ScoringJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FileScoringService(RuleService ruleService, AttributeService attributeService, RuleMetrics metrics,
+                              ObjectMapper objectMapper, RuleEngineProperties properties) {
+        this.ruleService = ruleService;
+        this.attributeService = attributeService;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        RuleEngineProperties.Scoring scoring = properties.getScoring();
+        this.directory = scoring.getDirectory() == null || scoring.getDirectory().isBlank()
+                ? null : Paths.get(scoring.getDirectory()).toAbsolutePath().normalize();
+        this.chunkSize = Math.max(4096, Math.min(MAX_CHUNK_SIZE, scoring.getChunkSize().toBytes()));
+        this.parallelism = scoring.getParallelism() > 0 ? scoring.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.maxConcurrentJobs = Math.max(1, scoring.getMaxConcurrentJobs());
+        this.running = new Semaphore(maxConcurrentJobs);
+        this.coordinators = newPool(maxConcurrentJobs, "rule-scoring-job-");
+        this.workers = newPool(parallelism, "rule-scoring-worker-");
+    }
+
+    // Threads are started on demand and stop after a minute idle
+    private static ExecutorService newPool(int threads, String name) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, name + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Starts scoring the rule over the input file. Paths are relative to the scoring
+     * directory; the format is taken from the input's extension if not given, and ids are
+     * read from the {@code id} field if no other is named.
+     */
+    public ScoringJob submit(Long ruleId, String input, String output, ScoringJob.Format format, String idField) {
+        if (directory == null) {
+            throw new RuleEngineException("File scoring is disabled; set rule-engine.scoring.directory to enable it");
+        }
+        if (input == null || input.isBlank() || output == null || output.isBlank()) {
+            throw new RuleEngineException("Input and output files are required");
+        }
+        Path inputPath = inputPath(input);
+        Path outputPath = outputPath(output);
+        if (outputPath.equals(inputPath)) {
+            throw new RuleEngineException("Output file cannot be the input file");
+        }
+        ScoringJob.Format resolvedFormat = format != null ? format : formatOf(inputPath);
+        CompiledRule rule = ruleService.getCompiledRule(ruleId);
+
+        Path base = realDirectory();
+        if (!running.tryAcquire()) {
+            throw new EvaluationRejectedException("Scoring rejected: " + maxConcurrentJobs
+                    + " jobs are already running");
+        }
+        ScoringJob job = new ScoringJob(nextId.incrementAndGet(), ruleId, base.relativize(inputPath).toString(),
+                base.relativize(outputPath).toString(), resolvedFormat,
+                idField == null || idField.isBlank() ? "id" : idField);
+        evictFinishedJobs();
+        jobs.put(job.getId(), job);
+        try {
+            coordinators.execute(() -> {
+                try {
+                    run(job, rule, inputPath, outputPath);
+                } finally {
+                    running.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.release();
+            job.finish(ScoringJob.State.CANCELLED, "Application is shutting down");
+        }
+        return job;
+    }
+
+    public ScoringJob getJob(Long id) {
+        ScoringJob job = jobs.get(id);
+        if (job == null) {
+            throw new RuleEngineException("Scoring job not found with ID: " + id);
+        }
+        return job;
+    }
+
+    public List<ScoringJob> getJobs() {
+        List<ScoringJob> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparing(ScoringJob::getId));
+        return list;
+    }
+
+    // Stops a running job; its partial output is discarded
+    public ScoringJob cancel(Long id) {
+        ScoringJob job = getJob(id);
+        if (!job.finish(ScoringJob.State.CANCELLED, null)) {
+            throw new RuleEngineException("Scoring job " + id + " has already finished");
+        }
+        return job;
+    }
+
+    private Path inputPath(String input) {
+        Path path;
+        try {
+            path = directory.resolve(input).toRealPath();
+        } catch (IOException | InvalidPathException e) {
+            throw new RuleEngineException("Input file not found: " + input);
+        }
+        if (!path.startsWith(realDirectory()) || !Files.isRegularFile(path)) {
+            throw new RuleEngineException("Input must be a file in the scoring directory: " + input);
+        }
+        return path;
+    }
+
+    private Path outputPath(String output) {
+        Path path;
+        Path parent;
+        try {
+            path = directory.resolve(output).normalize();
+            parent = path.getParent().toRealPath();
+        } catch (IOException | InvalidPathException e) {
+            throw new RuleEngineException("Output directory not found: " + output);
+        }
+        if (!parent.startsWith(realDirectory()) || Files.isDirectory(path)) {
+            throw new RuleEngineException("Output must be a file in the scoring directory: " + output);
+        }
+        return parent.resolve(path.getFileName());
+    }
+
+    private Path realDirectory() {
+        try {
+            return directory.toRealPath();
+        } catch (IOException e) {
+            throw new RuleEngineException("Scoring directory does not exist: " + directory);
+        }
+    }
+
+    private static ScoringJob.Format formatOf(Path input) {
+        String name = input.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return ScoringJob.Format.CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) {
+            return ScoringJob.Format.NDJSON;
+        }
+        throw new RuleEngineException("Cannot tell the format of " + input.getFileName() + "; specify CSV or NDJSON");
+    }
+
+    private void evictFinishedJobs() {
+        List<ScoringJob> finished = new ArrayList<>();
+        for (ScoringJob job : jobs.values()) {
+            if (job.isFinished()) {
+                finished.add(job);
+            }
+        }
+        finished.sort(Comparator.comparing(ScoringJob::getId));
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS + 1; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    // Maps the input chunk by chunk, keeps up to 2 x parallelism chunks queued and writes their matches in order
+    private void run(ScoringJob job, CompiledRule rule, Path input, Path output) {
+        Path part = output.resolveSibling(output.getFileName() + ".part");
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+            long size = channel.size();
+            job.setBytesTotal(size);
+            long position = 0;
+            CsvRecord.Header header = null;
+            if (job.getFormat() == ScoringJob.Format.CSV && size > 0) {
+                MappedByteBuffer first = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, chunkSize));
+                int headerEnd = lineEnd(first, 0, first.limit());
+                if (headerEnd == first.limit() && first.limit() < size) {
+                    throw new IOException("CSV header line is longer than the chunk size");
+                }
+                byte[] bytes = new byte[trimCarriageReturn(first, 0, headerEnd)];
+                first.get(0, bytes);
+                header = new CsvRecord.Header(new String(bytes, StandardCharsets.UTF_8), attributeService::getAttributeType);
+                position = Math.min(size, headerEnd + 1L);
+                job.recordChunk(0, 0, 0, position);
+            }
+            while (position < size && !job.isFinished()) {
+                long length = Math.min(chunkSize, size - position);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+                if (position + length < size) {
+                    // End the chunk after its last complete line; the rest starts the next chunk
+                    end = lastLineEnd(chunk, end) + 1;
+                    if (end == 0) {
+                        throw new IOException("Line at offset " + position + " is longer than the chunk size");
+                    }
+                }
+                long offset = position;
+                int limit = end;
+                CsvRecord.Header csv = header;
+                pending.add(workers.submit(() -> score(job, rule, csv, chunk, limit, offset)));
+                position += end;
+                while (pending.size() >= 2 * parallelism) {
+                    out.write(pending.removeFirst().get());
+                }
+            }
+            while (!pending.isEmpty() && !job.isFinished()) {
+                out.write(pending.removeFirst().get());
+            }
+        } catch (ExecutionException e) {
+            fail(job, e.getCause());
+        } catch (Exception e) {
+            fail(job, e);
+        } finally {
+            // Only this job's chunks; the workers carry on with other jobs
+            pending.forEach(future -> future.cancel(true));
+        }
+        try {
+            if (job.isFinished()) {
+                Files.deleteIfExists(part);
+                return;
+            }
+            // Moved before the job reports completion, so a completed job's output is always there
+            Files.move(part, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (job.finish(ScoringJob.State.COMPLETED, null)) {
+                log.info("Scoring job {} scored {} records of {} with rule {} in {} ms ({} records/s), {} matched, {} failed",
+                        job.getId(), job.getRows(), job.getInput(), job.getRuleId(), job.getElapsed().toMillis(),
+                        Math.round(job.getRowsPerSecond()), job.getMatched(), job.getFailed());
+            } else {
+                Files.deleteIfExists(output);
+            }
+        } catch (IOException e) {
+            fail(job, e);
+        }
+    }
+
+    private void fail(ScoringJob job, Throwable error) {
+        if (job.finish(ScoringJob.State.FAILED, error.getMessage())) {
+            log.warn("Scoring job {} over {} failed: {}", job.getId(), job.getInput(), error.toString());
+        }
+    }
+
+    // Evaluates the records of one chunk; returns its output lines
+    private byte[] score(ScoringJob job, CompiledRule rule, CsvRecord.Header header, MappedByteBuffer chunk,
+                         int limit, long offset) throws IOException {
+        long start = System.nanoTime();
+        ByteArrayOutputStream matches = new ByteArrayOutputStream();
+        List<Map<String, Object>> records = new ArrayList<>(BATCH_SIZE);
+        long[] offsets = new long[BATCH_SIZE];
+        boolean[] results = new boolean[BATCH_SIZE];
+        byte[] line = new byte[256];
+        long rows = 0;
+        long matched = 0;
+        long failed = 0;
+        int lineStart = 0;
+        while (lineStart < limit && !job.isFinished()) {
+            int lineEnd = lineEnd(chunk, lineStart, limit);
+            int contentEnd = trimCarriageReturn(chunk, lineStart, lineEnd);
+            if (contentEnd > lineStart) {
+                if (header != null) {
+                    records.add(CsvRecord.of(header, chunk, lineStart, contentEnd));
+                } else {
+                    int length = contentEnd - lineStart;
+                    if (line.length < length) {
+                        line = new byte[Math.max(length, 2 * line.length)];
+                    }
+                    chunk.get(lineStart, line, 0, length);
+                    records.add(parseJson(line, length));
+                }
+                offsets[records.size() - 1] = offset + lineStart;
+            }
+            lineStart = lineEnd + 1;
+            if (records.size() == BATCH_SIZE || (lineStart >= limit && !records.isEmpty())) {
+                Map<Integer, String> errors = new HashMap<>();
+                Arrays.fill(results, false);
+                int batchMatched = ColumnarBatch.evaluate(rule, records, 0, records.size(), results, errors);
+                for (int i = 0; i < records.size(); i++) {
+                    if (results[i]) {
+                        writeMatch(matches, offsets[i], records.get(i), job.getIdField());
+                    }
+                }
+                rows += records.size();
+                matched += batchMatched;
+                failed += errors.size();
+                records.clear();
+            }
+        }
+        job.recordChunk(rows, matched, failed, limit);
+        metrics.recordBatch(job.getRuleId(), (int) rows, (int) matched, (int) failed, System.nanoTime() - start);
+        return matches.toByteArray();
+    }
+
+    // A malformed line becomes a null record, which the evaluator reports as an error
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> parseJson(byte[] line, int length) {
+        try {
+            return objectMapper.readValue(line, 0, length, Map.class);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeMatch(ByteArrayOutputStream out, long offset, Map<String, Object> record, String idField) {
+        Object id = record instanceof CsvRecord ? ((CsvRecord) record).getText(idField) : record.get(idField);
+        String text = id == null ? "" : id.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            text = '"' + text.replace("\"", "\"\"") + '"';
+        }
+        byte[] bytes = (offset + "," + text + "\n").getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    // Index of the newline ending the line that starts at 'from', or 'limit' if there is none
+    private static int lineEnd(MappedByteBuffer buffer, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    private static int lastLineEnd(MappedByteBuffer buffer, int limit) {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int trimCarriageReturn(MappedByteBuffer buffer, int from, int end) {
+        return end > from && buffer.get(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    @Override
+    public void destroy() {
+        for (ScoringJob job : jobs.values()) {
+            job.finish(ScoringJob.State.CANCELLED, "Application is shutting down");
+        }
+        coordinators.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.engine.CompiledRule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, thread-safe cache of compiled rules keyed by rule id.
+ * Entries loaded on a miss expire after the configured TTL; entries published with
+ * {@link #put} - preloaded or saved rules - are current by construction and do not expire.
+ * When the cache grows past its maximum size the least recently used entries are evicted.
+ * <p>
+ * Each entry is an immutable snapshot of one rule version, so reads never lock. A new
+ * version is published by replacing the entry, and an older version - say, one loaded
+ * just before an edit was saved - never replaces a newer one.
+ */
+@Component
+public class RuleCache {
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private volatile int maxSize;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public RuleCache(RuleEngineProperties properties) {
+        this(properties.getCache().getMaxSize(), properties.getCache().getTtl().toNanos());
+    }
+
+    RuleCache(int maxSize, long ttlNanos) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+    }
+
+    public CompiledRule get(Long ruleId, Function<Long, CompiledRule> loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(ruleId);
+        if (entry != null) {
+            if (entry.expiresAt == Long.MAX_VALUE || now - entry.expiresAt < 0) {
+                entry.lastAccess = now;
+                hits.increment();
+                return entry.value;
+            }
+            entries.remove(ruleId, entry);
+            evictions.increment();
+        }
+        misses.increment();
+        CompiledRule value = loader.apply(ruleId);
+        store(ruleId, value, now + ttlNanos);
+        return value;
+    }
+
+    // Publishes the current version of a rule; it stays until replaced, invalidated or evicted
+    public void put(Long ruleId, CompiledRule value) {
+        store(ruleId, value, Long.MAX_VALUE);
+    }
+
+    // Raises the maximum size so the given number of rules fit, with a tenth spare for rules created later
+    public synchronized void ensureCapacity(int rules) {
+        int needed = rules + rules / 10;
+        if (needed > maxSize) {
+            maxSize = needed;
+        }
+    }
+
+    private void store(Long ruleId, CompiledRule value, long expiresAt) {
+        if (ruleId == null) {
+            return;
+        }
+        Entry entry = new Entry(value, System.nanoTime(), expiresAt);
+        entries.merge(ruleId, entry, (current, next) ->
+                current.value.getVersion() > next.value.getVersion() ? current : next);
+        if (entries.size() > maxSize) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    public void invalidate(Long ruleId) {
+        if (ruleId != null) {
+            entries.remove(ruleId);
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    // Trims the cache to 90% of its capacity so eviction scans are amortised over many inserts
+    private synchronized void evictLeastRecentlyUsed() {
+        int target = Math.max(1, maxSize - maxSize / 10);
+        if (entries.size() <= target) {
+            return;
+        }
+        List<Map.Entry<Long, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+        snapshot.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        int toRemove = snapshot.size() - target;
+        for (int i = 0; i < toRemove; i++) {
+            Map.Entry<Long, Entry> candidate = snapshot.get(i);
+            if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final CompiledRule value;
+        // System.nanoTime() at which the entry expires, or Long.MAX_VALUE if it never does
+        private final long expiresAt;
+        private volatile long lastAccess;
+
+        private Entry(CompiledRule value, long loadedAt, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.lastAccess = loadedAt;
+        }
+    }
+
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+
+        public Stats(long hits, long misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
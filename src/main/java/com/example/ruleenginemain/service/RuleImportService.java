@@ -0,0 +1,102 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.Rule;
+import com.example.ruleenginemain.model.RuleImportRequest;
+import com.example.ruleenginemain.model.RuleImportResult;
+import com.example.ruleenginemain.repository.RuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Imports many rules at once. All rules are parsed and validated in parallel first; a rule
+ * that fails is reported by its index and does not stop the others. The valid rules are
+ * then saved in chunks of {@code rule-engine.import.chunk-size}, each in one transaction
+ * whose inserts Hibernate sends as JDBC batches. If a chunk cannot be saved, its rules are
+ * reported as failed and the import continues with the next chunk.
+ */
+@Service
+public class RuleImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleImportService.class);
+
+    private final RuleService ruleService;
+    private final RuleRepository ruleRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Autowired
+    public RuleImportService(RuleService ruleService, RuleRepository ruleRepository,
+                             PlatformTransactionManager transactionManager, RuleEngineProperties properties) {
+        this.ruleService = ruleService;
+        this.ruleRepository = ruleRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, properties.getImport().getChunkSize());
+    }
+
+    // Each request needs a ruleString and may have tags
+    public RuleImportResult importRules(List<RuleImportRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new RuleEngineException("Rules to import cannot be null or empty");
+        }
+        long start = System.nanoTime();
+        int size = requests.size();
+        Rule[] prepared = new Rule[size];
+        Map<Integer, String> errors = new ConcurrentHashMap<>();
+        IntStream.range(0, size).parallel().forEach(i -> {
+            RuleImportRequest request = requests.get(i);
+            try {
+                prepared[i] = ruleService.prepareRule(request == null ? null : request.getRuleString(),
+                        request == null ? null : request.getTags());
+            } catch (Exception e) {
+                errors.put(i, e.getMessage());
+            }
+        });
+
+        Long[] ids = new Long[size];
+        List<Integer> chunk = new ArrayList<>(chunkSize);
+        for (int i = 0; i < size; i++) {
+            if (prepared[i] != null) {
+                chunk.add(i);
+            }
+            if (chunk.size() == chunkSize || (i == size - 1 && !chunk.isEmpty())) {
+                save(chunk, prepared, ids, errors);
+                chunk.clear();
+            }
+        }
+
+        int imported = size - errors.size();
+        log.info("Imported {} of {} rules in {} ms", imported, size, (System.nanoTime() - start) / 1_000_000);
+        return new RuleImportResult(Arrays.asList(ids), imported, new TreeMap<>(errors));
+    }
+
+    private void save(List<Integer> indexes, Rule[] prepared, Long[] ids, Map<Integer, String> errors) {
+        List<Rule> rules = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            rules.add(prepared[index]);
+        }
+        List<Rule> saved;
+        try {
+            saved = transactionTemplate.execute(status -> ruleRepository.saveAll(rules));
+        } catch (RuntimeException e) {
+            log.warn("Could not save {} imported rules: {}", rules.size(), e.getMessage());
+            for (int index : indexes) {
+                errors.put(index, "Error saving rule: " + e.getMessage());
+            }
+            return;
+        }
+        for (int i = 0; i < indexes.size(); i++) {
+            ids[indexes.get(i)] = saved.get(i).getId();
+        }
+        ruleService.rulesSaved(saved);
+    }
+}
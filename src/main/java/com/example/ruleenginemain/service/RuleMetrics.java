@@ -0,0 +1,208 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.engine.FunctionRegistry;
+import io.micrometer.core.instrument.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Micrometer meters for every stage of the engine, published under {@code rule.engine.*}.
+ * <p>
+ * Evaluation counters are exact. Evaluation and match latency is timed for one call in
+ * {@code rule-engine.metrics.sample-rate}, so the hot path skips the clock reads when
+ * sampling; the timers' histograms stay representative but their counts cover only
+ * sampled calls. By default all rules share one set of meters tagged {@code rule=all}.
+ * With {@code rule-engine.metrics.per-rule=true} meters are tagged with the rule id and
+ * cached by it, so recording costs a map lookup and a counter increment; per-rule timers
+ * then publish count, total and max only, as a latency histogram for each of thousands of
+ * rules would multiply the number of series by the bucket count.
+ */
+@Component
+public class RuleMetrics {
+
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+    private static final String ALL_RULES = "all";
+
+    private final MeterRegistry registry;
+    private final int sampleRate;
+    private final boolean perRule;
+    private final Map<Long, RuleMeters> rules = new ConcurrentHashMap<>();
+    private final RuleMeters allRules;
+
+    private final Timer parseTimer;
+    private final Timer compileTimer;
+    private final Timer loadTimer;
+    private final Timer matchTimer;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+    private final DistributionSummary matchedRules;
+
+    @Autowired
+    public RuleMetrics(MeterRegistry registry, RuleEngineProperties properties) {
+        this.registry = registry;
+        this.sampleRate = Math.max(1, properties.getMetrics().getSampleRate());
+        this.perRule = properties.getMetrics().isPerRule();
+        this.parseTimer = timer("rule.engine.parse", "Parsing a rule string into a tree");
+        this.compileTimer = timer("rule.engine.compile", "Compiling a rule tree");
+        this.loadTimer = timer("rule.engine.repository.load", "Loading a rule from the repository");
+        this.matchTimer = timer("rule.engine.match", "Matching a record against all rules (sampled)");
+        this.batchTimer = timer("rule.engine.batch", "Evaluating a batch of records");
+        this.allRules = perRule ? null : new RuleMeters(ALL_RULES, true);
+        this.batchSize = DistributionSummary.builder("rule.engine.batch.size")
+                .description("Records per batch evaluation")
+                .baseUnit("records")
+                .register(registry);
+        this.matchedRules = DistributionSummary.builder("rule.engine.match.rules")
+                .description("Rules matched per record")
+                .baseUnit("rules")
+                .register(registry);
+    }
+
+    private Timer timer(String name, String description) {
+        return Timer.builder(name).description(description).publishPercentileHistogram().register(registry);
+    }
+
+    public <T> T timeParse(Supplier<T> parse) {
+        return parseTimer.record(parse);
+    }
+
+    public <T> T timeCompile(Supplier<T> compile) {
+        return compileTimer.record(compile);
+    }
+
+    public <T> T timeLoad(Supplier<T> load) {
+        return loadTimer.record(load);
+    }
+
+    // Start time for a sampled evaluation or match, or a marker telling the recorders to skip timing
+    public long start() {
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return NOT_SAMPLED;
+        }
+        return System.nanoTime();
+    }
+
+    public void recordEvaluation(Long ruleId, boolean matched, long start) {
+        RuleMeters meters = rule(ruleId);
+        (matched ? meters.matched : meters.unmatched).increment();
+        record(meters.latency, start);
+    }
+
+    public void recordEvaluationError(Long ruleId, long start) {
+        RuleMeters meters = rule(ruleId);
+        meters.errors.increment();
+        record(meters.latency, start);
+    }
+
+    public void recordBatch(Long ruleId, int records, int matched, int errors, long elapsedNanos) {
+        RuleMeters meters = rule(ruleId);
+        meters.matched.increment(matched);
+        meters.unmatched.increment(records - matched - errors);
+        meters.errors.increment(errors);
+        batchSize.record(records);
+        batchTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordMatch(int matched, long start) {
+        matchedRules.record(matched);
+        record(matchTimer, start);
+    }
+
+    public void bindCache(RuleCache cache) {
+        FunctionCounter.builder("rule.engine.cache.requests", cache, c -> c.stats().getHits())
+                .description("Compiled rule cache lookups").tag("result", "hit").register(registry);
+        FunctionCounter.builder("rule.engine.cache.requests", cache, c -> c.stats().getMisses())
+                .description("Compiled rule cache lookups").tag("result", "miss").register(registry);
+        FunctionCounter.builder("rule.engine.cache.evictions", cache, c -> c.stats().getEvictions())
+                .register(registry);
+        Gauge.builder("rule.engine.cache.size", cache, c -> c.stats().getSize()).register(registry);
+        Gauge.builder("rule.engine.cache.hit.rate", cache, c -> c.stats().getHitRate()).register(registry);
+    }
+
+    public void bindExecutor(EvaluationExecutor executor) {
+        Gauge.builder("rule.engine.executor.in.flight", executor, EvaluationExecutor::getInFlight)
+                .description("Evaluation requests running or waiting").register(registry);
+        FunctionCounter.builder("rule.engine.executor.rejected", executor, EvaluationExecutor::getRejected)
+                .description("Evaluation requests shed under load").register(registry);
+        FunctionCounter.builder("rule.engine.executor.expired", executor, EvaluationExecutor::getExpired)
+                .description("Evaluation requests dropped after waiting too long").register(registry);
+    }
+
+    // Publishes call latency and counts of a registered function; registering it again keeps the same meters
+    public void bindFunction(FunctionRegistry functions, String name) {
+        Tags tags = Tags.of("function", name);
+        FunctionTimer.builder("rule.engine.function", functions,
+                        f -> stat(f, name, FunctionRegistry.Stats::getCalls),
+                        f -> stat(f, name, FunctionRegistry.Stats::getTotalNanos),
+                        TimeUnit.NANOSECONDS)
+                .description("User-defined function calls").tags(tags).register(registry);
+        TimeGauge.builder("rule.engine.function.max", functions, TimeUnit.NANOSECONDS,
+                        f -> stat(f, name, FunctionRegistry.Stats::getMaxNanos))
+                .tags(tags).register(registry);
+        FunctionCounter.builder("rule.engine.function.failures", functions,
+                        f -> stat(f, name, FunctionRegistry.Stats::getFailures))
+                .tags(tags).register(registry);
+        FunctionCounter.builder("rule.engine.function.timeouts", functions,
+                        f -> stat(f, name, FunctionRegistry.Stats::getTimeouts))
+                .tags(tags).register(registry);
+        FunctionCounter.builder("rule.engine.function.cache.hits", functions,
+                        f -> stat(f, name, FunctionRegistry.Stats::getCacheHits))
+                .tags(tags).register(registry);
+    }
+
+    private static long stat(FunctionRegistry functions, String name, ToLongFunction<FunctionRegistry.Stats> value) {
+        FunctionRegistry.Stats stats = functions.stats(name);
+        return stats == null ? 0 : value.applyAsLong(stats);
+    }
+
+    private static void record(Timer timer, long start) {
+        if (start != NOT_SAMPLED) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private RuleMeters rule(Long ruleId) {
+        if (!perRule) {
+            return allRules;
+        }
+        RuleMeters meters = rules.get(ruleId);
+        if (meters == null) {
+            meters = rules.computeIfAbsent(ruleId, id -> new RuleMeters(String.valueOf(id), false));
+        }
+        return meters;
+    }
+
+    private final class RuleMeters {
+        private final Counter matched;
+        private final Counter unmatched;
+        private final Counter errors;
+        private final Timer latency;
+
+        private RuleMeters(String rule, boolean histogram) {
+            this.matched = evaluations(rule, "matched");
+            this.unmatched = evaluations(rule, "unmatched");
+            this.errors = evaluations(rule, "error");
+            this.latency = Timer.builder("rule.engine.evaluation")
+                    .description("Single-record rule evaluation (sampled)")
+                    .tag("rule", rule)
+                    .publishPercentileHistogram(histogram)
+                    .register(registry);
+        }
+
+        private Counter evaluations(String rule, String outcome) {
+            return Counter.builder("rule.engine.evaluations")
+                    .description("Records evaluated per rule, by outcome")
+                    .tag("rule", rule)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.engine.CompiledRule;
+import com.example.ruleenginemain.engine.RuleProfile;
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.ProfiledEvaluation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in profiling of rule evaluation. Only evaluations requested through this service are
+ * profiled; their per-node statistics are aggregated per rule over a window of
+ * {@code rule-engine.profiling.window}, after which the next profiled evaluation starts a new
+ * profile. A profile is also restarted when the rule is recompiled, e.g. after an edit.
+ */
+@Service
+public class RuleProfilingService {
+
+    private final RuleService ruleService;
+    private final long windowMillis;
+    private final Map<Long, RuleProfile> profiles = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RuleProfilingService(RuleService ruleService, RuleEngineProperties properties) {
+        this.ruleService = ruleService;
+        this.windowMillis = properties.getProfiling().getWindow().toMillis();
+    }
+
+    public ProfiledEvaluation evaluate(Long ruleId, Map<String, Object> data) {
+        if (data == null || data.isEmpty()) {
+            throw new RuleEngineException("Data for evaluation cannot be null or empty");
+        }
+        CompiledRule rule = ruleService.getCompiledRule(ruleId);
+        RuleProfile profile = profiles.compute(ruleId, (id, current) ->
+                current != null && current.isFor(rule.getCondition()) && !isExpired(current)
+                        ? current
+                        : new RuleProfile(rule.getCondition()));
+        try {
+            boolean result = rule.evaluate(data, profile);
+            return new ProfiledEvaluation(ruleId, result, profile.snapshot());
+        } catch (Exception e) {
+            throw new RuleEngineException("Error evaluating rule: " + e.getMessage(), e);
+        }
+    }
+
+    public RuleProfile.Snapshot getProfile(Long ruleId) {
+        return currentProfile(ruleId).snapshot();
+    }
+
+    // Collapsed stacks with self time in nanoseconds, for flame graph tools
+    public String getFoldedProfile(Long ruleId) {
+        return currentProfile(ruleId).folded("rule-" + ruleId);
+    }
+
+    public void resetProfile(Long ruleId) {
+        profiles.remove(ruleId);
+    }
+
+    private RuleProfile currentProfile(Long ruleId) {
+        RuleProfile profile = profiles.get(ruleId);
+        if (profile == null || isExpired(profile)) {
+            throw new RuleEngineException("No profile recorded for rule " + ruleId + " in the current window");
+        }
+        return profile;
+    }
+
+    private boolean isExpired(RuleProfile profile) {
+        return System.currentTimeMillis() - profile.getStartedAt() >= windowMillis;
+    }
+}
@@ -1,29 +1,73 @@
 package com.example.ruleenginemain.service;
 
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.engine.ColumnarBatch;
+import com.example.ruleenginemain.engine.CompiledRule;
+import com.example.ruleenginemain.engine.FactSchema;
+import com.example.ruleenginemain.engine.FunctionRegistry;
+import com.example.ruleenginemain.engine.RuleCompiler;
+import com.example.ruleenginemain.engine.RuleIndex;
+import com.example.ruleenginemain.engine.RuleParser;
+import com.example.ruleenginemain.exception.RuleConflictException;
 import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.BatchEvaluationResult;
 import com.example.ruleenginemain.model.Node;
 import com.example.ruleenginemain.model.Rule;
+import com.example.ruleenginemain.model.RuleEvaluation;
 import com.example.ruleenginemain.repository.RuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.function.BiFunction;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import com.example.ruleenginemain.model.UserDefinedFunction;
 
 
 @Service
 public class RuleService {
 
+    private static final Logger log = LoggerFactory.getLogger(RuleService.class);
+
+    // Below this size a batch is evaluated on the calling thread; splitting it would cost more than it saves
+    private static final int PARALLEL_BATCH_THRESHOLD = 1024;
+
     private final RuleRepository ruleRepository;
     private final AttributeService attributeService;
+    private final RuleCache ruleCache;
+    private final RuleMetrics metrics;
+    private final RuleParser ruleParser;
+    private final FactSchema factSchema;
+    private final FunctionRegistry userDefinedFunctions;
+    private final RuleCompiler ruleCompiler;
+    private final RuleIndex ruleIndex;
+    private final boolean compactStorage;
+    private final boolean columnarBatches;
+    private final int batchChunkSize;
+    private volatile boolean ruleIndexLoaded;
 
     @Autowired
-    public RuleService(RuleRepository ruleRepository, AttributeService attributeService) {
+    public RuleService(RuleRepository ruleRepository, AttributeService attributeService, RuleCache ruleCache,
+                       RuleEngineProperties properties, RuleMetrics metrics) {
         this.ruleRepository = ruleRepository;
         this.attributeService = attributeService;
+        this.ruleCache = ruleCache;
+        this.metrics = metrics;
+        this.compactStorage = properties.getPersistence().getAstStorage() == RuleEngineProperties.AstStorage.COMPACT;
+        this.columnarBatches = properties.getBatch().isColumnar();
+        this.batchChunkSize = Math.max(1, properties.getBatch().getChunkSize());
+        this.userDefinedFunctions = new FunctionRegistry(properties.getFunctions().getCacheSize(),
+                properties.getFunctions().getTimeoutThreads());
+        this.ruleParser = new RuleParser(this::isKnownIdentifier, attributeService::getAttributeType);
+        this.factSchema = new FactSchema(attributeService::getAttributeType);
+        this.ruleCompiler = new RuleCompiler(userDefinedFunctions::get, factSchema);
+        this.ruleIndex = new RuleIndex(userDefinedFunctions::contains, attributeService::getAttributeType);
+        metrics.bindCache(ruleCache);
     }
 
     public Rule createRule(String ruleString) {
@@ -31,14 +75,59 @@ public class RuleService {
             throw new RuleEngineException("Rule string cannot be null or empty");
         }
         try {
-            Node ast = parseRule(ruleString);
-            Rule rule = new Rule(ruleString, ast);
-            return ruleRepository.save(rule);
+            Rule rule = prepareRule(ruleString, null);
+            rule = ruleRepository.save(rule);
+            ruleChanged(rule);
+            return rule;
         } catch (Exception e) {
             throw new RuleEngineException("Error creating rule: " + e.getMessage(), e);
         }
     }
 
+    // Parses and validates a new rule without saving it; safe to call from several threads
+    public Rule prepareRule(String ruleString, Set<String> tags) {
+        if (ruleString == null || ruleString.trim().isEmpty()) {
+            throw new RuleEngineException("Rule string cannot be null or empty");
+        }
+        Node ast = parseRule(ruleString);
+        Rule rule = new Rule();
+        rule.setRuleString(ruleString);
+        setRoot(rule, ast);
+        if (tags != null) {
+            rule.setTags(new HashSet<>(tags));
+        }
+        return rule;
+    }
+
+    // Publishes and indexes rules saved outside this service, e.g. by a bulk import
+    public void rulesSaved(List<Rule> rules) {
+        CompiledRule[] published = new CompiledRule[rules.size()];
+        for (int i = 0; i < published.length; i++) {
+            published[i] = publish(rules.get(i));
+        }
+        synchronized (ruleIndex) {
+            if (!ruleIndexLoaded) {
+                return;
+            }
+            List<CompiledRule> compiled = new ArrayList<>(published.length);
+            List<Set<String>> tags = new ArrayList<>(published.length);
+            for (int i = 0; i < published.length; i++) {
+                Rule rule = rules.get(i);
+                // A concurrent edit may have indexed a later version already
+                if (ruleIndex.version(rule.getId()) >= versionOf(rule)) {
+                    continue;
+                }
+                if (published[i] == null) {
+                    ruleIndex.remove(rule.getId());
+                } else {
+                    compiled.add(published[i]);
+                    tags.add(rule.getTags());
+                }
+            }
+            ruleIndex.putAll(compiled, tags);
+        }
+    }
+
     public Rule combineRules(List<Long> ruleIds) {
         if (ruleIds == null || ruleIds.size() < 2) {
             throw new RuleEngineException("At least two rule IDs are required for combination");
@@ -57,59 +146,258 @@ public class RuleService {
             String combinedRuleString = rules.stream()
                     .map(Rule::getRuleString)
                     .collect(Collectors.joining(" AND "));
-            Rule combinedRule = new Rule(combinedRuleString, combinedAst);
-            return ruleRepository.save(combinedRule);
+            Rule combinedRule = new Rule();
+            combinedRule.setRuleString(combinedRuleString);
+            setRoot(combinedRule, combinedAst);
+            combinedRule = ruleRepository.save(combinedRule);
+            ruleChanged(combinedRule);
+            return combinedRule;
         } catch (Exception e) {
             throw new RuleEngineException("Error combining rules: " + e.getMessage(), e);
         }
     }
 
     public boolean evaluateRule(Long ruleId, Map<String, Object> data) {
+        return evaluate(ruleId, data).isMatched();
+    }
+
+    // Evaluates against the current version of the rule and reports which version that was
+    public RuleEvaluation evaluate(Long ruleId, Map<String, Object> data) {
         if (ruleId == null) {
             throw new RuleEngineException("Rule ID cannot be null");
         }
         if (data == null || data.isEmpty()) {
             throw new RuleEngineException("Data for evaluation cannot be null or empty");
         }
+        CompiledRule rule;
         try {
-            Rule rule = ruleRepository.findById(ruleId)
-                    .orElseThrow(() -> new RuleEngineException("Rule not found with ID: " + ruleId));
-            return evaluateNode(rule.getRootNode(), data);
+            rule = ruleCache.get(ruleId, this::loadCompiledRule);
+        } catch (Exception e) {
+            throw new RuleEngineException("Error evaluating rule: " + e.getMessage(), e);
+        }
+        long start = metrics.start();
+        try {
+            boolean matched = rule.evaluate(data);
+            metrics.recordEvaluation(ruleId, matched, start);
+            return new RuleEvaluation(ruleId, rule.getVersion(), matched);
+        } catch (Exception e) {
+            metrics.recordEvaluationError(ruleId, start);
+            throw new RuleEngineException("Error evaluating rule: " + e.getMessage(), e);
+        }
+    }
+
+    // Compiled form of the rule, from the cache; fails if the rule does not exist or cannot be compiled
+    public CompiledRule getCompiledRule(Long ruleId) {
+        if (ruleId == null) {
+            throw new RuleEngineException("Rule ID cannot be null");
+        }
+        return ruleCache.get(ruleId, this::loadCompiledRule);
+    }
+
+    public BatchEvaluationResult evaluateBatch(Long ruleId, List<Map<String, Object>> records) {
+        if (ruleId == null) {
+            throw new RuleEngineException("Rule ID cannot be null");
+        }
+        if (records == null || records.isEmpty()) {
+            throw new RuleEngineException("Records for batch evaluation cannot be null or empty");
+        }
+        CompiledRule rule;
+        try {
+            rule = ruleCache.get(ruleId, this::loadCompiledRule);
         } catch (Exception e) {
             throw new RuleEngineException("Error evaluating rule: " + e.getMessage(), e);
         }
+
+        long start = System.nanoTime();
+        List<Map<String, Object>> input = records instanceof RandomAccess ? records : new ArrayList<>(records);
+        boolean[] results = new boolean[input.size()];
+        Map<Integer, String> errors = new ConcurrentHashMap<>();
+        if (columnarBatches) {
+            // Chunks are evaluated column by column, in parallel for large batches
+            int size = input.size();
+            IntStream chunks = IntStream.range(0, (size + batchChunkSize - 1) / batchChunkSize);
+            if (size >= PARALLEL_BATCH_THRESHOLD) {
+                chunks = chunks.parallel();
+            }
+            int matched = chunks.map(chunk -> ColumnarBatch.evaluate(rule, input, chunk * batchChunkSize,
+                    Math.min(size, (chunk + 1) * batchChunkSize), results, errors)).sum();
+            metrics.recordBatch(ruleId, size, matched, errors.size(), System.nanoTime() - start);
+            return new BatchEvaluationResult(ruleId, rule.getVersion(), results, matched, new TreeMap<>(errors));
+        }
+        IntStream indexes = IntStream.range(0, input.size());
+        if (input.size() >= PARALLEL_BATCH_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        int matched = indexes.map(i -> {
+            Map<String, Object> data = input.get(i);
+            if (data == null || data.isEmpty()) {
+                errors.put(i, "Data for evaluation cannot be null or empty");
+                return 0;
+            }
+            try {
+                results[i] = rule.evaluate(data);
+                return results[i] ? 1 : 0;
+            } catch (Exception e) {
+                errors.put(i, e.getMessage());
+                return 0;
+            }
+        }).sum();
+        metrics.recordBatch(ruleId, input.size(), matched, errors.size(), System.nanoTime() - start);
+        return new BatchEvaluationResult(ruleId, rule.getVersion(), results, matched, new TreeMap<>(errors));
+    }
+
+    public List<Long> matchRules(Map<String, Object> data, String tag) {
+        if (data == null || data.isEmpty()) {
+            throw new RuleEngineException("Data for evaluation cannot be null or empty");
+        }
+        try {
+            loadRuleIndex();
+            long start = metrics.start();
+            List<Long> matched = ruleIndex.match(factSchema.fact(data), tag);
+            metrics.recordMatch(matched.size(), start);
+            return matched;
+        } catch (Exception e) {
+            throw new RuleEngineException("Error matching rules: " + e.getMessage(), e);
+        }
+    }
+
+    public Rule updateTags(Long ruleId, Set<String> tags) {
+        Rule existingRule = ruleRepository.findById(ruleId)
+                .orElseThrow(() -> new RuleEngineException("Rule not found with ID: " + ruleId));
+        existingRule.setTags(tags == null ? new HashSet<>() : new HashSet<>(tags));
+        return saveEdit(existingRule);
+    }
+
+    // Schema that compiled rules read facts through
+    public FactSchema getFactSchema() {
+        return factSchema;
+    }
+
+    public RuleCache.Stats getCacheStats() {
+        return ruleCache.stats();
+    }
+
+    // Stores the tree in the configured format; a rule still kept as node rows is converted on its next save
+    private void setRoot(Rule rule, Node root) {
+        if (compactStorage) {
+            rule.setCompactRoot(root);
+        } else {
+            rule.setRootNode(root);
+        }
     }
 
-    private boolean evaluateNode(Node node, Map<String, Object> data) {
-        if ("operator".equals(node.getType())) {
-            switch (node.getValue()) {
-                case "AND":
-                    return evaluateNode(node.getLeft(), data) && evaluateNode(node.getRight(), data);
-                case "OR":
-                    return evaluateNode(node.getLeft(), data) || evaluateNode(node.getRight(), data);
-                case ">":
-                    return compareValues(node.getLeft(), node.getRight(), data, (a, b) -> a > b);
-                case "<":
-                    return compareValues(node.getLeft(), node.getRight(), data, (a, b) -> a < b);
-                case "=":
-                    return compareValues(node.getLeft(), node.getRight(), data, Object::equals);
-                case "!=":
-                    return compareValues(node.getLeft(), node.getRight(), data, (a, b) -> !a.equals(b));
-                default:
-                    throw new RuleEngineException("Unknown operator: " + node.getValue());
+    // Publishes the saved version's compiled form in place of the previous one and re-indexes the rule.
+    // A concurrent edit may have indexed a later version already; that one is kept, as in the cache.
+    private void ruleChanged(Rule rule) {
+        CompiledRule compiled = publish(rule);
+        synchronized (ruleIndex) {
+            if (ruleIndexLoaded && ruleIndex.version(rule.getId()) < versionOf(rule)) {
+                if (compiled != null) {
+                    ruleIndex.put(compiled, rule.getTags());
+                } else {
+                    ruleIndex.remove(rule.getId());
+                }
+            }
+        }
+    }
+
+    // Replaces the cached compiled form with the saved version's; returns null if it cannot be compiled
+    private CompiledRule publish(Rule rule) {
+        CompiledRule compiled = null;
+        try {
+            compiled = compile(rule);
+            if (compiled.isConstant()) {
+                log.warn("Rule {} always evaluates to {}: {}", rule.getId(), compiled.getCondition(), rule.getRuleString());
             }
+        } catch (RuleEngineException e) {
+            log.warn("Rule {} cannot be compiled and is excluded from matching: {}", rule.getId(), e.getMessage());
+        }
+        // Evaluations in progress keep the snapshot they started with
+        if (compiled != null) {
+            ruleCache.put(rule.getId(), compiled);
         } else {
-            return true; // Leaf node (attribute or value) always evaluates to true
+            ruleCache.invalidate(rule.getId());
+        }
+        return compiled;
+    }
+
+    /**
+     * Compiles the given rules in parallel into the cache and, unless matching already
+     * loaded it, builds the match index from them, so no request pays for loading or
+     * compiling a rule. Returns the compiled rules; rules that cannot be compiled are skipped.
+     */
+    public List<CompiledRule> preload(List<Rule> rules) {
+        // The whole catalog is kept, so the preloaded rules do not evict each other
+        ruleCache.ensureCapacity(rules.size());
+        CompiledRule[] compiled = new CompiledRule[rules.size()];
+        IntStream.range(0, rules.size()).parallel().forEach(i -> {
+            Rule rule = rules.get(i);
+            try {
+                compiled[i] = compile(rule);
+                ruleCache.put(rule.getId(), compiled[i]);
+            } catch (RuleEngineException e) {
+                log.warn("Rule {} cannot be compiled: {}", rule.getId(), e.getMessage());
+            }
+        });
+        synchronized (ruleIndex) {
+            if (!ruleIndexLoaded) {
+                List<CompiledRule> indexed = new ArrayList<>(compiled.length);
+                List<Set<String>> tags = new ArrayList<>(compiled.length);
+                for (int i = 0; i < compiled.length; i++) {
+                    if (compiled[i] != null) {
+                        indexed.add(compiled[i]);
+                        tags.add(rules.get(i).getTags());
+                    }
+                }
+                ruleIndex.putAll(indexed, tags);
+                ruleIndexLoaded = true;
+            }
         }
+        List<CompiledRule> result = new ArrayList<>(compiled.length);
+        for (CompiledRule rule : compiled) {
+            if (rule != null) {
+                result.add(rule);
+            }
+        }
+        return result;
     }
 
-    private boolean compareValues(Node left, Node right, Map<String, Object> data, BiFunction<Double, Double, Boolean> comparator) {
-        Object leftValue = getValue(left, data);
-        Object rightValue = getValue(right, data);
-        if (leftValue instanceof Number && rightValue instanceof Number) {
-            return comparator.apply(((Number) leftValue).doubleValue(), ((Number) rightValue).doubleValue());
+    private void loadRuleIndex() {
+        if (ruleIndexLoaded) {
+            return;
         }
-        return comparator.apply(Double.parseDouble(leftValue.toString()), Double.parseDouble(rightValue.toString()));
+        synchronized (ruleIndex) {
+            if (!ruleIndexLoaded) {
+                List<CompiledRule> compiled = new ArrayList<>();
+                List<Set<String>> tags = new ArrayList<>();
+                for (Rule rule : ruleRepository.findAll()) {
+                    try {
+                        compiled.add(compile(rule));
+                        tags.add(rule.getTags());
+                    } catch (RuleEngineException e) {
+                        log.warn("Rule {} cannot be compiled and is excluded from matching: {}", rule.getId(), e.getMessage());
+                    }
+                }
+                ruleIndex.putAll(compiled, tags);
+                ruleIndexLoaded = true;
+            }
+        }
+    }
+
+    // Cache loader: compiles the persisted tree so evaluation never touches the persistence context
+    private CompiledRule loadCompiledRule(Long ruleId) {
+        Rule rule = metrics.timeLoad(() -> ruleRepository.findById(ruleId))
+                .orElseThrow(() -> new RuleEngineException("Rule not found with ID: " + ruleId));
+        return compile(rule);
+    }
+
+    private CompiledRule compile(Rule rule) {
+        long version = versionOf(rule);
+        return metrics.timeCompile(() -> ruleCompiler.compile(rule.getId(), version, rule.getRootNode()));
+    }
+
+    private static long versionOf(Rule rule) {
+        return rule.getVersion() == null ? 0 : rule.getVersion();
     }
 
     /*private Object getValue(Node node, Map<String, Object> data) {
@@ -128,41 +416,12 @@ public class RuleService {
     }*/
 
     private Node parseRule(String rule) {
-        Stack<Node> stack = new Stack<>();
-        String[] tokens = rule.split("\\s+");
-
-        for (String token : tokens) {
-            if (token.equals("AND") || token.equals("OR")) {
-                if (stack.size() < 2) {
-                    throw new RuleEngineException("Invalid rule syntax: not enough operands for operator " + token);
-                }
-                Node right = stack.pop();
-                Node left = stack.pop();
-                stack.push(new Node("operator", left, right, token));
-            } else if (token.equals(">") || token.equals("<") || token.equals("=") || token.equals("!=")) {
-                stack.push(new Node("operator", null, null, token));
-            } else {
-                if (!attributeService.isValidAttribute(token) && !isNumeric(token)) {
-                    throw new RuleEngineException("Invalid attribute or value: " + token);
-                }
-                stack.push(new Node("operand", null, null, token));
-            }
-        }
-
-        if (stack.size() != 1) {
-            throw new RuleEngineException("Invalid rule syntax: unbalanced expression");
-        }
-
-        return stack.pop();
+        return metrics.timeParse(() -> ruleParser.parse(rule));
     }
 
-    private boolean isNumeric(String str) {
-        try {
-            Double.parseDouble(str);
-            return true;
-        } catch(NumberFormatException e){
-            return false;
-        }
+    // Identifiers in a rule must be catalog attributes or registered functions
+    private boolean isKnownIdentifier(String name) {
+        return userDefinedFunctions.contains(name) || attributeService.isValidAttribute(name);
     }
 
         public Rule modifyRule(Long ruleId, String newRuleString) {
@@ -171,91 +430,81 @@ public class RuleService {
             
             Node newAst = parseRule(newRuleString);
             existingRule.setRuleString(newRuleString);
-            existingRule.setRootNode(newAst);
+            setRoot(existingRule, newAst);
             
-            return ruleRepository.save(existingRule);
+            return saveEdit(existingRule);
         }
 
         public Rule addCondition(Long ruleId, String condition, String operator) {
             Rule existingRule = ruleRepository.findById(ruleId)
                     .orElseThrow(() -> new RuleEngineException("Rule not found with ID: " + ruleId));
             
+            if (!"AND".equals(operator) && !"OR".equals(operator)) {
+                throw new RuleEngineException("Conditions can only be added with AND or OR, not " + operator);
+            }
             Node newCondition = parseRule(condition);
             Node newRoot = new Node("operator", existingRule.getRootNode(), newCondition, operator);
             
-            existingRule.setRootNode(newRoot);
+            setRoot(existingRule, newRoot);
             existingRule.setRuleString("(" + existingRule.getRuleString() + ") " + operator + " " + condition);
             
-            return ruleRepository.save(existingRule);
+            return saveEdit(existingRule);
         }
 
         public Rule removeCondition(Long ruleId, String condition) {
             Rule existingRule = ruleRepository.findById(ruleId)
                     .orElseThrow(() -> new RuleEngineException("Rule not found with ID: " + ruleId));
             
-            Node newRoot = removeNodeFromAST(existingRule.getRootNode(), condition);
-            existingRule.setRootNode(newRoot);
-            existingRule.setRuleString(generateRuleString(newRoot));
+            String target = RuleParser.format(parseRule(condition));
+            Node newRoot = removeNodeFromAST(existingRule.getRootNode(), target);
+            if (newRoot == null) {
+                throw new RuleEngineException("Cannot remove the only condition of rule " + ruleId);
+            }
+            setRoot(existingRule, newRoot);
+            existingRule.setRuleString(RuleParser.format(newRoot));
             
-            return ruleRepository.save(existingRule);
+            return saveEdit(existingRule);
+        }
+
+        // Saves an edited rule; fails if another edit was saved since the rule was read
+        private Rule saveEdit(Rule rule) {
+            Rule saved;
+            try {
+                saved = ruleRepository.save(rule);
+            } catch (OptimisticLockingFailureException e) {
+                throw new RuleConflictException("Rule " + rule.getId() + " was modified concurrently, retry the change", e);
+            }
+            ruleChanged(saved);
+            return saved;
         }
 
+        // Copy-on-write: returns a new tree without the condition, sharing untouched subtrees and never changing the given one
         private Node removeNodeFromAST(Node node, String condition) {
             if (node == null) return null;
             
-            if (node.getType().equals("operand") && node.getValue().equals(condition)) {
+            if (RuleParser.format(node).equals(condition)) {
                 return null;
             }
+            if (!"operator".equals(node.getType())) {
+                return node;
+            }
             
-            node.setLeft(removeNodeFromAST(node.getLeft(), condition));
-            node.setRight(removeNodeFromAST(node.getRight(), condition));
+            Node left = removeNodeFromAST(node.getLeft(), condition);
+            Node right = removeNodeFromAST(node.getRight(), condition);
+            if (left == node.getLeft() && right == node.getRight()) {
+                return node;
+            }
             
-            if (node.getLeft() == null && node.getRight() == null) {
-                return null;
+            if (!"AND".equals(node.getValue()) && !"OR".equals(node.getValue())) {
+                // A comparison or NOT that lost an operand is removed as a whole
+                boolean complete = left != null && ("NOT".equals(node.getValue()) || right != null);
+                return complete ? new Node(node.getType(), left, right, node.getValue()) : null;
             }
             
-            if (node.getLeft() == null) return node.getRight();
-            if (node.getRight() == null) return node.getLeft();
+            if (left == null) return right;
+            if (right == null) return left;
             
-            return node;
-        }
-
-        private String generateRuleString(Node node) {
-            if (node == null) return "";
-            if (node.getType().equals("operand")) return node.getValue();
-            return "(" + generateRuleString(node.getLeft()) + " " + node.getValue() + " " + generateRuleString(node.getRight()) + ")";
-        }
-        
-     // Add this method to RuleService
-        private void validateRuleString(String ruleString) {
-            String[] tokens = ruleString.split("\\s+");
-            Stack<String> operatorStack = new Stack<>();
-            Stack<String> operandStack = new Stack<>();
-
-            for (String token : tokens) {
-                if (token.equals("AND") || token.equals("OR")) {
-                    if (operandStack.size() < 2) {
-                        throw new RuleEngineException("Invalid rule syntax: not enough operands for operator " + token);
-                    }
-                    operandStack.pop();
-                    operandStack.push("expression");
-                    operatorStack.push(token);
-                } else if (token.equals(">") || token.equals("<") || token.equals("=") || token.equals("!=")) {
-                    if (operandStack.isEmpty()) {
-                        throw new RuleEngineException("Invalid rule syntax: operator " + token + " missing left operand");
-                    }
-                    operatorStack.push(token);
-                } else {
-                    if (!attributeService.isValidAttribute(token) && !isNumeric(token)) {
-                        throw new RuleEngineException("Invalid attribute or value: " + token);
-                    }
-                    operandStack.push(token);
-                }
-            }
-
-            if (operandStack.size() != 1 || !operatorStack.isEmpty()) {
-                throw new RuleEngineException("Invalid rule syntax: unbalanced expression");
-            }
+            return new Node(node.getType(), left, right, node.getValue());
         }
 
         // Update createRule method to use validateRuleString
@@ -296,27 +545,18 @@ public class RuleService {
             }
             throw new RuleEngineException("Invalid node type for value extraction");
         }*/
-        private Map<String, UserDefinedFunction> userDefinedFunctions = new HashMap<>();
-
         public void registerUserDefinedFunction(String name, Function<Map<String, Object>, Object> function) {
-            userDefinedFunctions.put(name, new UserDefinedFunction(name, function));
+            registerUserDefinedFunction(new UserDefinedFunction(name, function));
         }
 
-        private Object getValue(Node node, Map<String, Object> data) {
-            if ("operand".equals(node.getType())) {
-                if (data.containsKey(node.getValue())) {
-                    return data.get(node.getValue());
-                } else if (userDefinedFunctions.containsKey(node.getValue())) {
-                    return userDefinedFunctions.get(node.getValue()).apply(data); // Pass data map
-                } else {
-                    try {
-                        return Double.parseDouble(node.getValue());
-                    } catch (NumberFormatException e) {
-                        return node.getValue();
-                    }
-                }
-            }
-            throw new RuleEngineException("Invalid node type for value extraction");
+        // Registers a function with its declared purity, cache inputs and timeout, replacing any of the same name
+        public void registerUserDefinedFunction(UserDefinedFunction function) {
+            userDefinedFunctions.register(function);
+            metrics.bindFunction(userDefinedFunctions, function.getName());
+        }
+
+        public List<FunctionRegistry.Stats> getFunctionStats() {
+            return userDefinedFunctions.stats();
         }
   
-}
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.model.NodeCodec;
+import com.example.ruleenginemain.model.Rule;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * File holding the id, version, text, tags and encoded tree of every rule, so a restart can
+ * rebuild unchanged rules without reading them from the database. Rules read back are
+ * detached copies meant for compiling only, never for saving.
+ */
+final class RuleSnapshot {
+
+    private static final int MAGIC = 0x52534e50; // "RSNP"
+    private static final int FORMAT = 1;
+
+    private RuleSnapshot() {
+    }
+
+    // Written to a temporary file first and moved into place, so a crash never leaves a partial snapshot
+    static void write(Path file, List<Rule> rules) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(rules.size());
+            for (Rule rule : rules) {
+                out.writeLong(rule.getId());
+                out.writeLong(rule.getVersion() == null ? 0 : rule.getVersion());
+                writeString(out, rule.getRuleString());
+                out.writeInt(rule.getTags().size());
+                for (String tag : rule.getTags()) {
+                    writeString(out, tag);
+                }
+                byte[] ast = NodeCodec.encode(rule.getRootNode());
+                out.writeInt(ast.length);
+                out.write(ast);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static List<Rule> read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IOException("Not a rule snapshot of format " + FORMAT + ": " + file);
+            }
+            int count = in.readInt();
+            List<Rule> rules = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Rule rule = new Rule();
+                rule.setId(in.readLong());
+                rule.setVersion(in.readLong());
+                rule.setRuleString(readString(in));
+                int tagCount = in.readInt();
+                Set<String> tags = new HashSet<>(tagCount);
+                for (int t = 0; t < tagCount; t++) {
+                    tags.add(readString(in));
+                }
+                rule.setTags(tags);
+                byte[] ast = new byte[in.readInt()];
+                in.readFully(ast);
+                // Holding the decoded tree directly avoids encoding it again
+                rule.setRootNode(NodeCodec.decode(ast));
+                rules.add(rule);
+            }
+            return rules;
+        }
+    }
+
+    // Length-prefixed UTF-8, as rule strings can exceed writeUTF's 64KB limit
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
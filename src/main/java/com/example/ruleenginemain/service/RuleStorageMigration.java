@@ -0,0 +1,64 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.model.Rule;
+import com.example.ruleenginemain.repository.NodeRepository;
+import com.example.ruleenginemain.repository.RuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves rules still stored as one row per node into the compact single-column encoding.
+ * Runs at startup when compact storage and {@code rule-engine.persistence.migrate-on-startup}
+ * are enabled; once no rule references the nodes table any more, the table is emptied.
+ */
+@Component
+@Order(0) // before RuleWarmup, which loads the migrated rules
+public class RuleStorageMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleStorageMigration.class);
+
+    private final RuleRepository ruleRepository;
+    private final NodeRepository nodeRepository;
+    private final RuleEngineProperties properties;
+
+    @Autowired
+    public RuleStorageMigration(RuleRepository ruleRepository, NodeRepository nodeRepository,
+                                RuleEngineProperties properties) {
+        this.ruleRepository = ruleRepository;
+        this.nodeRepository = nodeRepository;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        RuleEngineProperties.Persistence persistence = properties.getPersistence();
+        if (persistence.getAstStorage() == RuleEngineProperties.AstStorage.COMPACT && persistence.isMigrateOnStartup()) {
+            int migrated = migrate();
+            if (migrated > 0) {
+                log.info("Migrated {} rules from node rows to compact storage", migrated);
+            }
+        }
+    }
+
+    // Returns the number of rules converted
+    public int migrate() {
+        int migrated = 0;
+        for (Rule rule : ruleRepository.findByRootNodeIsNotNull()) {
+            rule.setCompactRoot(rule.getRootNode());
+            ruleRepository.save(rule);
+            migrated++;
+        }
+        // Subtrees may be shared between rules, so rows are only dropped once none is referenced
+        if (ruleRepository.countByRootNodeIsNotNull() == 0 && nodeRepository.count() > 0) {
+            nodeRepository.unlinkAll();
+            nodeRepository.deleteAllInBatch();
+        }
+        return migrated;
+    }
+}
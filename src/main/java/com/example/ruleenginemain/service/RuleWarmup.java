@@ -0,0 +1,287 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.engine.ColumnarBatch;
+import com.example.ruleenginemain.engine.CompiledRule;
+import com.example.ruleenginemain.engine.Condition;
+import com.example.ruleenginemain.engine.Conditions;
+import com.example.ruleenginemain.engine.Operand;
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.Rule;
+import com.example.ruleenginemain.repository.RuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gets every rule ready to evaluate before the application takes traffic, so the first
+ * requests after a deploy do not pay for loading rules, compiling them or cold code.
+ * <p>
+ * At startup all rules are loaded in one pass and compiled in parallel into the rule cache
+ * and the match index. Each rule is then evaluated against synthetic records built around
+ * the constants it compares with, until {@code rule-engine.warmup.evaluations} evaluations
+ * or the timeout, so the JIT has compiled the evaluation paths. Rules that may call
+ * user-defined functions are not evaluated, as functions can have side effects.
+ * <p>
+ * Spring Boot only reports readiness once this has run; the {@code ruleWarmup} health
+ * indicator is OUT_OF_SERVICE until then and reports what was loaded afterwards. With a
+ * snapshot file configured, rules whose version is unchanged are read from the snapshot
+ * instead of the database, and the snapshot is rewritten after loading.
+ */
+@Component
+@Order(1)
+public class RuleWarmup implements ApplicationRunner, HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleWarmup.class);
+
+    private static final int SYNTHETIC_RECORDS = 64;
+
+    private final RuleRepository ruleRepository;
+    private final RuleService ruleService;
+    private final AttributeService attributeService;
+    private final RuleEngineProperties.Warmup settings;
+
+    private volatile boolean ready;
+    private volatile Map<String, Object> details = Collections.emptyMap();
+
+    @Autowired
+    public RuleWarmup(RuleRepository ruleRepository, RuleService ruleService, AttributeService attributeService,
+                      RuleEngineProperties properties) {
+        this.ruleRepository = ruleRepository;
+        this.ruleService = ruleService;
+        this.attributeService = attributeService;
+        this.settings = properties.getWarmup();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!settings.isEnabled()) {
+            ready = true;
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            Path snapshot = settings.getSnapshot() == null || settings.getSnapshot().isBlank()
+                    ? null : Paths.get(settings.getSnapshot());
+            int[] fromSnapshot = {0, 0};
+            List<Rule> rules = load(snapshot, fromSnapshot);
+            List<CompiledRule> compiled = ruleService.preload(rules);
+            long evaluations = evaluate(compiled);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            result.put("rules", rules.size());
+            result.put("compiled", compiled.size());
+            result.put("fromSnapshot", fromSnapshot[0]);
+            result.put("evaluations", evaluations);
+            result.put("elapsedMillis", elapsedMillis);
+            log.info("Warmed up {} rules ({} from the snapshot, {} compiled) with {} synthetic evaluations in {} ms",
+                    rules.size(), fromSnapshot[0], compiled.size(), evaluations, elapsedMillis);
+
+            // Rewritten unless it already held exactly the current rules
+            if (snapshot != null && (fromSnapshot[0] != rules.size() || fromSnapshot[1] != rules.size())) {
+                writeSnapshot(snapshot, rules);
+            }
+        } catch (RuntimeException e) {
+            log.error("Rule warm-up failed; rules will be loaded on first use", e);
+            result.put("error", e.getMessage());
+        } finally {
+            details = result;
+            ready = true;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Health health() {
+        if (!ready) {
+            return Health.outOfService().withDetail("phase", "warming up").build();
+        }
+        return Health.up().withDetails(details).build();
+    }
+
+    // fromSnapshot[0]: rules taken from the snapshot, fromSnapshot[1]: rules the snapshot held
+    private List<Rule> load(Path snapshot, int[] fromSnapshot) {
+        if (snapshot == null || !Files.exists(snapshot)) {
+            return ruleRepository.findAll();
+        }
+        List<Rule> saved;
+        try {
+            saved = RuleSnapshot.read(snapshot);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring rule snapshot {}: {}", snapshot, e.toString());
+            return ruleRepository.findAll();
+        }
+        Map<Long, Long> versions = new HashMap<>();
+        for (Object[] row : ruleRepository.findAllVersions()) {
+            versions.put((Long) row[0], row[1] == null ? 0L : ((Number) row[1]).longValue());
+        }
+        List<Rule> rules = new ArrayList<>(versions.size());
+        for (Rule rule : saved) {
+            Long version = versions.get(rule.getId());
+            if (version != null && version.equals(rule.getVersion())) {
+                rules.add(rule);
+                versions.remove(rule.getId());
+            }
+        }
+        fromSnapshot[0] = rules.size();
+        fromSnapshot[1] = saved.size();
+        if (!versions.isEmpty()) {
+            rules.addAll(ruleRepository.findAllById(versions.keySet()));
+        }
+        return rules;
+    }
+
+    private void writeSnapshot(Path snapshot, List<Rule> rules) {
+        try {
+            RuleSnapshot.write(snapshot, rules);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write rule snapshot {}: {}", snapshot, e.toString());
+        }
+    }
+
+    // Returns the number of synthetic evaluations run
+    private long evaluate(List<CompiledRule> compiled) {
+        if (settings.getEvaluations() <= 0 || compiled.isEmpty()) {
+            return 0;
+        }
+        Map<String, Set<Object>> samples = new HashMap<>();
+        List<CompiledRule> eligible = new ArrayList<>();
+        for (CompiledRule rule : compiled) {
+            if (collectSamples(rule.getCondition(), samples)) {
+                eligible.add(rule);
+            }
+        }
+        if (eligible.isEmpty()) {
+            return 0;
+        }
+        List<Map<String, Object>> records = syntheticRecords(samples);
+        int perRule = Math.max(records.size(), settings.getEvaluations() / eligible.size());
+        long deadline = System.nanoTime() + settings.getTimeout().toNanos();
+        LongAdder evaluations = new LongAdder();
+        // Both the single-record and the columnar batch path are exercised
+        eligible.parallelStream().forEach(rule -> {
+            boolean[] results = new boolean[records.size()];
+            for (int done = 0; done < perRule && System.nanoTime() < deadline; done += records.size()) {
+                for (Map<String, Object> record : records) {
+                    try {
+                        rule.evaluate(record);
+                    } catch (RuntimeException e) {
+                        // synthetic values may not suit the rule
+                    }
+                }
+                ColumnarBatch.evaluate(rule, records, 0, records.size(), results, new HashMap<>());
+                evaluations.add(2L * records.size());
+            }
+        });
+        return evaluations.sum();
+    }
+
+    /**
+     * Adds values around the constants the condition compares attributes with. Returns false
+     * if the condition reads a name that is not a catalogued attribute, i.e. may call a function.
+     */
+    private boolean collectSamples(Condition condition, Map<String, Set<Object>> samples) {
+        if (condition instanceof Conditions.And) {
+            for (Condition child : ((Conditions.And) condition).getChildren()) {
+                if (!collectSamples(child, samples)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (condition instanceof Conditions.Or) {
+            for (Condition child : ((Conditions.Or) condition).getChildren()) {
+                if (!collectSamples(child, samples)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (condition instanceof Conditions.Not) {
+            return collectSamples(((Conditions.Not) condition).getChild(), samples);
+        }
+        if (condition instanceof Conditions.Constant) {
+            return true;
+        }
+        if (!(condition instanceof Conditions.Comparison)) {
+            return false;
+        }
+        Operand left = ((Conditions.Comparison) condition).getLeft();
+        Operand right = condition instanceof Conditions.Compare ? ((Conditions.Compare) condition).getRight()
+                : condition instanceof Conditions.Equals ? ((Conditions.Equals) condition).getRight() : null;
+        if (!isAttribute(left) || (right instanceof Operand.Reference && !isAttribute(right))) {
+            return false;
+        }
+        if (!(left instanceof Operand.Reference)) {
+            return true;
+        }
+        Set<Object> values = samples.computeIfAbsent(((Operand.Reference) left).getName(), name -> new LinkedHashSet<>());
+        if (condition instanceof Conditions.GreaterThan || condition instanceof Conditions.LessThan
+                || condition instanceof Conditions.NumberEquals) {
+            double constant = condition instanceof Conditions.GreaterThan ? ((Conditions.GreaterThan) condition).getConstant()
+                    : condition instanceof Conditions.LessThan ? ((Conditions.LessThan) condition).getConstant()
+                    : ((Conditions.NumberEquals) condition).getConstant();
+            values.add(constant - 1);
+            values.add(constant);
+            values.add(constant + 1);
+        } else if (condition instanceof Conditions.StringEquals) {
+            String constant = ((Conditions.StringEquals) condition).getConstant();
+            values.add(constant);
+            values.add(constant + "~");
+        }
+        return true;
+    }
+
+    private boolean isAttribute(Operand operand) {
+        return !(operand instanceof Operand.Reference)
+                || attributeService.getAttributeType(((Operand.Reference) operand).getName()) != null;
+    }
+
+    // Each record draws every attribute from its samples, or a value of its type if it has none
+    private List<Map<String, Object>> syntheticRecords(Map<String, Set<Object>> samples) {
+        Random random = new Random(SYNTHETIC_RECORDS);
+        Map<String, Object[]> values = new HashMap<>();
+        for (Map.Entry<String, Set<Object>> entry : samples.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().toArray());
+        }
+        List<Map<String, Object>> records = new ArrayList<>(SYNTHETIC_RECORDS);
+        for (int i = 0; i < SYNTHETIC_RECORDS; i++) {
+            Map<String, Object> record = new HashMap<>();
+            for (Map.Entry<String, Object[]> entry : values.entrySet()) {
+                Object[] candidates = entry.getValue();
+                record.put(entry.getKey(), candidates.length > 0 ? candidates[random.nextInt(candidates.length)]
+                        : defaultValue(entry.getKey(), random));
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    private Object defaultValue(String attribute, Random random) {
+        Attribute.AttributeType type = attributeService.getAttributeType(attribute);
+        if (type == Attribute.AttributeType.NUMBER) {
+            return (double) random.nextInt(100);
+        }
+        if (type == Attribute.AttributeType.BOOLEAN) {
+            return random.nextBoolean();
+        }
+        return "v" + random.nextInt(10);
+    }
+}
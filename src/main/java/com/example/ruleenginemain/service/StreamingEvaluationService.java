@@ -0,0 +1,113 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.BatchEvaluationResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates a rule against an NDJSON stream of records and writes one NDJSON result line per
+ * record, in input order. Records are parsed one at a time with Jackson's streaming parser
+ * and evaluated in chunks of at most {@code rule-engine.stream.max-in-flight}; no more input
+ * is read until a chunk's results are written, so memory stays constant and a fast client is
+ * slowed down by TCP flow control rather than buffered.
+ */
+@Service
+public class StreamingEvaluationService {
+
+    private final RuleService ruleService;
+    private final ObjectMapper objectMapper;
+    private final int maxInFlight;
+
+    @Autowired
+    public StreamingEvaluationService(RuleService ruleService, ObjectMapper objectMapper, RuleEngineProperties properties) {
+        this.ruleService = ruleService;
+        this.objectMapper = objectMapper;
+        this.maxInFlight = Math.max(1, properties.getStream().getMaxInFlight());
+    }
+
+    /**
+     * Writes {@code {"id":..,"matched":..}} for each record, where id is the record's own
+     * {@code id} field or else its position in the stream. A record that cannot be evaluated
+     * yields {@code {"id":..,"error":..}}. Malformed input, or a failure once output has been
+     * written (e.g. the rule was deleted mid-stream), ends the stream with an error line.
+     * Fails before writing anything if the rule does not exist. Returns the number of records.
+     */
+    public long evaluate(Long ruleId, InputStream input, OutputStream output) throws IOException {
+        ruleService.getCompiledRule(ruleId);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null); // lines are separated by the newlines written below
+        List<Map<String, Object>> chunk = new ArrayList<>(Math.min(maxInFlight, 1024));
+        long count = 0;
+        try {
+            String malformed = null;
+            try (MappingIterator<Map<String, Object>> records = objectMapper.readerFor(Map.class).readValues(input)) {
+                while (records.hasNextValue()) {
+                    chunk.add(records.nextValue());
+                    if (chunk.size() == maxInFlight) {
+                        count = flush(ruleId, chunk, count, generator);
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                malformed = e.getOriginalMessage();
+            } catch (RuntimeJsonMappingException e) {
+                malformed = e.getMessage();
+            }
+            count = flush(ruleId, chunk, count, generator);
+            if (malformed != null) {
+                writeError(generator, "Malformed input after record " + count + ": " + malformed);
+            }
+            return count;
+        } catch (RuleEngineException e) {
+            // The response is already committed, so the failure is reported in the stream itself
+            writeError(generator, "Evaluation stopped after record " + count + ": " + e.getMessage());
+            return count;
+        }
+    }
+
+    // Evaluates and writes the pending records; returns the number of records written so far
+    private long flush(Long ruleId, List<Map<String, Object>> chunk, long count, JsonGenerator generator) throws IOException {
+        if (!chunk.isEmpty()) {
+            BatchEvaluationResult result = ruleService.evaluateBatch(ruleId, chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                Map<String, Object> data = chunk.get(i);
+                generator.writeStartObject();
+                generator.writeObjectField("id", data != null && data.containsKey("id") ? data.get("id") : count + i);
+                String error = result.getErrors().get(i);
+                if (error == null) {
+                    generator.writeBooleanField("matched", result.getResults()[i]);
+                } else {
+                    generator.writeStringField("error", error);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            count += chunk.size();
+            chunk.clear();
+        }
+        generator.flush();
+        return count;
+    }
+
+    private void writeError(JsonGenerator generator, String message) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("error", message);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+}
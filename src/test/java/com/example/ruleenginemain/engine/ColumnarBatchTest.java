@@ -0,0 +1,112 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.UserDefinedFunction;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarBatchTest {
+
+    private final FunctionRegistry registry = new FunctionRegistry(0);
+    private final FactSchema schema = new FactSchema(name -> {
+        switch (name) {
+            case "age":
+            case "salary":
+                return Attribute.AttributeType.NUMBER;
+            case "department":
+                return Attribute.AttributeType.STRING;
+            default:
+                return null;
+        }
+    });
+    private final RuleParser parser = new RuleParser(name -> true);
+    private final RuleCompiler compiler = new RuleCompiler(registry::get, schema);
+
+    private CompiledRule compile(String rule) {
+        return compiler.compile(1L, parser.parse(rule));
+    }
+
+    // Mixes clean rows with missing attributes, non-numeric values, empty and null records
+    private static List<Map<String, Object>> records(int count) {
+        Random random = new Random(42);
+        String[] departments = {"Sales", "Marketing", "Engineering"};
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int kind = random.nextInt(20);
+            if (kind == 0) {
+                records.add(random.nextBoolean() ? null : Collections.emptyMap());
+                continue;
+            }
+            Map<String, Object> record = new HashMap<>();
+            if (kind != 1) {
+                record.put("age", kind == 2 ? "unknown" : kind == 3 ? String.valueOf(random.nextInt(60)) : random.nextInt(60));
+            }
+            if (kind != 4) {
+                record.put("salary", 20000 + random.nextInt(80000));
+            }
+            record.put("department", departments[random.nextInt(departments.length)]);
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static void assertSameAsRowWise(CompiledRule rule, List<Map<String, Object>> records) {
+        boolean[] expected = new boolean[records.size()];
+        Set<Integer> expectedErrors = new TreeSet<>();
+        for (int i = 0; i < records.size(); i++) {
+            Map<String, Object> record = records.get(i);
+            if (record == null || record.isEmpty()) {
+                expectedErrors.add(i);
+                continue;
+            }
+            try {
+                expected[i] = rule.evaluate(record);
+            } catch (RuntimeException e) {
+                expectedErrors.add(i);
+            }
+        }
+
+        boolean[] results = new boolean[records.size()];
+        Map<Integer, String> errors = new HashMap<>();
+        int matched = 0;
+        for (int from = 0; from < records.size(); from += 100) {
+            matched += ColumnarBatch.evaluate(rule, records, from, Math.min(records.size(), from + 100), results, errors);
+        }
+
+        assertArrayEquals(expected, results, rule.toString());
+        assertEquals(expectedErrors, new TreeSet<>(errors.keySet()), rule.toString());
+        int expectedMatched = 0;
+        for (boolean result : expected) {
+            expectedMatched += result ? 1 : 0;
+        }
+        assertEquals(expectedMatched, matched);
+    }
+
+    @Test
+    void testMatchesRowWiseEvaluation() {
+        List<Map<String, Object>> records = records(1000);
+        String[] rules = {
+                "age > 30",
+                "age < 25 AND department = 'Sales'",
+                "(age > 30 AND department = 'Sales') OR (salary > 80000 AND department != 'Engineering')",
+                "NOT (age > 40) AND salary < 50000",
+                "age = 30 OR salary != 50000",
+                "department = 'Marketing' OR NOT (age < 50 OR salary > 90000)",
+                "salary > age",
+        };
+        for (String rule : rules) {
+            assertSameAsRowWise(compile(rule), records);
+        }
+    }
+
+    @Test
+    void testFunctionReferencesFallBackToRecordEvaluation() {
+        registry.register(new UserDefinedFunction("bonus", d -> ((Number) d.get("salary")).doubleValue() / 10));
+        List<Map<String, Object>> records = records(300);
+        assertSameAsRowWise(compile("bonus > 5000 AND department = 'Sales'"), records);
+        assertSameAsRowWise(compile("bonus = 5000 OR age > 50"), records);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.Node;
+import com.example.ruleenginemain.model.UserDefinedFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledDecisionSetTest {
+
+    private final FunctionRegistry registry = new FunctionRegistry(0);
+    private final Function<String, Attribute.AttributeType> types =
+            name -> "score".equals(name) ? Attribute.AttributeType.NUMBER : null;
+    private final FactSchema schema = new FactSchema(types);
+    private final RuleCompiler compiler = new RuleCompiler(registry::get, schema);
+    private final AtomicInteger riskCalls = new AtomicInteger();
+
+    private static Node comparison(String attribute, String operator, String value) {
+        return new Node("operator", new Node("operand", null, null, attribute), new Node("operand", null, null, value), operator);
+    }
+
+    private static Node and(Node left, Node right) {
+        return new Node("operator", left, right, "AND");
+    }
+
+    private static Map<String, Object> record(double score) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("score", score);
+        return data;
+    }
+
+    @BeforeEach
+    void registerRisk() {
+        registry.register(new UserDefinedFunction("risk", d -> {
+            riskCalls.incrementAndGet();
+            return 7;
+        }));
+    }
+
+    @Test
+    void testFirstMatchStopsAtTheWinningRule() {
+        CompiledDecisionSet set = new CompiledDecisionSet(1L, true, Arrays.asList(
+                compiler.compile(10L, comparison("score", ">", "50")),
+                compiler.compile(20L, comparison("risk", ">", "5"))), types);
+
+        assertEquals(Collections.singletonList(10L), set.evaluate(schema.fact(record(80))));
+        assertEquals(0, riskCalls.get());
+        assertEquals(Collections.singletonList(20L), set.evaluate(schema.fact(record(20))));
+        assertEquals(1, riskCalls.get());
+    }
+
+    @Test
+    void testAllMatchReportsRulesInTryOrder() {
+        CompiledDecisionSet set = new CompiledDecisionSet(1L, false, Arrays.asList(
+                compiler.compile(30L, comparison("score", "<", "10")),
+                compiler.compile(20L, comparison("risk", ">", "5")),
+                compiler.compile(10L, comparison("score", ">", "50"))), types);
+
+        assertEquals(Arrays.asList(20L, 10L), set.evaluate(schema.fact(record(80))));
+        assertEquals(Arrays.asList(30L, 20L), set.evaluate(schema.fact(record(5))));
+    }
+
+    @Test
+    void testSharedConditionIsEvaluatedOncePerFact() {
+        CompiledDecisionSet set = new CompiledDecisionSet(1L, true, Arrays.asList(
+                compiler.compile(10L, and(comparison("risk", ">", "5"), comparison("score", ">", "90"))),
+                compiler.compile(20L, and(comparison("risk", ">", "5"), comparison("score", ">", "10")))), types);
+
+        // two ANDs over three leaves, the risk check shared
+        assertEquals(5, set.distinctConditions());
+        assertEquals(Collections.singletonList(20L), set.evaluate(schema.fact(record(50))));
+        assertEquals(1, riskCalls.get());
+    }
+}
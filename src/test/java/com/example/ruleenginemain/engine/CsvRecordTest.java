@@ -0,0 +1,54 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Attribute;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRecordTest {
+
+    private final CsvRecord.Header header = new CsvRecord.Header("id,age,\"department\",note",
+            name -> name.equals("age") ? Attribute.AttributeType.NUMBER : Attribute.AttributeType.STRING);
+
+    private CsvRecord record(String line) {
+        ByteBuffer buffer = ByteBuffer.wrap(("xx" + line + "\n").getBytes(StandardCharsets.UTF_8));
+        return CsvRecord.of(header, buffer, 2, buffer.limit() - 1);
+    }
+
+    @Test
+    void testReadsFieldsByCatalogType() {
+        CsvRecord record = record("7,35.25,Sales,\"says \"\"hi\"\", twice\"");
+        assertEquals("7", record.get("id"));
+        assertEquals(35.25, record.get("age"));
+        assertEquals("Sales", record.get("department"));
+        assertEquals("says \"hi\", twice", record.get("note"));
+        assertNull(record.get("salary"));
+        assertEquals(Map.of("id", "7", "age", 35.25, "department", "Sales", "note", "says \"hi\", twice"), record);
+    }
+
+    @Test
+    void testEmptyAndMissingFieldsAreAbsent() {
+        CsvRecord record = record("8,,Sales");
+        assertNull(record.get("age"));
+        assertFalse(record.containsKey("age"));
+        assertNull(record.get("note"));
+        assertEquals(2, record.size());
+        assertTrue(record("").isEmpty());
+    }
+
+    @Test
+    void testParsesNumbersLikeDoubleParseDouble() {
+        String[] numbers = {"0", "-12", "+3", "0.1", "123456789012345", "1234567890123456789", "1e3", "1.", "-0.000001",
+                "9007199254740993", "abc", "1.2.3", "-", "."};
+        for (String number : numbers) {
+            ByteBuffer buffer = ByteBuffer.wrap(number.getBytes(StandardCharsets.US_ASCII));
+            double expected = Operand.toNumberOrNaN(number);
+            assertEquals(expected, CsvRecord.parseNumber(buffer, 0, buffer.limit()), number);
+        }
+        assertEquals("abc", record("9,abc").get("age"));
+    }
+}
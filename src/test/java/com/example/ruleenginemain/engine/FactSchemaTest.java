@@ -0,0 +1,80 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.UserDefinedFunction;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FactSchemaTest {
+
+    private final Map<String, Attribute.AttributeType> catalog = new HashMap<>();
+    private final FactSchema schema = new FactSchema(catalog::get);
+
+    FactSchemaTest() {
+        catalog.put("age", Attribute.AttributeType.NUMBER);
+        catalog.put("department", Attribute.AttributeType.STRING);
+    }
+
+    @Test
+    void testFactStoresCatalogedAttributesBySlot() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", "35");
+        data.put("department", new String("Sales"));
+        data.put("note", "not catalogued");
+
+        Fact fact = schema.fact(data);
+
+        int age = schema.slot("age");
+        assertEquals(35.0, fact.number(age));
+        assertEquals("Sales", fact.get("department"));
+        assertEquals("not catalogued", fact.get("note"));
+        assertEquals(-1, schema.slot("note"));
+        assertEquals(data, new HashMap<>(fact));
+        assertThrows(UnsupportedOperationException.class, () -> fact.put("age", 1));
+    }
+
+    @Test
+    void testCompiledRuleGivesSameResultOnFactAndMap() {
+        Map<String, UserDefinedFunction> functions = new HashMap<>();
+        functions.put("bonus", new UserDefinedFunction("bonus", d -> ((Number) d.get("salary")).doubleValue() * 0.1));
+        catalog.put("salary", Attribute.AttributeType.NUMBER);
+        CompiledRule rule = new RuleCompiler(functions::get, schema).compile(1L,
+                new RuleParser(name -> true).parse("(age > 30 AND department = 'Sales') OR bonus > 5000"));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 25);
+        data.put("department", "Sales");
+        data.put("salary", 60000);
+        assertTrue(rule.evaluate(data));
+        assertTrue(rule.evaluate(schema.fact(data)));
+        data.put("salary", 40000);
+        assertFalse(rule.evaluate(data));
+        assertFalse(rule.evaluate(schema.fact(data)));
+
+        // a slot added after compilation does not disturb existing ones
+        catalog.put("level", Attribute.AttributeType.NUMBER);
+        data.put("level", 3);
+        data.put("age", 40);
+        assertTrue(rule.evaluate(schema.fact(data)));
+    }
+
+    @Test
+    void testViewLoadsSlotsFromRecord() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", "41");
+        data.put("department", "Sales");
+        int age = schema.slot("age");
+        int department = schema.slot("department");
+
+        Fact view = schema.view(data, Math.max(age, department) + 1);
+
+        assertEquals(41.0, view.number(age));
+        assertEquals("Sales", view.value(department));
+        assertTrue(Double.isNaN(view.number(department)));
+        assertEquals(data, view);
+    }
+}
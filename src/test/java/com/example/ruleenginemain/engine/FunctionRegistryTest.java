@@ -0,0 +1,133 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.Node;
+import com.example.ruleenginemain.model.UserDefinedFunction;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FunctionRegistryTest {
+
+    private final FunctionRegistry registry = new FunctionRegistry(100);
+    private final FactSchema schema = new FactSchema(name -> "salary".equals(name) ? Attribute.AttributeType.NUMBER : null);
+    private final RuleCompiler compiler = new RuleCompiler(registry::get, schema);
+
+    private static Node comparison(String attribute, String operator, String value) {
+        return new Node("operator", new Node("operand", null, null, attribute), new Node("operand", null, null, value), operator);
+    }
+
+    private static Node between(String function) {
+        return new Node("operator", comparison(function, ">", "50"), comparison(function, "<", "90"), "AND");
+    }
+
+    private static Map<String, Object> record(double salary) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("salary", salary);
+        return data;
+    }
+
+    @Test
+    void testPureFunctionIsCalledOncePerFact() {
+        AtomicInteger calls = new AtomicInteger();
+        registry.register(new UserDefinedFunction("bonus", d -> {
+            calls.incrementAndGet();
+            return ((Number) d.get("salary")).doubleValue() * 0.1;
+        }, true, Collections.emptyList(), null));
+        CompiledRule rule = compiler.compile(1L, between("bonus"));
+
+        assertTrue(rule.evaluate(record(600)));
+        assertEquals(1, calls.get());
+        assertTrue(rule.evaluate(record(600)));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testImpureFunctionIsCalledForEveryReference() {
+        AtomicInteger calls = new AtomicInteger();
+        registry.register(new UserDefinedFunction("bonus", d -> {
+            calls.incrementAndGet();
+            return 60;
+        }));
+
+        assertTrue(compiler.compile(1L, between("bonus")).evaluate(record(600)));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testResultsAreCachedAcrossRecordsByInputs() {
+        AtomicInteger calls = new AtomicInteger();
+        registry.register(new UserDefinedFunction("bonus", d -> {
+            calls.incrementAndGet();
+            return ((Number) d.get("salary")).doubleValue() * 0.1;
+        }, true, Collections.singletonList("salary"), null));
+        CompiledRule rule = compiler.compile(1L, between("bonus"));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(rule.evaluate(record(600)));
+            assertFalse(rule.evaluate(record(1000)));
+        }
+
+        assertEquals(2, calls.get());
+        FunctionRegistry.Stats stats = registry.stats().get(0);
+        assertEquals(2, stats.getCalls());
+        assertEquals(38, stats.getCacheHits());
+    }
+
+    @Test
+    void testSlowFunctionTimesOut() {
+        registry.register(new UserDefinedFunction("slow", d -> {
+            try {
+                Thread.sleep(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        }, false, null, Duration.ofMillis(20)));
+        CompiledRule rule = compiler.compile(1L, comparison("slow", ">", "0"));
+
+        RuleEngineException e = assertThrows(RuleEngineException.class, () -> rule.evaluate(record(1)));
+        assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        assertEquals(1, registry.stats().get(0).getTimeouts());
+    }
+
+    @Test
+    void testTimedFunctionGetsACopyOfItsInputsAndFailsFastWhenThreadsAreBusy() throws InterruptedException {
+        FunctionRegistry bounded = new FunctionRegistry(0, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, Object> seen = new ConcurrentHashMap<>();
+        bounded.register(new UserDefinedFunction("stuck", d -> {
+            seen.putAll(d);
+            // ignores interrupts, so its thread stays busy after the timeout
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                    // keep waiting
+                }
+            }
+            return 1;
+        }, false, Collections.singletonList("salary"), Duration.ofMillis(20)));
+        CompiledRule rule = new RuleCompiler(bounded::get, schema).compile(1L, comparison("stuck", ">", "0"));
+        Map<String, Object> data = record(1);
+        data.put("name", "x");
+
+        RuleEngineException timedOut = assertThrows(RuleEngineException.class, () -> rule.evaluate(data));
+        assertTrue(timedOut.getMessage().contains("timed out"), timedOut.getMessage());
+        assertEquals(Collections.singletonMap("salary", 1.0), seen);
+
+        RuleEngineException rejected = assertThrows(RuleEngineException.class, () -> rule.evaluate(data));
+        assertTrue(rejected.getMessage().contains("busy"), rejected.getMessage());
+        assertEquals(2, bounded.stats().get(0).getFailures());
+        release.countDown();
+    }
+}
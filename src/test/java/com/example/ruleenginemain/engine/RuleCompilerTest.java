@@ -0,0 +1,202 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.Node;
+import com.example.ruleenginemain.model.UserDefinedFunction;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleCompilerTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(name -> null);
+
+    private static Node comparison(String attribute, String operator, String value) {
+        return new Node("operator", new Node("operand", null, null, attribute), new Node("operand", null, null, value), operator);
+    }
+
+    @Test
+    void testNumericLiteralsAreSpecialised() {
+        CompiledRule rule = compiler.compile(1L, comparison("30", "<", "age"));
+
+        Condition condition = rule.getCondition();
+        assertTrue(condition instanceof Conditions.GreaterThan);
+        assertEquals(30.0, ((Conditions.GreaterThan) condition).getConstant());
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        assertTrue(rule.evaluate(data));
+        data.put("age", "25");
+        assertFalse(rule.evaluate(data));
+    }
+
+    @Test
+    void testStringEquality() {
+        CompiledRule rule = compiler.compile(1L, new Node("operator",
+                comparison("department", "=", "'Sales'"),
+                comparison("role", "!=", "'Intern'"),
+                "AND"));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("department", "Sales");
+        data.put("role", "Manager");
+        assertTrue(rule.evaluate(data));
+        data.put("role", "Intern");
+        assertFalse(rule.evaluate(data));
+    }
+
+    @Test
+    void testMissingNumericAttributeFails() {
+        CompiledRule rule = compiler.compile(1L, comparison("age", ">", "30"));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", "John");
+        assertThrows(RuleEngineException.class, () -> rule.evaluate(data));
+    }
+
+    @Test
+    void testNestedChainsAreFlattened() {
+        Node left = new Node("operator", comparison("age", ">", "30"), comparison("level", "<", "5"), "AND");
+        Node right = new Node("operator", comparison("age", ">", "30"), comparison("salary", ">", "100"), "AND");
+        CompiledRule rule = compiler.compile(1L, new Node("operator", left, right, "AND"));
+
+        Condition condition = rule.getCondition();
+        assertTrue(condition instanceof Conditions.And);
+        assertEquals(3, ((Conditions.And) condition).getChildren().length);
+    }
+
+    @Test
+    void testExpensiveRarelyDecisiveChildMovesLast() {
+        AtomicInteger calls = new AtomicInteger();
+        Map<String, UserDefinedFunction> functions = new HashMap<>();
+        functions.put("score", new UserDefinedFunction("score", d -> {
+            calls.incrementAndGet();
+            long spin = System.nanoTime() + 20_000;
+            long now;
+            do {
+                now = System.nanoTime();
+            } while (now < spin);
+            return 100;
+        }));
+        CompiledRule rule = new RuleCompiler(functions::get).compile(1L,
+                new Node("operator", comparison("score", ">", "50"), comparison("age", ">", "90"), "AND"));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        for (int i = 0; i < 20_000; i++) {
+            assertFalse(rule.evaluate(data));
+        }
+
+        Condition[] order = ((Conditions.And) rule.getCondition()).getEvaluationOrder();
+        assertTrue(order[0] instanceof Conditions.GreaterThan
+                && ((Conditions.GreaterThan) order[0]).getConstant() == 90.0);
+        assertTrue(calls.get() < 10_000, "score evaluated " + calls.get() + " times");
+    }
+
+    @Test
+    void testReorderingKeepsOutcomesAndWrittenOrderFailures() {
+        CompiledRule rule = compiler.compile(1L,
+                new Node("operator", comparison("age", ">", "30"), comparison("level", "<", "0"), "AND"));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        data.put("level", 3);
+        for (int i = 0; i < 20_000; i++) {
+            rule.evaluate(data);
+        }
+        // level is tested first now, and settles the result before the missing age is read
+        data.remove("age");
+        assertFalse(rule.evaluate(data));
+        // a failure in the adapted order is reported as the written order reports it
+        data.put("age", "unknown");
+        data.remove("level");
+        RuleEngineException e = assertThrows(RuleEngineException.class, () -> rule.evaluate(data));
+        assertTrue(e.getMessage().contains("age"), e.getMessage());
+    }
+
+    @Test
+    void testFailingChildIsEvaluatedOncePerRecord() {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean failing = new AtomicBoolean();
+        Map<String, UserDefinedFunction> functions = new HashMap<>();
+        functions.put("score", new UserDefinedFunction("score", d -> {
+            calls.incrementAndGet();
+            if (failing.get()) {
+                throw new RuleEngineException("score unavailable");
+            }
+            long spin = System.nanoTime() + 20_000;
+            while (System.nanoTime() < spin) {
+                // simulates an expensive call
+            }
+            return 100;
+        }));
+        CompiledRule rule = new RuleCompiler(functions::get).compile(1L,
+                new Node("operator", comparison("score", ">", "50"), comparison("age", ">", "90"), "AND"));
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        for (int i = 0; i < 20_000; i++) {
+            rule.evaluate(data);
+        }
+        assertTrue(((Conditions.And) rule.getCondition()).getEvaluationOrder()[0] instanceof Conditions.GreaterThan);
+
+        // age no longer settles the result, so the failure is reported, from the single call made
+        failing.set(true);
+        data.put("age", 95);
+        calls.set(0);
+        for (int i = 0; i < 100; i++) {
+            RuleEngineException e = assertThrows(RuleEngineException.class, () -> rule.evaluate(data));
+            assertTrue(e.getMessage().contains("score unavailable"), e.getMessage());
+        }
+        assertEquals(100, calls.get());
+    }
+
+    @Test
+    void testConstantsAndRedundantBoundsAreRemoved() {
+        Node folded = new Node("operator", comparison("5", ">", "3"), comparison("age", ">", "30"), "AND");
+        assertEquals(new Conditions.GreaterThan(Operand.parse("age", name -> null), 30),
+                compiler.compile(1L, folded).getCondition());
+
+        Node bounds = new Node("operator",
+                new Node("operator", comparison("age", ">", "30"), comparison("age", ">", "20"), "AND"),
+                new Node("operator", comparison("age", "<", "60"), comparison("age", "<", "70"), "AND"),
+                "AND");
+        Condition condition = compiler.compile(1L, bounds).getCondition();
+        assertEquals("(age > 30.0 AND age < 60.0)", condition.toString());
+
+        Node loosest = new Node("operator", comparison("age", ">", "30"),
+                new Node("operator", comparison("age", ">", "20"), comparison("age", "=", "25"), "OR"), "OR");
+        assertEquals("age > 20.0", compiler.compile(1L, loosest).getCondition().toString());
+
+        Node negated = new Node("operator", new Node("operator", comparison("role", "=", "'Intern'"), null, "NOT"), null, "NOT");
+        assertTrue(compiler.compile(1L, negated).getCondition() instanceof Conditions.StringEquals);
+    }
+
+    @Test
+    void testAlwaysTrueAndAlwaysFalseRulesAreDetected() {
+        CompiledRule contradiction = compiler.compile(1L,
+                new Node("operator", comparison("age", ">", "50"), comparison("age", "<", "10"), "AND"));
+        assertTrue(contradiction.isConstant());
+        assertSame(Conditions.FALSE, contradiction.getCondition());
+
+        CompiledRule notFolded = compiler.compile(2L, new Node("operator",
+                comparison("department", "=", "'Sales'"),
+                new Node("operator", comparison("1", "<", "2"), null, "NOT"),
+                "OR"));
+        assertFalse(notFolded.isConstant());
+        CompiledRule always = compiler.compile(3L, new Node("operator",
+                comparison("department", "=", "'Sales'"), comparison("1", "<", "2"), "OR"));
+        assertSame(Conditions.TRUE, always.getCondition());
+
+        assertFalse(compiler.compile(4L, comparison("age", ">", "30")).isConstant());
+    }
+
+    @Test
+    void testUnknownOperatorIsRejectedAtCompileTime() {
+        assertThrows(RuleEngineException.class, () -> compiler.compile(1L, comparison("age", ">=", "30")));
+    }
+}
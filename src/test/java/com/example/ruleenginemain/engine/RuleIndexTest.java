@@ -0,0 +1,178 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleIndexTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(name -> null);
+    private final RuleIndex index = new RuleIndex(name -> false, name -> null);
+
+    private static Node comparison(String attribute, String operator, String value) {
+        return new Node("operator", new Node("operand", null, null, attribute), new Node("operand", null, null, value), operator);
+    }
+
+    private static Node and(Node left, Node right) {
+        return new Node("operator", left, right, "AND");
+    }
+
+    @Test
+    void testSharedConditionsAreStoredOnce() {
+        Node age = comparison("age", ">", "30");
+        Node sales = comparison("department", "=", "'Sales'");
+        index.put(compiler.compile(1L, and(age, sales)), null);
+        index.put(compiler.compile(2L, comparison("age", ">", "30")), null);
+        index.put(compiler.compile(3L, and(and(age, sales), comparison("salary", ">", "50000"))), null);
+
+        // age > 30, department = 'Sales', their AND, salary > 50000 and the outer AND
+        assertEquals(5, index.distinctConditions());
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        data.put("department", "Sales");
+        assertEquals(Arrays.asList(1L, 2L), index.match(data, null));
+
+        data.put("salary", 60000);
+        assertEquals(Arrays.asList(1L, 2L, 3L), index.match(data, null));
+    }
+
+    @Test
+    void testRemoveReleasesUnsharedConditions() {
+        index.put(compiler.compile(1L, comparison("age", ">", "30")), null);
+        index.put(compiler.compile(2L, and(comparison("age", ">", "30"), comparison("salary", ">", "50000"))), null);
+        assertEquals(3, index.distinctConditions());
+
+        index.remove(2L);
+        assertEquals(1, index.distinctConditions());
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        data.put("salary", 60000);
+        assertEquals(Collections.singletonList(1L), index.match(data, null));
+    }
+
+    @Test
+    void testMissingAttributeCountsAsFalse() {
+        index.put(compiler.compile(1L, new Node("operator",
+                comparison("age", ">", "30"), comparison("department", "=", "'Sales'"), "OR")), null);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("department", "Sales");
+        assertEquals(Collections.singletonList(1L), index.match(data, null));
+    }
+
+    @Test
+    void testCatalogedAttributesAreMatchedThroughPredicateIndex() {
+        Map<String, Attribute.AttributeType> catalog = new HashMap<>();
+        catalog.put("age", Attribute.AttributeType.NUMBER);
+        catalog.put("department", Attribute.AttributeType.STRING);
+        RuleIndex indexed = new RuleIndex(name -> false, catalog::get);
+
+        indexed.put(compiler.compile(1L, and(comparison("age", ">", "30"), comparison("department", "=", "'Sales'"))), null);
+        indexed.put(compiler.compile(2L, comparison("age", "<", "40")), null);
+        indexed.put(compiler.compile(3L, comparison("age", "=", "35")), null);
+        indexed.put(compiler.compile(4L, new Node("operator",
+                comparison("age", ">", "50"), comparison("department", "=", "'Sales'"), "OR")), null);
+        indexed.put(compiler.compile(5L, comparison("age", ">", "35")), null);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        data.put("department", "Sales");
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), indexed.match(data, null));
+
+        data.put("age", "51");
+        data.put("department", "Marketing");
+        assertEquals(Arrays.asList(4L, 5L), indexed.match(data, null));
+    }
+
+    @Test
+    void testPutAllMatchesLikeIndividualPuts() {
+        Map<String, Attribute.AttributeType> catalog = new HashMap<>();
+        catalog.put("age", Attribute.AttributeType.NUMBER);
+        catalog.put("department", Attribute.AttributeType.STRING);
+        RuleIndex indexed = new RuleIndex(name -> false, catalog::get);
+        indexed.put(compiler.compile(1L, comparison("age", ">", "30")), null);
+
+        List<CompiledRule> rules = new ArrayList<>();
+        List<Set<String>> tags = new ArrayList<>();
+        for (long id = 2; id <= 1000; id++) {
+            rules.add(compiler.compile(id, and(comparison("age", ">", String.valueOf(id)),
+                    comparison("department", "=", "'Sales'"))));
+            tags.add(id % 2 == 0 ? Collections.singleton("even") : null);
+        }
+        // Replaces rule 1 within the same bulk put
+        rules.add(compiler.compile(1L, comparison("age", "<", "5")));
+        tags.add(null);
+        indexed.putAll(rules, tags);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 5.5);
+        data.put("department", "Sales");
+        assertEquals(Arrays.asList(2L, 3L, 4L, 5L), indexed.match(data, null));
+        assertEquals(Arrays.asList(2L, 4L), indexed.match(data, "even"));
+
+        data.put("age", 1);
+        assertEquals(Collections.singletonList(1L), indexed.match(data, null));
+    }
+
+    @Test
+    void testReleasedNodeIdsAreReusedOnceNoMatchCanSeeThem() {
+        Map<String, Attribute.AttributeType> catalog = new HashMap<>();
+        catalog.put("age", Attribute.AttributeType.NUMBER);
+        ConditionNetwork network = new ConditionNetwork(catalog::get);
+        Map<String, Object> data = Collections.singletonMap("age", 40);
+        for (int threshold = 0; threshold < 100; threshold++) {
+            ConditionNetwork.NetworkNode node = network.acquire(compiler.compile(1L,
+                    and(comparison("age", ">", String.valueOf(threshold)), comparison("age", "<", "50"))).getCondition());
+            ConditionNetwork.Memo memo = network.begin(data, new ArrayList<>());
+            assertEquals(threshold < 40, node.evaluate(memo));
+            network.end(memo);
+            network.release(node);
+        }
+        assertEquals(3, network.nodeCapacity());
+
+        // A match still running may hold the released nodes, so their ids are not handed out yet
+        ConditionNetwork.Memo running = network.begin(data, new ArrayList<>());
+        for (int threshold = 0; threshold < 4; threshold++) {
+            network.release(network.acquire(compiler.compile(1L,
+                    comparison("age", ">", String.valueOf(threshold))).getCondition()));
+        }
+        assertEquals(4, network.nodeCapacity());
+        network.end(running);
+        network.release(network.acquire(compiler.compile(1L, comparison("age", ">", "4")).getCondition()));
+        assertEquals(4, network.nodeCapacity());
+    }
+
+    @Test
+    void testMemosAreReusedAcrossThreads() throws Exception {
+        Map<String, Object> data = Collections.singletonMap("age", 40);
+        ConditionNetwork network = new ConditionNetwork(name -> null);
+        ConditionNetwork.Memo first = network.begin(data, new ArrayList<>());
+        network.end(first);
+        assertEquals(1, network.idleMemos());
+        // A match on another thread, as each request on its own virtual thread, takes the same memo
+        AtomicReference<ConditionNetwork.Memo> taken = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            taken.set(network.begin(data, new ArrayList<>()));
+            network.end(taken.get());
+        });
+        thread.start();
+        thread.join();
+        assertSame(first, taken.get());
+        assertEquals(1, network.idleMemos());
+
+        // Concurrent matches each get their own memo
+        ConditionNetwork.Memo a = network.begin(data, new ArrayList<>());
+        ConditionNetwork.Memo b = network.begin(data, new ArrayList<>());
+        assertNotSame(a, b);
+        network.end(a);
+        network.end(b);
+        assertEquals(2, network.idleMemos());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleParserTest {
+
+    private final RuleParser parser = new RuleParser(name -> !name.equals("unknown"));
+
+    @Test
+    void testAndBindsTighterThanOr() {
+        Node root = parser.parse("age > 30 OR department = 'Sales' AND salary > 50000");
+
+        assertEquals("OR", root.getValue());
+        assertEquals(">", root.getLeft().getValue());
+        assertEquals("AND", root.getRight().getValue());
+        assertEquals("(age > 30 OR (department = 'Sales' AND salary > 50000))", RuleParser.format(root));
+    }
+
+    @Test
+    void testParenthesesAndNot() {
+        Node root = parser.parse("NOT (age > 30 OR age < 18) AND department != \"Sales\"");
+
+        assertEquals("AND", root.getValue());
+        assertEquals("NOT", root.getLeft().getValue());
+        assertEquals("OR", root.getLeft().getLeft().getValue());
+        assertNull(root.getLeft().getRight());
+        assertEquals("\"Sales\"", root.getRight().getRight().getValue());
+    }
+
+    @Test
+    void testFormatRoundTrips() {
+        String formatted = RuleParser.format(parser.parse("(a > -1.5 AND NOT b = 'x y') OR c < 2e3"));
+
+        assertEquals(formatted, RuleParser.format(parser.parse(formatted)));
+    }
+
+    @Test
+    void testParsedRuleEvaluates() {
+        CompiledRule rule = new RuleCompiler(name -> null)
+                .compile(1L, parser.parse("age > 30 AND (department = 'Sales' OR NOT level < 3)"));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        data.put("department", "Marketing");
+        data.put("level", 5);
+        assertTrue(rule.evaluate(data));
+        data.put("level", 2);
+        assertFalse(rule.evaluate(data));
+    }
+
+    @Test
+    void testSyntaxErrors() {
+        assertThrows(RuleEngineException.class, () -> parser.parse("age > "));
+        assertThrows(RuleEngineException.class, () -> parser.parse("(age > 30"));
+        assertThrows(RuleEngineException.class, () -> parser.parse("age > 30)"));
+        assertThrows(RuleEngineException.class, () -> parser.parse("age >= 30"));
+        assertThrows(RuleEngineException.class, () -> parser.parse("name = 'open"));
+        assertThrows(RuleEngineException.class, () -> parser.parse("age > 30 AND AND b < 1"));
+        assertThrows(RuleEngineException.class, () -> parser.parse("unknown > 30"));
+    }
+
+    @Test
+    void testTypeChecking() {
+        Map<String, Attribute.AttributeType> catalog = new HashMap<>();
+        catalog.put("age", Attribute.AttributeType.NUMBER);
+        catalog.put("department", Attribute.AttributeType.STRING);
+        RuleParser typed = new RuleParser(name -> true, catalog::get);
+
+        assertNotNull(typed.parse("age > 30 AND department = 'Sales' AND score = 'x'"));
+        assertThrows(RuleEngineException.class, () -> typed.parse("age = 'thirty'"));
+        assertThrows(RuleEngineException.class, () -> typed.parse("department > 5"));
+        assertThrows(RuleEngineException.class, () -> typed.parse("age != department"));
+    }
+}
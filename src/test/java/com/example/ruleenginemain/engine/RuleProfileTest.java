@@ -0,0 +1,91 @@
+package com.example.ruleenginemain.engine;
+
+import com.example.ruleenginemain.model.Node;
+import com.example.ruleenginemain.model.UserDefinedFunction;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleProfileTest {
+
+    private final RuleCompiler compiler = new RuleCompiler(name -> null);
+
+    private static Node comparison(String attribute, String operator, String value) {
+        return new Node("operator", new Node("operand", null, null, attribute), new Node("operand", null, null, value), operator);
+    }
+
+    @Test
+    void testProfileCountsVisitsAndShortCircuits() {
+        CompiledRule rule = compiler.compile(1L, new Node("operator",
+                comparison("age", ">", "30"),
+                new Node("operator", comparison("level", ">", "5"), null, "NOT"),
+                "AND"));
+        RuleProfile profile = new RuleProfile(rule.getCondition());
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("level", 10);
+        for (int age = 0; age < 100; age++) {
+            data.put("age", age);
+            assertEquals(rule.evaluate(data), rule.evaluate(data, profile));
+        }
+
+        RuleProfile.Snapshot snapshot = profile.snapshot();
+        assertEquals(100, snapshot.getEvaluations());
+        List<RuleProfile.NodeStats> nodes = snapshot.getNodes();
+        assertEquals("0", nodes.get(0).getPath());
+        assertEquals("AND", nodes.get(0).getLabel());
+        assertEquals(100, nodes.get(0).getVisits());
+        assertEquals(0, nodes.get(0).getSatisfied());
+        // NOT is always false and age > 30 is false for 31 records, so some evaluations stop early
+        assertTrue(nodes.get(0).getShortCircuits() > 0);
+        assertEquals("age > 30.0", nodes.get(1).getLabel());
+        assertEquals("NOT", nodes.get(2).getLabel());
+        assertEquals(0, nodes.get(2).getSatisfied());
+        assertEquals(nodes.get(2).getVisits(), nodes.get(3).getVisits());
+        assertEquals("0.1.0", nodes.get(3).getPath());
+        assertEquals(2, nodes.get(3).getDepth());
+    }
+
+    @Test
+    void testFoldedStacks() {
+        CompiledRule rule = compiler.compile(7L, new Node("operator",
+                comparison("age", ">", "30"), comparison("level", "<", "3"), "OR"));
+        RuleProfile profile = new RuleProfile(rule.getCondition());
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 10);
+        data.put("level", 1);
+        for (int i = 0; i < 1000; i++) {
+            rule.evaluate(data, profile);
+        }
+
+        String folded = profile.folded("rule-7");
+        assertTrue(folded.contains("rule-7;OR;age > 30.0 "), folded);
+        for (String line : folded.split("\n")) {
+            assertTrue(line.matches("rule-7;OR(;[^;]+)? \\d+"), line);
+        }
+    }
+
+    @Test
+    void testConditionErrorPropagatesWithoutReevaluation() {
+        AtomicInteger calls = new AtomicInteger();
+        UserDefinedFunction failing = new UserDefinedFunction("score", d -> {
+            calls.incrementAndGet();
+            throw new IllegalArgumentException("no score");
+        });
+        CompiledRule rule = new RuleCompiler(name -> "score".equals(name) ? failing : null).compile(1L,
+                new Node("operator", comparison("age", ">", "30"), comparison("score", ">", "1"), "AND"));
+        RuleProfile profile = new RuleProfile(rule.getCondition());
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 40);
+
+        assertThrows(RuntimeException.class, () -> rule.evaluate(data, profile));
+        assertEquals(1, calls.get());
+        assertEquals(1, profile.snapshot().getEvaluations());
+        assertTrue(new RuleProfile(Conditions.TRUE).isFor(Conditions.TRUE));
+    }
+}
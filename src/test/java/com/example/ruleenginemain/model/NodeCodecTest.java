@@ -0,0 +1,35 @@
+package com.example.ruleenginemain.model;
+
+import com.example.ruleenginemain.engine.RuleParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeCodecTest {
+
+    @Test
+    void testRoundTrip() {
+        Node root = new RuleParser(name -> true)
+                .parse("(age > 30 AND NOT department = 'Salés') OR salary != -1.5e3");
+        root.getRight().setType("custom");
+
+        Node decoded = NodeCodec.decode(NodeCodec.encode(root));
+
+        assertEquals(RuleParser.format(root), RuleParser.format(decoded));
+        assertEquals("custom", decoded.getRight().getType());
+        assertNull(decoded.getLeft().getRight().getRight());
+    }
+
+    @Test
+    void testRuleDecodesCompactTree() {
+        Node root = new RuleParser(name -> true).parse("age > 30");
+        Rule rule = new Rule("age > 30", root);
+        assertTrue(rule.isStoredAsNodes());
+
+        rule.setCompactRoot(root);
+
+        assertFalse(rule.isStoredAsNodes());
+        assertSame(root, rule.getRootNode());
+        assertThrows(IllegalArgumentException.class, () -> NodeCodec.decode(new byte[]{9}));
+    }
+}
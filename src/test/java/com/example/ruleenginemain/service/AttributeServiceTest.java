@@ -0,0 +1,50 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.repository.AttributeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AttributeServiceTest {
+
+    @Mock
+    private AttributeRepository attributeRepository;
+
+    @InjectMocks
+    private AttributeService attributeService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testCatalogIsLoadedOnceAndUpdatedOnCreate() {
+        when(attributeRepository.findAll())
+                .thenReturn(Collections.singletonList(new Attribute("age", Attribute.AttributeType.NUMBER)));
+        when(attributeRepository.save(any(Attribute.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        assertTrue(attributeService.isValidAttribute("age"));
+        assertEquals(Attribute.AttributeType.NUMBER, attributeService.getAttributeType("age"));
+        assertThrows(RuleEngineException.class, () -> attributeService.isValidAttribute("department"));
+
+        attributeService.createAttribute("department", Attribute.AttributeType.STRING);
+
+        assertEquals(Attribute.AttributeType.STRING, attributeService.getAttributeType("department"));
+        assertThrows(RuleEngineException.class,
+                () -> attributeService.createAttribute("age", Attribute.AttributeType.NUMBER));
+        verify(attributeRepository, times(1)).findAll();
+        verify(attributeRepository, never()).findByName(anyString());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.engine.CompiledRule;
+import com.example.ruleenginemain.engine.Conditions;
+import com.example.ruleenginemain.engine.FactSchema;
+import com.example.ruleenginemain.model.DecisionSet;
+import com.example.ruleenginemain.repository.DecisionSetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class DecisionSetServiceTest {
+
+    @Mock
+    private DecisionSetRepository decisionSetRepository;
+    @Mock
+    private RuleService ruleService;
+    @Mock
+    private AttributeService attributeService;
+
+    private DecisionSetService decisionSetService;
+    private final Map<Long, CompiledRule> published = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(ruleService.getCompiledRule(anyLong())).thenAnswer(i -> published.get(i.<Long>getArgument(0)));
+        when(ruleService.getFactSchema()).thenReturn(new FactSchema(name -> null));
+        DecisionSet set = new DecisionSet("pricing", DecisionSet.Mode.FIRST_MATCH,
+                Arrays.asList(new DecisionSet.Entry(1L, 10), new DecisionSet.Entry(2L, 5)));
+        set.setId(7L);
+        when(decisionSetRepository.findById(7L)).thenReturn(Optional.of(set));
+        decisionSetService = new DecisionSetService(decisionSetRepository, ruleService, attributeService);
+    }
+
+    @Test
+    void testSetIsRecompiledOnlyWhenOneOfItsRulesChanges() {
+        published.put(1L, new CompiledRule(1L, 0, Conditions.FALSE, null, 0));
+        published.put(2L, new CompiledRule(2L, 0, Conditions.TRUE, null, 0));
+        published.put(3L, new CompiledRule(3L, 0, Conditions.TRUE, null, 0));
+        Map<String, Object> data = Collections.singletonMap("age", 40);
+
+        assertEquals(2L, decisionSetService.evaluate(7L, data).getDecision());
+        assertEquals(2L, decisionSetService.evaluate(7L, data).getDecision());
+        verify(decisionSetRepository, times(1)).findById(7L);
+
+        // An edit to a rule outside the set leaves the compiled set as it is
+        published.put(3L, new CompiledRule(3L, 1, Conditions.FALSE, null, 0));
+        decisionSetService.evaluate(7L, data);
+        verify(decisionSetRepository, times(1)).findById(7L);
+
+        published.put(1L, new CompiledRule(1L, 1, Conditions.TRUE, null, 0));
+        assertEquals(1L, decisionSetService.evaluate(7L, data).getDecision());
+        verify(decisionSetRepository, times(2)).findById(7L);
+    }
+}
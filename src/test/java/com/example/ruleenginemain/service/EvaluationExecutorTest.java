@@ -0,0 +1,84 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.exception.EvaluationRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluationExecutorTest {
+
+    private EvaluationExecutor executor;
+
+    private EvaluationExecutor executor(RuleEngineProperties.ExecutionMode mode, int threads, int queueCapacity,
+                                        Duration queueTimeout) {
+        RuleEngineProperties properties = new RuleEngineProperties();
+        properties.getExecution().setMode(mode);
+        properties.getExecution().setThreads(threads);
+        properties.getExecution().setQueueCapacity(queueCapacity);
+        properties.getExecution().setQueueTimeout(queueTimeout);
+        executor = new EvaluationExecutor(properties, new RuleMetrics(new SimpleMeterRegistry(), properties));
+        return executor;
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        executor.destroy();
+    }
+
+    @Test
+    void testRequestsBeyondQueueCapacityAreRejected() throws Exception {
+        EvaluationExecutor executor = executor(RuleEngineProperties.ExecutionMode.POOLED, 1, 1, Duration.ZERO);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = executor.submit(() -> await(release));
+        CompletableFuture<Boolean> queued = executor.submit(() -> true);
+        CompletableFuture<Boolean> shed = executor.submit(() -> true);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> shed.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof EvaluationRejectedException);
+        assertEquals(1, executor.getRejected());
+
+        release.countDown();
+        assertTrue(running.get(1, TimeUnit.SECONDS));
+        assertTrue(queued.get(1, TimeUnit.SECONDS));
+        assertTrue(executor.submit(() -> true).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testRequestsWaitingPastTheQueueTimeoutAreDropped() throws Exception {
+        EvaluationExecutor executor = executor(RuleEngineProperties.ExecutionMode.POOLED, 1, 10, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> await(release));
+        CompletableFuture<Boolean> stale = executor.submit(() -> true);
+        Thread.sleep(100);
+        release.countDown();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> stale.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof EvaluationRejectedException);
+        assertEquals(1, executor.getExpired());
+    }
+
+    @Test
+    void testAutoModeRunsTasks() throws Exception {
+        EvaluationExecutor executor = executor(RuleEngineProperties.ExecutionMode.AUTO, 0, 4, Duration.ofSeconds(1));
+        assertEquals("done", executor.submit(() -> "done").get(1, TimeUnit.SECONDS));
+        assertTrue(executor.getThreads() > 0);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.engine.CompiledRule;
+import com.example.ruleenginemain.engine.FactSchema;
+import com.example.ruleenginemain.engine.RuleCompiler;
+import com.example.ruleenginemain.engine.RuleParser;
+import com.example.ruleenginemain.exception.EvaluationRejectedException;
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.ScoringJob;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FileScoringServiceTest {
+
+    @Mock
+    private RuleService ruleService;
+    @Mock
+    private AttributeService attributeService;
+    @Mock
+    private RuleMetrics metrics;
+
+    @TempDir
+    Path directory;
+
+    private FileScoringService fileScoringService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(attributeService.getAttributeType(anyString())).thenAnswer(i -> {
+            String name = i.getArgument(0);
+            return name.equals("age") ? Attribute.AttributeType.NUMBER
+                    : name.equals("department") ? Attribute.AttributeType.STRING : null;
+        });
+        FactSchema schema = new FactSchema(attributeService::getAttributeType);
+        RuleCompiler compiler = new RuleCompiler(name -> null, schema);
+        CompiledRule rule = compiler.compile(1L, new RuleParser(name -> true).parse("age > 30 AND department = 'Sales'"));
+        when(ruleService.getCompiledRule(1L)).thenReturn(rule);
+        when(ruleService.getCompiledRule(2L)).thenThrow(new RuleEngineException("Rule not found with ID: 2"));
+
+        RuleEngineProperties properties = new RuleEngineProperties();
+        properties.getScoring().setDirectory(directory.toString());
+        // The smallest chunk, so the test files span several chunks
+        properties.getScoring().setChunkSize(DataSize.ofBytes(4096));
+        properties.getScoring().setParallelism(3);
+        fileScoringService = new FileScoringService(ruleService, attributeService, metrics, new ObjectMapper(), properties);
+    }
+
+    private ScoringJob await(ScoringJob job) throws InterruptedException {
+        for (int i = 0; i < 500 && !job.isFinished(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished());
+        return job;
+    }
+
+    @Test
+    void testWritesOffsetsAndIdsOfMatchingCsvRecordsInOrder() throws Exception {
+        StringBuilder csv = new StringBuilder("id,age,department\r\n");
+        List<String> expected = new ArrayList<>();
+        int failed = 0;
+        String[] departments = {"Sales", "Marketing"};
+        for (int i = 0; i < 2000; i++) {
+            int age = i % 60;
+            String department = departments[i % 7 % 2];
+            String line = i % 100 == 99 ? "\r\n" : "r" + i + "," + (i % 50 == 0 ? "n/a" : age) + "," + department + "\r\n";
+            if (!line.equals("\r\n") && i % 50 != 0 && age > 30 && department.equals("Sales")) {
+                expected.add(csv.length() + ",r" + i);
+            }
+            // An unreadable age fails the record only when the department does not already rule it out
+            if (i % 50 == 0 && department.equals("Sales")) {
+                failed++;
+            }
+            csv.append(line);
+        }
+        Files.write(directory.resolve("input.csv"), csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        ScoringJob job = await(fileScoringService.submit(1L, "input.csv", "matches.csv", null, null));
+
+        assertEquals(ScoringJob.State.COMPLETED, job.getState(), job.getError());
+        assertEquals(ScoringJob.Format.CSV, job.getFormat());
+        assertEquals(2000 - 20, job.getRows());
+        assertEquals(failed, job.getFailed());
+        assertEquals(expected.size(), job.getMatched());
+        assertEquals(csv.length(), job.getBytesProcessed());
+        assertEquals(expected, Files.readAllLines(directory.resolve("matches.csv")));
+        assertFalse(Files.exists(directory.resolve("matches.csv.part")));
+    }
+
+    @Test
+    void testScoresNdjsonAndCountsMalformedLines() throws Exception {
+        String input = "{\"id\":1,\"age\":35,\"department\":\"Sales\"}\n"
+                + "{\"id\":2,\"age\":25,\"department\":\"Sales\"}\n"
+                + "not json\n"
+                + "{\"id\":\"a,b\",\"age\":45,\"department\":\"Sales\"}";
+        Files.write(directory.resolve("input.ndjson"), input.getBytes(StandardCharsets.UTF_8));
+
+        ScoringJob job = await(fileScoringService.submit(1L, "input.ndjson", "out/../matches.txt", null, null));
+
+        assertEquals(ScoringJob.State.COMPLETED, job.getState(), job.getError());
+        assertEquals(4, job.getRows());
+        assertEquals(2, job.getMatched());
+        assertEquals(1, job.getFailed());
+        assertEquals(List.of("0,1", input.lastIndexOf("{\"id\":\"a,b\"") + ",\"a,b\""),
+                Files.readAllLines(directory.resolve("matches.txt")));
+    }
+
+    @Test
+    void testRejectsInvalidJobs() throws IOException {
+        Files.write(directory.resolve("input.csv"), "id,age\n1,40\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("input.txt"), "x".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(RuleEngineException.class, () -> fileScoringService.submit(1L, "missing.csv", "out.csv", null, null));
+        assertThrows(RuleEngineException.class, () -> fileScoringService.submit(1L, "../input.csv", "out.csv", null, null));
+        assertThrows(RuleEngineException.class, () -> fileScoringService.submit(1L, "input.csv", "../out.csv", null, null));
+        assertThrows(RuleEngineException.class, () -> fileScoringService.submit(1L, "input.csv", "input.csv", null, null));
+        assertThrows(RuleEngineException.class, () -> fileScoringService.submit(1L, "input.txt", "out.csv", null, null));
+        assertThrows(RuleEngineException.class, () -> fileScoringService.submit(2L, "input.csv", "out.csv", null, null));
+        assertTrue(fileScoringService.getJobs().isEmpty());
+
+        RuleEngineProperties disabled = new RuleEngineProperties();
+        FileScoringService service = new FileScoringService(ruleService, attributeService, metrics, new ObjectMapper(), disabled);
+        assertThrows(RuleEngineException.class, () -> service.submit(1L, "input.csv", "out.csv", null, null));
+    }
+
+    @Test
+    void testJobsBeyondTheLimitAreRejectedWhileWorkersAreShared() throws Exception {
+        Files.write(directory.resolve("input.csv"), "id,age,department\n1,40,Sales\n".getBytes(StandardCharsets.UTF_8));
+        RuleEngineProperties properties = new RuleEngineProperties();
+        properties.getScoring().setDirectory(directory.toString());
+        properties.getScoring().setMaxConcurrentJobs(1);
+        FileScoringService service = new FileScoringService(ruleService, attributeService, metrics, new ObjectMapper(), properties);
+        // Holds the first job's only chunk on its worker
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> workers = new CopyOnWriteArrayList<>();
+        doAnswer(i -> {
+            workers.add(Thread.currentThread().getName());
+            release.await();
+            return null;
+        }).when(metrics).recordBatch(anyLong(), anyInt(), anyInt(), anyInt(), anyLong());
+
+        ScoringJob first = service.submit(1L, "input.csv", "first.csv", null, null);
+        assertThrows(EvaluationRejectedException.class, () -> service.submit(1L, "input.csv", "second.csv", null, null));
+        assertEquals(1, service.getJobs().size());
+
+        release.countDown();
+        assertEquals(ScoringJob.State.COMPLETED, await(first).getState(), first.getError());
+        ScoringJob second = null;
+        // The slot is freed just after the job reports completion
+        for (int i = 0; i < 100 && second == null; i++) {
+            try {
+                second = service.submit(1L, "input.csv", "second.csv", null, null);
+            } catch (EvaluationRejectedException e) {
+                Thread.sleep(10);
+            }
+        }
+        assertNotNull(second);
+        assertEquals(ScoringJob.State.COMPLETED, await(second).getState(), second.getError());
+        assertEquals(2, workers.size());
+        assertTrue(workers.stream().allMatch(name -> name.startsWith("rule-scoring-worker-")), workers.toString());
+        service.destroy();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.Rule;
+import com.example.ruleenginemain.model.RuleImportRequest;
+import com.example.ruleenginemain.model.RuleImportResult;
+import com.example.ruleenginemain.repository.RuleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RuleImportServiceTest {
+
+    @Mock
+    private RuleService ruleService;
+    @Mock
+    private RuleRepository ruleRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RuleImportService ruleImportService;
+    private final AtomicLong nextId = new AtomicLong();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        RuleEngineProperties properties = new RuleEngineProperties();
+        properties.getImport().setChunkSize(2);
+        ruleImportService = new RuleImportService(ruleService, ruleRepository, transactionManager, properties);
+        when(ruleService.prepareRule(any(), any())).thenAnswer(i -> {
+            String ruleString = i.getArgument(0);
+            if (ruleString == null) {
+                throw new RuleEngineException("Rule string cannot be null or empty");
+            }
+            if (ruleString.startsWith("bad")) {
+                throw new RuleEngineException("Invalid attribute: " + ruleString);
+            }
+            Rule rule = new Rule();
+            rule.setRuleString(ruleString);
+            return rule;
+        });
+        when(ruleRepository.saveAll(anyList())).thenAnswer(i -> {
+            List<Rule> rules = (List<Rule>) i.getArguments()[0];
+            if (rules.stream().anyMatch(r -> r.getRuleString().startsWith("duplicate"))) {
+                throw new DataIntegrityViolationException("unique constraint");
+            }
+            rules.forEach(r -> r.setId(nextId.incrementAndGet()));
+            return rules;
+        });
+    }
+
+    private static RuleImportRequest request(String ruleString) {
+        return new RuleImportRequest(ruleString, null);
+    }
+
+    @Test
+    void testReportsFailuresByIndexAndSavesTheRestInChunks() {
+        List<RuleImportRequest> requests = Arrays.asList(request("a > 1"), request("bad > 1"), request("b > 1"),
+                request("c > 1"), request("duplicate > 1"), null, request("d > 1"));
+
+        RuleImportResult result = ruleImportService.importRules(requests);
+
+        assertEquals(7, result.getTotal());
+        assertEquals(3, result.getImportedCount());
+        // Chunks of two valid rules: {a, b} {c, duplicate} {d}; the second fails as a whole
+        assertEquals(Arrays.asList(1L, null, 2L, null, null, null, 3L), result.getRuleIds());
+        assertEquals(new ArrayList<>(List.of(1, 3, 4, 5)), new ArrayList<>(result.getErrors().keySet()));
+        assertTrue(result.getErrors().get(1).contains("Invalid attribute"));
+        assertTrue(result.getErrors().get(4).startsWith("Error saving rule"));
+        verify(ruleRepository, times(3)).saveAll(anyList());
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(ruleService, times(2)).rulesSaved(anyList());
+    }
+
+    @Test
+    void testRejectsEmptyImport() {
+        assertThrows(RuleEngineException.class, () -> ruleImportService.importRules(Collections.emptyList()));
+        assertThrows(RuleEngineException.class, () -> ruleImportService.importRules(null));
+    }
+}
@@ -1,20 +1,34 @@
 package com.example.ruleenginemain.service;
 
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.engine.CompiledRule;
+import com.example.ruleenginemain.engine.Conditions;
+import com.example.ruleenginemain.engine.RuleParser;
+import com.example.ruleenginemain.exception.RuleConflictException;
 import com.example.ruleenginemain.exception.RuleEngineException;
 import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.BatchEvaluationResult;
 import com.example.ruleenginemain.model.Node;
 import com.example.ruleenginemain.model.Rule;
+import com.example.ruleenginemain.model.RuleEvaluation;
 import com.example.ruleenginemain.repository.RuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,9 +42,27 @@ class RuleServiceTest {
     @Mock
     private AttributeService attributeService;
 
+    @Spy
+    private RuleCache ruleCache = new RuleCache(100, Long.MAX_VALUE);
+
+    @Spy
+    private RuleEngineProperties properties = new RuleEngineProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private RuleMetrics metrics = new RuleMetrics(meterRegistry, unsampled());
+
     @InjectMocks
     private RuleService ruleService;
 
+    private static RuleEngineProperties unsampled() {
+        RuleEngineProperties properties = new RuleEngineProperties();
+        properties.getMetrics().setSampleRate(1);
+        properties.getMetrics().setPerRule(true);
+        return properties;
+    }
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -106,4 +138,234 @@ class RuleServiceTest {
 
         assertThrows(RuleEngineException.class, () -> ruleService.evaluateRule(1L, data));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testEvaluateRuleUsesCache() {
+        Rule rule = new Rule("age > 30", new Node("operator", new Node("operand", null, null, "age"), new Node("operand", null, null, "30"), ">"));
+        when(ruleRepository.findById(1L)).thenReturn(Optional.of(rule));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+
+        assertTrue(ruleService.evaluateRule(1L, data));
+        assertTrue(ruleService.evaluateRule(1L, data));
+
+        verify(ruleRepository, times(1)).findById(1L);
+        assertEquals(1, ruleService.getCacheStats().getHits());
+        assertEquals(1, ruleService.getCacheStats().getMisses());
+    }
+
+    @Test
+    void testEvaluationIsMetered() {
+        Rule rule = new Rule("age > 30", new Node("operator", new Node("operand", null, null, "age"), new Node("operand", null, null, "30"), ">"));
+        when(ruleRepository.findById(1L)).thenReturn(Optional.of(rule));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        ruleService.evaluateRule(1L, data);
+        data.put("age", 25);
+        ruleService.evaluateRule(1L, data);
+        data.put("age", "unknown");
+        assertThrows(RuleEngineException.class, () -> ruleService.evaluateRule(1L, data));
+
+        assertEquals(1.0, meterRegistry.get("rule.engine.evaluations").tags("rule", "1", "outcome", "matched").counter().count());
+        assertEquals(1.0, meterRegistry.get("rule.engine.evaluations").tags("rule", "1", "outcome", "unmatched").counter().count());
+        assertEquals(1.0, meterRegistry.get("rule.engine.evaluations").tags("rule", "1", "outcome", "error").counter().count());
+        assertEquals(3, meterRegistry.get("rule.engine.evaluation").tag("rule", "1").timer().count());
+        // Per-rule timers carry no histogram buckets
+        assertEquals(0, meterRegistry.get("rule.engine.evaluation").tag("rule", "1").timer()
+                .takeSnapshot().histogramCounts().length);
+        assertEquals(1, meterRegistry.get("rule.engine.compile").timer().count());
+        assertEquals(1.0, meterRegistry.get("rule.engine.cache.requests").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void testModifyRulePublishesNewSnapshot() {
+        Rule rule = new Rule("age > 30", new Node("operator", new Node("operand", null, null, "age"), new Node("operand", null, null, "30"), ">"));
+        rule.setId(1L);
+        when(ruleRepository.findById(1L)).thenReturn(Optional.of(rule));
+        when(ruleRepository.save(any(Rule.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        assertTrue(ruleService.evaluateRule(1L, data));
+
+        when(attributeService.isValidAttribute(anyString())).thenReturn(true);
+        Rule modified = ruleService.addCondition(1L, "age < 60", "AND");
+
+        assertEquals("(age > 30) AND age < 60", modified.getRuleString());
+
+        // The edit replaces the cached snapshot instead of dropping it, so the next evaluation needs no reload
+        verify(ruleCache, never()).invalidate(1L);
+        data.put("age", 65);
+        assertFalse(ruleService.evaluateRule(1L, data));
+        verify(ruleRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testConcurrentEditIsReportedAsConflict() {
+        Rule rule = new Rule("age > 30", new Node("operator", new Node("operand", null, null, "age"), new Node("operand", null, null, "30"), ">"));
+        rule.setId(1L);
+        when(ruleRepository.findById(1L)).thenReturn(Optional.of(rule));
+        when(ruleRepository.save(any(Rule.class))).thenThrow(new OptimisticLockingFailureException("stale version"));
+
+        RuleConflictException e = assertThrows(RuleConflictException.class,
+                () -> ruleService.updateTags(1L, Collections.singleton("pricing")));
+        assertTrue(e.getMessage().contains("modified concurrently"), e.getMessage());
+    }
+
+    @Test
+    void testConcurrentEditsLeaveLatestVersionIndexed() throws Exception {
+        when(ruleRepository.findById(1L)).thenAnswer(i -> {
+            Rule rule = new Rule("age > 30", new Node("operator", new Node("operand", null, null, "age"), new Node("operand", null, null, "30"), ">"));
+            rule.setId(1L);
+            rule.setVersion(1L);
+            return Optional.of(rule);
+        });
+        when(ruleRepository.findAll()).thenAnswer(i -> Collections.singletonList(ruleRepository.findById(1L).get()));
+        when(attributeService.isValidAttribute(anyString())).thenReturn(true);
+        // Edit A is saved as version 2 but publishes only after edit B has saved and published version 3
+        CountDownLatch aSaved = new CountDownLatch(1);
+        CountDownLatch bPublished = new CountDownLatch(1);
+        when(ruleRepository.save(any(Rule.class))).thenAnswer(i -> {
+            Rule rule = i.getArgument(0);
+            if (rule.getRuleString().equals("age > 40")) {
+                rule.setVersion(2L);
+                aSaved.countDown();
+                bPublished.await();
+            } else {
+                rule.setVersion(3L);
+            }
+            return rule;
+        });
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 45);
+        assertEquals(Collections.singletonList(1L), ruleService.matchRules(data, null));
+
+        Thread editA = new Thread(() -> ruleService.modifyRule(1L, "age > 40"));
+        editA.start();
+        aSaved.await();
+        ruleService.modifyRule(1L, "age > 50");
+        bPublished.countDown();
+        editA.join();
+
+        assertEquals(3, ruleService.getCompiledRule(1L).getVersion());
+        assertFalse(ruleService.evaluateRule(1L, data));
+        assertEquals(Collections.emptyList(), ruleService.matchRules(data, null));
+        data.put("age", 55);
+        assertEquals(Collections.singletonList(1L), ruleService.matchRules(data, null));
+    }
+
+    @Test
+    void testPreloadedRulesStayCachedPastSizeAndTtl() throws InterruptedException {
+        // Smaller than the catalog, and a TTL that has passed by the time rules are read
+        RuleCache smallCache = new RuleCache(10, 1_000_000);
+        RuleService service = new RuleService(ruleRepository, attributeService, smallCache, properties, metrics);
+        List<Rule> rules = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            Rule rule = new Rule("age > " + id, new Node("operator", new Node("operand", null, null, "age"), new Node("operand", null, null, String.valueOf(id)), ">"));
+            rule.setId(id);
+            rules.add(rule);
+        }
+        assertEquals(50, service.preload(rules).size());
+        Thread.sleep(5);
+
+        for (long id = 1; id <= 50; id++) {
+            assertEquals(id, service.getCompiledRule(id).getRuleId());
+        }
+        assertEquals(50, service.getCacheStats().getHits());
+        assertEquals(0, service.getCacheStats().getMisses());
+        verify(ruleRepository, never()).findById(any());
+
+        // A rule loaded on a miss still expires
+        Rule loaded = new Rule("age > 99", new Node("operator", new Node("operand", null, null, "age"), new Node("operand", null, null, "99"), ">"));
+        loaded.setId(99L);
+        when(ruleRepository.findById(99L)).thenReturn(Optional.of(loaded));
+        service.getCompiledRule(99L);
+        Thread.sleep(5);
+        service.getCompiledRule(99L);
+        verify(ruleRepository, times(2)).findById(99L);
+    }
+
+    @Test
+    void testOlderSnapshotNeverReplacesNewer() {
+        Rule rule = new Rule("age > 30", new Node("operator", new Node("operand", null, null, "age"), new Node("operand", null, null, "30"), ">"));
+        rule.setId(1L);
+        when(ruleRepository.findById(1L)).thenReturn(Optional.of(rule));
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        assertEquals(0, ruleService.evaluate(1L, data).getRuleVersion());
+
+        CompiledRule older = ruleService.getCompiledRule(1L);
+        CompiledRule newer = new CompiledRule(1L, 2, Conditions.FALSE, null, 0);
+        ruleCache.put(1L, newer);
+        ruleCache.put(1L, older);
+
+        RuleEvaluation evaluation = ruleService.evaluate(1L, data);
+        assertEquals(2, evaluation.getRuleVersion());
+        assertFalse(evaluation.isMatched());
+    }
+
+    @Test
+    void testEvaluateBatch() {
+        Rule rule = new Rule("age > 30", new Node("operator", new Node("operand", null, null, "age"), new Node("operand", null, null, "30"), ">"));
+        when(ruleRepository.findById(1L)).thenReturn(Optional.of(rule));
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Map<String, Object> data = new HashMap<>();
+            data.put(i == 7 ? "name" : "age", i);
+            records.add(data);
+        }
+
+        BatchEvaluationResult result = ruleService.evaluateBatch(1L, records);
+
+        assertEquals(2000, result.getTotal());
+        assertEquals(1969, result.getMatchedCount());
+        assertFalse(result.getResults()[30]);
+        assertTrue(result.getResults()[31]);
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().containsKey(7));
+        verify(ruleRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testMatchRules() {
+        Rule adults = new Rule("age > 30", new Node("operator", new Node("operand", null, null, "age"), new Node("operand", null, null, "30"), ">"));
+        adults.setId(1L);
+        Rule sales = new Rule("department = 'Sales'", new Node("operator", new Node("operand", null, null, "department"), new Node("operand", null, null, "'Sales'"), "="));
+        sales.setId(2L);
+        sales.getTags().add("org");
+        Rule salary = new Rule("salary > 50000", new Node("operator", new Node("operand", null, null, "salary"), new Node("operand", null, null, "50000"), ">"));
+        salary.setId(3L);
+        when(ruleRepository.findAll()).thenReturn(Arrays.asList(adults, sales, salary));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("age", 35);
+        data.put("department", "Sales");
+
+        assertEquals(Arrays.asList(1L, 2L), ruleService.matchRules(data, null));
+        assertEquals(Collections.singletonList(2L), ruleService.matchRules(data, "org"));
+        verify(ruleRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testRemoveCondition() {
+        when(attributeService.isValidAttribute(anyString())).thenReturn(true);
+        when(ruleRepository.save(any(Rule.class))).thenAnswer(i -> i.getArguments()[0]);
+        Rule rule = ruleService.createRule("age > 30 AND (department = 'Sales' OR salary > 50000)");
+        rule.setId(1L);
+        when(ruleRepository.findById(1L)).thenReturn(Optional.of(rule));
+
+        Node original = rule.getRootNode();
+        String originalTree = RuleParser.format(original);
+
+        Rule result = ruleService.removeCondition(1L, "department = 'Sales'");
+
+        assertEquals("(age > 30 AND salary > 50000)", result.getRuleString());
+        // The previous tree is left as it was, for anyone still reading it
+        assertEquals(originalTree, RuleParser.format(original));
+        assertSame(original.getLeft(), result.getRootNode().getLeft());
+        assertThrows(RuleEngineException.class, () -> ruleService.removeCondition(1L, "(age > 30 AND salary > 50000)"));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.engine.CompiledRule;
+import com.example.ruleenginemain.engine.FactSchema;
+import com.example.ruleenginemain.engine.RuleCompiler;
+import com.example.ruleenginemain.engine.RuleParser;
+import com.example.ruleenginemain.model.Attribute;
+import com.example.ruleenginemain.model.Rule;
+import com.example.ruleenginemain.repository.RuleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.health.Status;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RuleWarmupTest {
+
+    @Mock
+    private RuleRepository ruleRepository;
+    @Mock
+    private RuleService ruleService;
+    @Mock
+    private AttributeService attributeService;
+
+    @TempDir
+    Path directory;
+
+    private RuleEngineProperties properties;
+    private RuleCompiler compiler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(attributeService.getAttributeType(anyString())).thenAnswer(i -> {
+            String name = i.getArgument(0);
+            return name.equals("age") ? Attribute.AttributeType.NUMBER
+                    : name.equals("department") ? Attribute.AttributeType.STRING : null;
+        });
+        compiler = new RuleCompiler(name -> null, new FactSchema(attributeService::getAttributeType));
+        when(ruleService.preload(anyList())).thenAnswer(i -> {
+            List<CompiledRule> compiled = new ArrayList<>();
+            for (Rule rule : (List<Rule>) i.getArgument(0)) {
+                compiled.add(compiler.compile(rule.getId(), rule.getVersion(), rule.getRootNode()));
+            }
+            return compiled;
+        });
+        properties = new RuleEngineProperties();
+        properties.getWarmup().setEvaluations(1000);
+    }
+
+    private static Rule rule(long id, long version, String ruleString) {
+        Rule rule = new Rule();
+        rule.setId(id);
+        rule.setVersion(version);
+        rule.setRuleString(ruleString);
+        rule.setCompactRoot(new RuleParser(name -> true).parse(ruleString));
+        rule.setTags(new HashSet<>(Collections.singletonList("tag-" + id)));
+        return rule;
+    }
+
+    @Test
+    void testReadyOnlyAfterRulesArePreloadedAndEvaluated() {
+        when(ruleRepository.findAll()).thenReturn(Arrays.asList(
+                rule(1, 0, "age > 30 AND department = 'Sales'"), rule(2, 0, "score > 1")));
+        RuleWarmup warmup = new RuleWarmup(ruleRepository, ruleService, attributeService, properties);
+        assertEquals(Status.OUT_OF_SERVICE, warmup.health().getStatus());
+
+        warmup.run(null);
+
+        assertTrue(warmup.isReady());
+        assertEquals(Status.UP, warmup.health().getStatus());
+        assertEquals(2, warmup.health().getDetails().get("compiled"));
+        // Only the first rule is evaluated; the second may call a function
+        assertTrue((Long) warmup.health().getDetails().get("evaluations") >= 1000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSnapshotSkipsUnchangedRulesAndReloadsStaleOnes() throws Exception {
+        Path snapshot = directory.resolve("rules.snapshot");
+        properties.getWarmup().setSnapshot(snapshot.toString());
+        RuleSnapshot.write(snapshot, Arrays.asList(rule(1, 3, "age > 30"), rule(2, 1, "department = 'Sales'")));
+
+        Rule changed = rule(2, 2, "department = 'HR'");
+        when(ruleRepository.findAllVersions()).thenReturn(Arrays.asList(
+                new Object[]{1L, 3L}, new Object[]{2L, 2L}, new Object[]{3L, 0L}));
+        when(ruleRepository.findAllById(any())).thenReturn(Arrays.asList(changed, rule(3, 0, "age < 10")));
+
+        RuleWarmup warmup = new RuleWarmup(ruleRepository, ruleService, attributeService, properties);
+        warmup.run(null);
+
+        ArgumentCaptor<Iterable<Long>> ids = ArgumentCaptor.forClass(Iterable.class);
+        verify(ruleRepository).findAllById(ids.capture());
+        Set<Long> reloaded = new HashSet<>();
+        ids.getValue().forEach(reloaded::add);
+        assertEquals(new HashSet<>(Arrays.asList(2L, 3L)), reloaded);
+        verify(ruleRepository, never()).findAll();
+        assertEquals(1, warmup.health().getDetails().get("fromSnapshot"));
+        assertEquals(3, warmup.health().getDetails().get("rules"));
+
+        // The snapshot was rewritten with the current rules
+        Map<Long, Rule> saved = new HashMap<>();
+        RuleSnapshot.read(snapshot).forEach(r -> saved.put(r.getId(), r));
+        assertEquals(3, saved.size());
+        assertEquals(2L, saved.get(2L).getVersion());
+        assertEquals("department = 'HR'", saved.get(2L).getRuleString());
+        assertEquals(Collections.singleton("tag-2"), saved.get(2L).getTags());
+        CompiledRule restored = compiler.compile(3L, 0, saved.get(3L).getRootNode());
+        assertTrue(restored.evaluate(Collections.singletonMap("age", 5.0)));
+    }
+
+    @Test
+    void testFailureStillMarksReady() {
+        when(ruleRepository.findAll()).thenThrow(new IllegalStateException("database unavailable"));
+        RuleWarmup warmup = new RuleWarmup(ruleRepository, ruleService, attributeService, properties);
+
+        warmup.run(null);
+
+        assertEquals(Status.UP, warmup.health().getStatus());
+        assertEquals("database unavailable", warmup.health().getDetails().get("error"));
+    }
+}
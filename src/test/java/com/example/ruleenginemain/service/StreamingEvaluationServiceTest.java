@@ -0,0 +1,109 @@
+package com.example.ruleenginemain.service;
+
+import com.example.ruleenginemain.config.RuleEngineProperties;
+import com.example.ruleenginemain.exception.RuleEngineException;
+import com.example.ruleenginemain.model.BatchEvaluationResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StreamingEvaluationServiceTest {
+
+    @Mock
+    private RuleService ruleService;
+
+    private StreamingEvaluationService streamingEvaluationService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        RuleEngineProperties properties = new RuleEngineProperties();
+        properties.getStream().setMaxInFlight(2);
+        streamingEvaluationService = new StreamingEvaluationService(ruleService, new ObjectMapper(), properties);
+        when(ruleService.evaluateBatch(eq(1L), anyList())).thenAnswer(i -> {
+            List<Map<String, Object>> records = (List<Map<String, Object>>) i.getArguments()[1];
+            boolean[] results = new boolean[records.size()];
+            Map<Integer, String> errors = new TreeMap<>();
+            for (int r = 0; r < records.size(); r++) {
+                Object age = records.get(r).get("age");
+                if (age == null) {
+                    errors.put(r, "Error evaluating rule: missing age");
+                } else {
+                    results[r] = ((Number) age).intValue() > 30;
+                }
+            }
+            return new BatchEvaluationResult(1L, results, 0, errors);
+        });
+    }
+
+    @Test
+    void testStreamsOneResultPerRecordInOrder() throws IOException {
+        String input = "{\"age\": 35}\n{\"id\": \"b\", \"age\": 20}\n{\"name\": \"x\"}\n{\"age\": 40}\n{\"age\": 10}\n";
+
+        String output = run(input);
+
+        assertEquals("{\"id\":0,\"matched\":true}\n"
+                + "{\"id\":\"b\",\"matched\":false}\n"
+                + "{\"id\":2,\"error\":\"Error evaluating rule: missing age\"}\n"
+                + "{\"id\":3,\"matched\":true}\n"
+                + "{\"id\":4,\"matched\":false}\n", output);
+    }
+
+    @Test
+    void testMalformedInputEndsStreamWithError() throws IOException {
+        String[] lines = run("{\"age\": 35}\n{\"age\": \n").split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":0,\"matched\":true}", lines[0]);
+        assertTrue(lines[1].startsWith("{\"error\":\"Malformed input after record 1"));
+    }
+
+    @Test
+    void testFailureAfterOutputStartedEndsStreamWithError() throws IOException {
+        when(ruleService.evaluateBatch(eq(3L), anyList()))
+                .thenReturn(new BatchEvaluationResult(3L, new boolean[]{true, false}, 1, new TreeMap<>()))
+                .thenThrow(new RuleEngineException("Rule not found with ID: 3"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long count = streamingEvaluationService.evaluate(3L, new ByteArrayInputStream(
+                "{\"age\": 35}\n{\"age\": 20}\n{\"age\": 40}\n".getBytes(StandardCharsets.UTF_8)), output);
+
+        assertEquals(2, count);
+        assertEquals("{\"id\":0,\"matched\":true}\n"
+                + "{\"id\":1,\"matched\":false}\n"
+                + "{\"error\":\"Evaluation stopped after record 2: Rule not found with ID: 3\"}\n",
+                new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testUnknownRuleFailsBeforeWriting() {
+        when(ruleService.getCompiledRule(2L)).thenThrow(new RuleEngineException("Rule not found with ID: 2"));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertThrows(RuleEngineException.class, () -> streamingEvaluationService.evaluate(2L,
+                new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)), output));
+        assertEquals(0, output.size());
+    }
+
+    private String run(String input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        streamingEvaluationService.evaluate(1L, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}